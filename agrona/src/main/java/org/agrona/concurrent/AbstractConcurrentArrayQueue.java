@@ -18,6 +18,7 @@ package org.agrona.concurrent;
 import org.agrona.BitUtil;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.agrona.UnsafeAccess.UNSAFE;
 
@@ -106,6 +107,34 @@ public abstract class AbstractConcurrentArrayQueue<E>
         buffer = (E[])new Object[capacity];
     }
 
+    /**
+     * Offer a batch of elements to the queue claiming the capacity for all of them in a single step. Either all of
+     * the elements are added or none are.
+     *
+     * @param items  containing the elements to be offered which must not be null.
+     * @param offset in the items array at which the batch begins.
+     * @param length of the batch.
+     * @return true if the batch was added or false if there is insufficient capacity remaining.
+     * @throws NullPointerException     if any of the elements are null.
+     * @throws IllegalArgumentException if the length is greater than the {@link #capacity()}.
+     */
+    public abstract boolean offerBatch(E[] items, int offset, int length);
+
+    /**
+     * Fill the queue with elements from a supplier up to a limit or the remaining capacity, claiming the capacity
+     * in a single step.
+     * <p>
+     * Each element is taken from the supplier before its slot is published. If the supplier returns null then the
+     * fill ends early. If the supplier throws then the elements already taken are published before the exception
+     * propagates. In both cases the claimed slots which were not filled are given back, or skipped by the consumer
+     * if another producer has claimed slots after them, so the queue remains usable.
+     *
+     * @param supplier of the elements to be added.
+     * @param limit    of the number of elements to be added.
+     * @return the number of elements added.
+     */
+    public abstract int fill(Supplier<E> supplier, int limit);
+
     public long addedCount()
     {
         return tail;
@@ -271,6 +300,22 @@ public abstract class AbstractConcurrentArrayQueue<E>
         return (int)(currentTail - currentHeadAfter);
     }
 
+    protected void checkBatch(final E[] items, final int offset, final int length)
+    {
+        if (length > capacity)
+        {
+            throw new IllegalArgumentException("Batch exceeds capacity of " + capacity + ", length=" + length);
+        }
+
+        for (int i = offset, limit = offset + length; i < limit; i++)
+        {
+            if (null == items[i])
+            {
+                throw new NullPointerException("element cannot be null: index=" + i);
+            }
+        }
+    }
+
     public static long sequenceToBufferOffset(final long sequence, final long mask)
     {
         return BUFFER_ARRAY_BASE + ((sequence & mask) << SHIFT_FOR_SCALE);
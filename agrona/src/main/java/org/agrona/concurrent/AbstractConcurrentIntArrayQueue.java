@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.BitUtil;
+import org.agrona.generation.DoNotSub;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import static org.agrona.UnsafeAccess.UNSAFE;
+
+/**
+ * Pad out a cacheline to the left of a producer fields to prevent false sharing.
+ */
+class AbstractConcurrentIntArrayQueuePadding1
+{
+    @SuppressWarnings("unused")
+    protected long p1, p2, p3, p4, p5, p6, p7, p8, p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * Value for the producer that are expected to be padded.
+ */
+class AbstractConcurrentIntArrayQueueProducer extends AbstractConcurrentIntArrayQueuePadding1
+{
+    protected volatile long tail;
+    protected long headCache;
+    protected volatile long sharedHeadCache;
+}
+
+/**
+ * Pad out a cacheline between the producer and consumer fields to prevent false sharing.
+ */
+class AbstractConcurrentIntArrayQueuePadding2 extends AbstractConcurrentIntArrayQueueProducer
+{
+    @SuppressWarnings("unused")
+    protected long p16, p17, p18, p19, p20, p21, p22, p23, p24, p25, p26, p27, p28, p29, p30;
+}
+
+/**
+ * Values for the consumer that are expected to be padded.
+ */
+class AbstractConcurrentIntArrayQueueConsumer extends AbstractConcurrentIntArrayQueuePadding2
+{
+    protected volatile long head;
+}
+
+/**
+ * Pad out a cacheline between the producer and consumer fields to prevent false sharing.
+ */
+class AbstractConcurrentIntArrayQueuePadding3 extends AbstractConcurrentIntArrayQueueConsumer
+{
+    @SuppressWarnings("unused")
+    protected long p31, p32, p33, p34, p35, p36, p37, p38, p39, p40, p41, p42, p43, p44, p45;
+}
+
+/**
+ * Common functionality for array backed concurrent queues of primitive {@code int} elements which avoid the
+ * boxing of the {@link java.util.Queue} implementations.
+ * <p>
+ * A designated null value marks empty slots so it cannot be offered to the queue and is returned from
+ * {@link #pollInt()} and {@link #peekInt()} when the queue is empty.
+ */
+public abstract class AbstractConcurrentIntArrayQueue extends AbstractConcurrentIntArrayQueuePadding3
+{
+    protected static final long TAIL_OFFSET;
+    protected static final long SHARED_HEAD_CACHE_OFFSET;
+    protected static final long HEAD_OFFSET;
+    @DoNotSub protected static final int BUFFER_ARRAY_BASE;
+    @DoNotSub protected static final int SHIFT_FOR_SCALE;
+
+    static
+    {
+        try
+        {
+            BUFFER_ARRAY_BASE = UNSAFE.arrayBaseOffset(int[].class);
+            SHIFT_FOR_SCALE = BitUtil.calculateShiftForScale(UNSAFE.arrayIndexScale(int[].class));
+            TAIL_OFFSET = UNSAFE.objectFieldOffset(
+                AbstractConcurrentIntArrayQueueProducer.class.getDeclaredField("tail"));
+            SHARED_HEAD_CACHE_OFFSET = UNSAFE.objectFieldOffset(
+                AbstractConcurrentIntArrayQueueProducer.class.getDeclaredField("sharedHeadCache"));
+            HEAD_OFFSET = UNSAFE.objectFieldOffset(
+                AbstractConcurrentIntArrayQueueConsumer.class.getDeclaredField("head"));
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @DoNotSub protected final int capacity;
+    protected final int nullValue;
+    protected final int[] buffer;
+
+    /**
+     * Create a new queue with a bounded capacity which is rounded up to the next positive power of two.
+     *
+     * @param requestedCapacity of the queue.
+     * @param nullValue         which marks an empty slot and cannot be offered.
+     */
+    public AbstractConcurrentIntArrayQueue(
+        @DoNotSub final int requestedCapacity,
+        final int nullValue)
+    {
+        this.capacity = BitUtil.findNextPositivePowerOfTwo(requestedCapacity);
+        this.nullValue = nullValue;
+        this.buffer = new int[capacity];
+
+        if (0 != nullValue)
+        {
+            Arrays.fill(buffer, nullValue);
+        }
+    }
+
+    /**
+     * Offer an element to the queue.
+     *
+     * @param value to be offered.
+     * @return true if the element was added or false if the queue is full.
+     * @throws IllegalArgumentException if the value is the {@link #nullValue()}.
+     */
+    public abstract boolean offerInt(int value);
+
+    /**
+     * Poll the element at the head of the queue.
+     *
+     * @return the element at the head of the queue or the {@link #nullValue()} if empty.
+     */
+    public abstract int pollInt();
+
+    /**
+     * Drain the minimum of a limit and the number of elements present in the queue at the time the operation starts.
+     *
+     * @param elementHandler for processing elements.
+     * @param limit          maximum number of elements to be drained.
+     * @return the number of elements drained.
+     */
+    public abstract @DoNotSub int drain(
+        IntConsumer elementHandler,
+        @DoNotSub int limit);
+
+    /**
+     * Drain the number of elements present in the queue at the time the operation starts.
+     *
+     * @param elementHandler for processing elements.
+     * @return the number of elements drained.
+     */
+    public @DoNotSub int drain(
+        final IntConsumer elementHandler)
+    {
+        return drain(elementHandler, size());
+    }
+
+    /**
+     * Peek at the element at the head of the queue without removing it.
+     *
+     * @return the element at the head of the queue or the {@link #nullValue()} if empty.
+     */
+    public int peekInt()
+    {
+        return UNSAFE.getIntVolatile(buffer, sequenceToBufferOffset(head, capacity - 1));
+    }
+
+    /**
+     * The value which marks an empty slot and is returned when the queue is empty.
+     *
+     * @return the value which marks an empty slot.
+     */
+    public int nullValue()
+    {
+        return nullValue;
+    }
+
+    /**
+     * The number of elements added to the queue since creation.
+     *
+     * @return the number of elements added.
+     */
+    public long addedCount()
+    {
+        return tail;
+    }
+
+    /**
+     * The number of elements removed from the queue since creation.
+     *
+     * @return the number of elements removed.
+     */
+    public long removedCount()
+    {
+        return head;
+    }
+
+    /**
+     * The maximum number of elements the queue can hold.
+     *
+     * @return the capacity of the queue.
+     */
+    public @DoNotSub int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * The remaining capacity for elements given the current size.
+     *
+     * @return the remaining capacity of the queue.
+     */
+    public @DoNotSub int remainingCapacity()
+    {
+        return capacity() - size();
+    }
+
+    /**
+     * Is the queue empty?
+     *
+     * @return true if the queue is empty.
+     */
+    public boolean isEmpty()
+    {
+        return head == tail;
+    }
+
+    /**
+     * Size can be considered an approximation on a moving queue.
+     *
+     * @return an approximation for the number of elements in the queue.
+     */
+    public @DoNotSub int size()
+    {
+        long currentHeadBefore;
+        long currentTail;
+        long currentHeadAfter = head;
+
+        do
+        {
+            currentHeadBefore = currentHeadAfter;
+            currentTail = tail;
+            currentHeadAfter = head;
+        }
+        while (currentHeadAfter != currentHeadBefore);
+
+        return (int)(currentTail - currentHeadAfter); // @DoNotSub
+    }
+
+    protected void checkValue(final int value)
+    {
+        if (nullValue == value)
+        {
+            throw new IllegalArgumentException("Cannot offer the null value: " + value);
+        }
+    }
+
+    public static long sequenceToBufferOffset(final long sequence, final long mask)
+    {
+        return BUFFER_ARRAY_BASE + ((sequence & mask) << SHIFT_FOR_SCALE);
+    }
+}
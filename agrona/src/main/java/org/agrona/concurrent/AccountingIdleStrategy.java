@@ -0,0 +1,280 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.CloseHelper;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+import java.util.Objects;
+
+/**
+ * Opt-in wrapper for any {@link IdleStrategy} which accounts for the time a thread spends idle versus working and
+ * publishes it to {@link AtomicCounter}s so hosts can be sized from another process.
+ * <p>
+ * Each call to idle with no work is timed and classified by its duration, as the wrapped strategy does not expose
+ * what it did. A call returning within the spin threshold is counted as a spin, within the park threshold as a yield,
+ * and otherwise as a park. The utilisation is published in parts per million, as the fraction of time not spent in
+ * the wrapped strategy, each time a report interval has elapsed.
+ * <p>
+ * Duty cycles which do work cost a single {@link NanoClock} reading and idle cycles cost two.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe and should be used by a single thread like the wrapped strategy.
+ */
+public class AccountingIdleStrategy implements IdleStrategy, AutoCloseable
+{
+    /**
+     * Default duration in nanoseconds under which an idle call is counted as a spin.
+     */
+    public static final long DEFAULT_SPIN_THRESHOLD_NS = 250;
+
+    /**
+     * Default duration in nanoseconds under which an idle call is counted as a yield.
+     */
+    public static final long DEFAULT_PARK_THRESHOLD_NS = 20_000;
+
+    /**
+     * Default interval in nanoseconds over which the utilisation is reported.
+     */
+    public static final long DEFAULT_REPORT_INTERVAL_NS = 1_000_000_000;
+
+    /**
+     * Utilisation value for a thread which does not idle.
+     */
+    public static final long FULL_UTILISATION_PPM = 1_000_000;
+
+    private final IdleStrategy delegate;
+    private final NanoClock nanoClock;
+    private final long spinThresholdNs;
+    private final long parkThresholdNs;
+    private final long reportIntervalNs;
+    private final AtomicCounter spins;
+    private final AtomicCounter yields;
+    private final AtomicCounter parks;
+    private final AtomicCounter idleTimeNs;
+    private final AtomicCounter utilisationPpm;
+
+    private long intervalStartNs;
+    private long intervalIdleNs;
+
+    /**
+     * Wrap an {@link IdleStrategy} allocating counters from a {@link CountersManager} and using the default
+     * thresholds and report interval.
+     *
+     * @param delegate        to be wrapped.
+     * @param nanoClock       to time idle calls.
+     * @param countersManager from which the counters are allocated.
+     * @param name            of the thread which prefixes the counter labels.
+     */
+    public AccountingIdleStrategy(
+        final IdleStrategy delegate,
+        final NanoClock nanoClock,
+        final CountersManager countersManager,
+        final String name)
+    {
+        this(
+            delegate,
+            nanoClock,
+            DEFAULT_SPIN_THRESHOLD_NS,
+            DEFAULT_PARK_THRESHOLD_NS,
+            DEFAULT_REPORT_INTERVAL_NS,
+            countersManager.newCounter(name + " idle spins"),
+            countersManager.newCounter(name + " idle yields"),
+            countersManager.newCounter(name + " idle parks"),
+            countersManager.newCounter(name + " idle time ns"),
+            countersManager.newCounter(name + " utilisation ppm"));
+    }
+
+    /**
+     * Wrap an {@link IdleStrategy} publishing to the provided counters.
+     *
+     * @param delegate         to be wrapped.
+     * @param nanoClock        to time idle calls.
+     * @param spinThresholdNs  under which an idle call is counted as a spin.
+     * @param parkThresholdNs  under which an idle call is counted as a yield rather than a park.
+     * @param reportIntervalNs over which the utilisation is reported.
+     * @param spins            counter for idle calls classified as spins.
+     * @param yields           counter for idle calls classified as yields.
+     * @param parks            counter for idle calls classified as parks.
+     * @param idleTimeNs       counter for the total time spent idle in nanoseconds.
+     * @param utilisationPpm   counter for the utilisation in parts per million over the last report interval.
+     */
+    public AccountingIdleStrategy(
+        final IdleStrategy delegate,
+        final NanoClock nanoClock,
+        final long spinThresholdNs,
+        final long parkThresholdNs,
+        final long reportIntervalNs,
+        final AtomicCounter spins,
+        final AtomicCounter yields,
+        final AtomicCounter parks,
+        final AtomicCounter idleTimeNs,
+        final AtomicCounter utilisationPpm)
+    {
+        Objects.requireNonNull(delegate, "delegate");
+        Objects.requireNonNull(nanoClock, "nanoClock");
+
+        this.delegate = delegate;
+        this.nanoClock = nanoClock;
+        this.spinThresholdNs = spinThresholdNs;
+        this.parkThresholdNs = parkThresholdNs;
+        this.reportIntervalNs = reportIntervalNs;
+        this.spins = spins;
+        this.yields = yields;
+        this.parks = parks;
+        this.idleTimeNs = idleTimeNs;
+        this.utilisationPpm = utilisationPpm;
+
+        intervalStartNs = nanoClock.nanoTime();
+        utilisationPpm.setOrdered(FULL_UTILISATION_PPM);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void idle(final int workCount)
+    {
+        if (workCount > 0)
+        {
+            delegate.idle(workCount);
+            checkReportInterval(nanoClock.nanoTime());
+        }
+        else
+        {
+            idle();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void idle()
+    {
+        final long startNs = nanoClock.nanoTime();
+        delegate.idle();
+        final long nowNs = nanoClock.nanoTime();
+        final long durationNs = nowNs - startNs;
+
+        if (durationNs < spinThresholdNs)
+        {
+            spins.orderedIncrement();
+        }
+        else if (durationNs < parkThresholdNs)
+        {
+            yields.orderedIncrement();
+        }
+        else
+        {
+            parks.orderedIncrement();
+        }
+
+        idleTimeNs.addOrdered(durationNs);
+        intervalIdleNs += durationNs;
+        checkReportInterval(nowNs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        delegate.reset();
+    }
+
+    /**
+     * The {@link IdleStrategy} which is wrapped.
+     *
+     * @return the {@link IdleStrategy} which is wrapped.
+     */
+    public IdleStrategy delegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * Counter for idle calls classified as spins.
+     *
+     * @return counter for idle calls classified as spins.
+     */
+    public AtomicCounter spins()
+    {
+        return spins;
+    }
+
+    /**
+     * Counter for idle calls classified as yields.
+     *
+     * @return counter for idle calls classified as yields.
+     */
+    public AtomicCounter yields()
+    {
+        return yields;
+    }
+
+    /**
+     * Counter for idle calls classified as parks.
+     *
+     * @return counter for idle calls classified as parks.
+     */
+    public AtomicCounter parks()
+    {
+        return parks;
+    }
+
+    /**
+     * Counter for the total time spent idle in nanoseconds.
+     *
+     * @return counter for the total time spent idle in nanoseconds.
+     */
+    public AtomicCounter idleTimeNs()
+    {
+        return idleTimeNs;
+    }
+
+    /**
+     * Counter for the utilisation in parts per million over the last report interval.
+     *
+     * @return counter for the utilisation in parts per million over the last report interval.
+     */
+    public AtomicCounter utilisationPpm()
+    {
+        return utilisationPpm;
+    }
+
+    /**
+     * Free the counters for reuse.
+     */
+    public void close()
+    {
+        CloseHelper.quietClose(spins);
+        CloseHelper.quietClose(yields);
+        CloseHelper.quietClose(parks);
+        CloseHelper.quietClose(idleTimeNs);
+        CloseHelper.quietClose(utilisationPpm);
+    }
+
+    private void checkReportInterval(final long nowNs)
+    {
+        final long intervalNs = nowNs - intervalStartNs;
+        if (intervalNs >= reportIntervalNs)
+        {
+            final long busyNs = Math.max(intervalNs - intervalIdleNs, 0);
+            utilisationPpm.setOrdered((long)(((double)busyNs / intervalNs) * FULL_UTILISATION_PPM));
+            intervalStartNs = nowNs;
+            intervalIdleNs = 0;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.concurrent.status.StatusIndicator;
+import org.agrona.hints.ThreadHints;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idling strategy which backs off like {@link BackoffIdleStrategy} but tunes its spin and yield limits from the phase
+ * in which work arrives after an idle period.
+ * <p>
+ * If work arrives while yielding then the gap between arrivals is just beyond the spin limit so the spin limit is
+ * doubled to catch the next arrival without the latency of a yield. If work arrives by the first park then the gap is
+ * just beyond the yield limit so the yield limit is doubled to catch the next arrival without the latency of a park.
+ * If work arrives after further parks then the gap is longer than spinning and yielding can cover so both limits are
+ * halved to reduce the CPU burnt. Work arriving while spinning leaves the limits unchanged. Limits are kept within the
+ * bounds given on construction so they recover as load increases after a quiet period.
+ * <p>
+ * The current phase can be exposed through a {@link StatusIndicator} which is only written when the phase changes.
+ */
+public final class AdaptiveIdleStrategy implements IdleStrategy
+{
+    /**
+     * Phase when work was done on the last duty cycle.
+     */
+    public static final int NOT_IDLE = 0;
+
+    /**
+     * Phase when spinning.
+     */
+    public static final int SPINNING = 1;
+
+    /**
+     * Phase when yielding.
+     */
+    public static final int YIELDING = 2;
+
+    /**
+     * Phase when parking.
+     */
+    public static final int PARKING = 3;
+
+    private final long minSpins;
+    private final long maxSpins;
+    private final long minYields;
+    private final long maxYields;
+    private final long minParkPeriodNs;
+    private final long maxParkPeriodNs;
+    private final StatusIndicator phaseIndicator;
+
+    private int phase = NOT_IDLE;
+    private long spins;
+    private long yields;
+    private long parks;
+    private long parkPeriodNs;
+    private long spinLimit;
+    private long yieldLimit;
+
+    /**
+     * Create an adaptive idle strategy which does not expose its phase.
+     *
+     * @param minSpins        lower bound for the spin limit.
+     * @param maxSpins        upper bound, and initial value, for the spin limit.
+     * @param minYields       lower bound for the yield limit.
+     * @param maxYields       upper bound, and initial value, for the yield limit.
+     * @param minParkPeriodNs to use when initiating parking.
+     * @param maxParkPeriodNs to use when parking.
+     */
+    public AdaptiveIdleStrategy(
+        final long minSpins,
+        final long maxSpins,
+        final long minYields,
+        final long maxYields,
+        final long minParkPeriodNs,
+        final long maxParkPeriodNs)
+    {
+        this(minSpins, maxSpins, minYields, maxYields, minParkPeriodNs, maxParkPeriodNs, null);
+    }
+
+    /**
+     * Create an adaptive idle strategy which exposes its phase.
+     *
+     * @param minSpins        lower bound for the spin limit.
+     * @param maxSpins        upper bound, and initial value, for the spin limit.
+     * @param minYields       lower bound for the yield limit.
+     * @param maxYields       upper bound, and initial value, for the yield limit.
+     * @param minParkPeriodNs to use when initiating parking.
+     * @param maxParkPeriodNs to use when parking.
+     * @param phaseIndicator  to be set to the current phase when it changes. This may be null.
+     */
+    public AdaptiveIdleStrategy(
+        final long minSpins,
+        final long maxSpins,
+        final long minYields,
+        final long maxYields,
+        final long minParkPeriodNs,
+        final long maxParkPeriodNs,
+        final StatusIndicator phaseIndicator)
+    {
+        if (minSpins < 1 || minSpins > maxSpins)
+        {
+            throw new IllegalArgumentException(
+                "invalid spin bounds: minSpins=" + minSpins + ", maxSpins=" + maxSpins);
+        }
+
+        if (minYields < 1 || minYields > maxYields)
+        {
+            throw new IllegalArgumentException(
+                "invalid yield bounds: minYields=" + minYields + ", maxYields=" + maxYields);
+        }
+
+        this.minSpins = minSpins;
+        this.maxSpins = maxSpins;
+        this.minYields = minYields;
+        this.maxYields = maxYields;
+        this.minParkPeriodNs = minParkPeriodNs;
+        this.maxParkPeriodNs = maxParkPeriodNs;
+        this.phaseIndicator = phaseIndicator;
+        this.spinLimit = maxSpins;
+        this.yieldLimit = maxYields;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void idle(final int workCount)
+    {
+        if (workCount > 0)
+        {
+            adapt();
+            reset();
+        }
+        else
+        {
+            idle();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void idle()
+    {
+        switch (phase)
+        {
+            case NOT_IDLE:
+                phase(SPINNING);
+                spins++;
+                break;
+
+            case SPINNING:
+                ThreadHints.onSpinWait();
+                if (++spins > spinLimit)
+                {
+                    phase(YIELDING);
+                    yields = 0;
+                }
+                break;
+
+            case YIELDING:
+                if (++yields > yieldLimit)
+                {
+                    phase(PARKING);
+                    parks = 0;
+                    parkPeriodNs = minParkPeriodNs;
+                }
+                else
+                {
+                    Thread.yield();
+                }
+                break;
+
+            case PARKING:
+                parks++;
+                LockSupport.parkNanos(parkPeriodNs);
+                parkPeriodNs = Math.min(parkPeriodNs << 1, maxParkPeriodNs);
+                break;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        spins = 0;
+        yields = 0;
+        phase(NOT_IDLE);
+    }
+
+    /**
+     * The current phase of idling.
+     *
+     * @return the current phase of idling.
+     * @see #NOT_IDLE
+     * @see #SPINNING
+     * @see #YIELDING
+     * @see #PARKING
+     */
+    public int phase()
+    {
+        return phase;
+    }
+
+    /**
+     * The number of spins currently performed before yielding.
+     *
+     * @return the number of spins currently performed before yielding.
+     */
+    public long spinLimit()
+    {
+        return spinLimit;
+    }
+
+    /**
+     * The number of yields currently performed before parking.
+     *
+     * @return the number of yields currently performed before parking.
+     */
+    public long yieldLimit()
+    {
+        return yieldLimit;
+    }
+
+    private void adapt()
+    {
+        switch (phase)
+        {
+            case YIELDING:
+                spinLimit = Math.min(spinLimit << 1, maxSpins);
+                break;
+
+            case PARKING:
+                if (parks <= 1)
+                {
+                    yieldLimit = Math.min(yieldLimit << 1, maxYields);
+                }
+                else
+                {
+                    spinLimit = Math.max(spinLimit >> 1, minSpins);
+                    yieldLimit = Math.max(yieldLimit >> 1, minYields);
+                }
+                break;
+        }
+    }
+
+    private void phase(final int phase)
+    {
+        if (this.phase != phase)
+        {
+            this.phase = phase;
+            if (null != phaseIndicator)
+            {
+                phaseIndicator.setOrdered(phase);
+            }
+        }
+    }
+}
@@ -36,10 +36,13 @@ public class AgentInvoker implements AutoCloseable
     private boolean isClosed = false;
     private boolean isStarted = false;
     private boolean isRunning = false;
+    private int workLimit = Integer.MAX_VALUE;
 
     private final AtomicCounter errorCounter;
     private final ErrorHandler errorHandler;
     private final Agent agent;
+    private final NanoClock nanoClock;
+    private final DeadlineTimerService timerService;
 
     /**
      * Create an agent and initialise it.
@@ -52,6 +55,29 @@ public class AgentInvoker implements AutoCloseable
         final ErrorHandler errorHandler,
         final AtomicCounter errorCounter,
         final Agent agent)
+    {
+        this(errorHandler, errorCounter, agent, null, null);
+    }
+
+    /**
+     * Create an agent which polls a {@link DeadlineTimerService} on each invocation and initialise it.
+     * <p>
+     * The {@link NanoClock} is read once per invocation to poll the {@link DeadlineTimerService} and the number of
+     * expired timers is added to the work count returned from {@link #invoke()}.
+     *
+     * @param errorHandler to be called if an {@link Throwable} is encountered
+     * @param errorCounter to be incremented each time an exception is encountered. This may be null.
+     * @param agent        to be run in this thread.
+     * @param nanoClock    to poll the timer service and measure invoke durations. This may be null to use a
+     *                     {@link SystemNanoClock}.
+     * @param timerService to be polled on each invocation. This may be null if the agent does not use timers.
+     */
+    public AgentInvoker(
+        final ErrorHandler errorHandler,
+        final AtomicCounter errorCounter,
+        final Agent agent,
+        final NanoClock nanoClock,
+        final DeadlineTimerService timerService)
     {
         Objects.requireNonNull(errorHandler, "errorHandler");
         Objects.requireNonNull(agent, "agent");
@@ -59,6 +85,8 @@ public class AgentInvoker implements AutoCloseable
         this.errorHandler = errorHandler;
         this.errorCounter = errorCounter;
         this.agent = agent;
+        this.nanoClock = null == nanoClock ? new SystemNanoClock() : nanoClock;
+        this.timerService = timerService;
     }
 
     /**
@@ -101,6 +129,46 @@ public class AgentInvoker implements AutoCloseable
         return agent;
     }
 
+    /**
+     * The {@link DeadlineTimerService} polled on each invocation.
+     *
+     * @return {@link DeadlineTimerService} polled on each invocation or null if the agent does not use timers.
+     */
+    public DeadlineTimerService timerService()
+    {
+        return timerService;
+    }
+
+    /**
+     * Hint for the maximum units of work the {@link Agent} should do in a single {@link Agent#doWork()} so the caller
+     * can bound the time spent in an invocation. Agents which hold a reference to their invoker can read it to limit
+     * batch sizes, e.g. the message count limit of a read.
+     *
+     * @return the maximum units of work to be done in a single {@link Agent#doWork()}.
+     */
+    public int workLimit()
+    {
+        return workLimit;
+    }
+
+    /**
+     * Set the hint for the maximum units of work the {@link Agent} should do in a single {@link Agent#doWork()}.
+     *
+     * @param workLimit the maximum units of work to be done in a single {@link Agent#doWork()}.
+     * @return this for a fluent API.
+     * @see #workLimit()
+     */
+    public AgentInvoker workLimit(final int workLimit)
+    {
+        if (workLimit < 1)
+        {
+            throw new IllegalArgumentException("workLimit must be positive: workLimit=" + workLimit);
+        }
+
+        this.workLimit = workLimit;
+        return this;
+    }
+
     /**
      * Mark the invoker as started and call the {@link Agent#onStart()} method.
      * <p>
@@ -127,6 +195,9 @@ public class AgentInvoker implements AutoCloseable
     /**
      * Invoke the {@link Agent#doWork()} method and return the work count.
      * <p>
+     * If a {@link DeadlineTimerService} has been provided then it is polled first and the number of expired timers is
+     * included in the work count.
+     * <p>
      * If an error occurs then the {@link AtomicCounter#increment()} will be called on the errorCounter if not null
      * and the {@link Throwable} will be passed to the {@link ErrorHandler#onError(Throwable)} method. If the error
      * is an {@link AgentTerminationException} then {@link #close()} will be called after the error handler.
@@ -140,27 +211,51 @@ public class AgentInvoker implements AutoCloseable
         int workCount = 0;
         if (isRunning)
         {
-            try
-            {
-                workCount = agent.doWork();
-            }
-            catch (final InterruptedException | ClosedByInterruptException ignore)
-            {
-                Thread.interrupted();
-                close();
-            }
-            catch (final AgentTerminationException ex)
-            {
-                handleError(ex);
-                close();
-            }
-            catch (final Throwable throwable)
+            workCount = doInvoke(null != timerService ? nanoClock.nanoTime() : 0);
+        }
+
+        return workCount;
+    }
+
+    /**
+     * Invoke the {@link Agent#doWork()} method repeatedly until it does no work or the time budget has been used and
+     * return the total work count.
+     * <p>
+     * At least one invocation is made and the {@link NanoClock} is read once per invocation so the budget can be
+     * exceeded by the duration of the last invocation. Use {@link #workLimit(int)} to hint agents to bound the
+     * duration of each invocation.
+     * <p>
+     * Errors are handled as for {@link #invoke()} and the loop stops if the invoker is closed.
+     *
+     * @param maxDurationNs time budget in nanoseconds after which no further invocation will begin.
+     * @return the total work count for the {@link Agent#doWork()} invocations.
+     */
+    public int invoke(final long maxDurationNs)
+    {
+        int totalWorkCount = 0;
+        if (isRunning)
+        {
+            long nowNs = nanoClock.nanoTime();
+            final long deadlineNs = nowNs + maxDurationNs;
+
+            while (true)
             {
-                handleError(throwable);
+                final int workCount = doInvoke(nowNs);
+                totalWorkCount += workCount;
+                if (workCount <= 0 || !isRunning)
+                {
+                    break;
+                }
+
+                nowNs = nanoClock.nanoTime();
+                if (nowNs - deadlineNs >= 0)
+                {
+                    break;
+                }
             }
         }
 
-        return workCount;
+        return totalWorkCount;
     }
 
     /**
@@ -185,6 +280,36 @@ public class AgentInvoker implements AutoCloseable
         }
     }
 
+    private int doInvoke(final long nowNs)
+    {
+        int workCount = 0;
+        try
+        {
+            if (null != timerService)
+            {
+                workCount = timerService.poll(nowNs);
+            }
+
+            workCount += agent.doWork();
+        }
+        catch (final InterruptedException | ClosedByInterruptException ignore)
+        {
+            Thread.interrupted();
+            close();
+        }
+        catch (final AgentTerminationException ex)
+        {
+            handleError(ex);
+            close();
+        }
+        catch (final Throwable throwable)
+        {
+            handleError(throwable);
+        }
+
+        return workCount;
+    }
+
     private void handleError(final Throwable throwable)
     {
         if (null != errorCounter)
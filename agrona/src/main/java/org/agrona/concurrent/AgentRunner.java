@@ -43,6 +43,9 @@ public class AgentRunner implements Runnable, AutoCloseable
     private final ErrorHandler errorHandler;
     private final IdleStrategy idleStrategy;
     private final Agent agent;
+    private final NanoClock nanoClock;
+    private final DutyCycleTracker dutyCycleTracker;
+    private final DeadlineTimerService timerService;
     private final AtomicReference<Thread> thread = new AtomicReference<>();
 
     /**
@@ -58,15 +61,74 @@ public class AgentRunner implements Runnable, AutoCloseable
         final ErrorHandler errorHandler,
         final AtomicCounter errorCounter,
         final Agent agent)
+    {
+        this(idleStrategy, errorHandler, errorCounter, agent, null, null);
+    }
+
+    /**
+     * Create an agent runner which tracks the duty cycle of the agent and initialise it.
+     * <p>
+     * The {@link NanoClock} is read once per duty cycle to update the {@link DutyCycleTracker}.
+     *
+     * @param idleStrategy     to use for Agent run loop
+     * @param errorHandler     to be called if an {@link Throwable} is encountered
+     * @param errorCounter     to be incremented each time an exception is encountered. This may be null.
+     * @param agent            to be run in this thread.
+     * @param nanoClock        to measure the duty cycle. This may be null if the duty cycle is not tracked.
+     * @param dutyCycleTracker to be updated each duty cycle. This may be null if the duty cycle is not tracked.
+     */
+    public AgentRunner(
+        final IdleStrategy idleStrategy,
+        final ErrorHandler errorHandler,
+        final AtomicCounter errorCounter,
+        final Agent agent,
+        final NanoClock nanoClock,
+        final DutyCycleTracker dutyCycleTracker)
+    {
+        this(idleStrategy, errorHandler, errorCounter, agent, nanoClock, dutyCycleTracker, null);
+    }
+
+    /**
+     * Create an agent runner which tracks the duty cycle of the agent and polls a {@link DeadlineTimerService} each
+     * duty cycle and initialise it.
+     * <p>
+     * The {@link NanoClock} is read once per duty cycle to update the {@link DutyCycleTracker} and poll the
+     * {@link DeadlineTimerService}. The number of expired timers is added to the work count of the agent which is
+     * passed to the {@link IdleStrategy}.
+     *
+     * @param idleStrategy     to use for Agent run loop
+     * @param errorHandler     to be called if an {@link Throwable} is encountered
+     * @param errorCounter     to be incremented each time an exception is encountered. This may be null.
+     * @param agent            to be run in this thread.
+     * @param nanoClock        to measure the duty cycle. This may be null if neither of the following are provided.
+     * @param dutyCycleTracker to be updated each duty cycle. This may be null if the duty cycle is not tracked.
+     * @param timerService     to be polled each duty cycle. This may be null if the agent does not use timers.
+     */
+    public AgentRunner(
+        final IdleStrategy idleStrategy,
+        final ErrorHandler errorHandler,
+        final AtomicCounter errorCounter,
+        final Agent agent,
+        final NanoClock nanoClock,
+        final DutyCycleTracker dutyCycleTracker,
+        final DeadlineTimerService timerService)
     {
         Objects.requireNonNull(idleStrategy, "idleStrategy");
         Objects.requireNonNull(errorHandler, "errorHandler");
         Objects.requireNonNull(agent, "agent");
 
+        if (null != dutyCycleTracker || null != timerService)
+        {
+            Objects.requireNonNull(nanoClock, "nanoClock");
+        }
+
         this.idleStrategy = idleStrategy;
         this.errorHandler = errorHandler;
         this.errorCounter = errorCounter;
         this.agent = agent;
+        this.nanoClock = nanoClock;
+        this.dutyCycleTracker = dutyCycleTracker;
+        this.timerService = timerService;
     }
 
     /**
@@ -96,6 +158,21 @@ public class AgentRunner implements Runnable, AutoCloseable
         return thread;
     }
 
+    /**
+     * Start the given agent runner on a virtual thread if supported by the JDK otherwise on a new platform thread.
+     * <p>
+     * Agents with a low duty cycle should use an {@link IdleStrategy}, such as {@link ParkingIdleStrategy}, which does
+     * not spin so they do not occupy a carrier thread when idle.
+     *
+     * @param runner the agent runner to start.
+     * @return the new thread that has been started.
+     * @see VirtualThreadFactory
+     */
+    public static Thread startOnVirtualThread(final AgentRunner runner)
+    {
+        return startOnThread(runner, new VirtualThreadFactory());
+    }
+
     /**
      * The {@link Agent} which is contained
      *
@@ -106,6 +183,26 @@ public class AgentRunner implements Runnable, AutoCloseable
         return agent;
     }
 
+    /**
+     * The {@link DutyCycleTracker} updated each duty cycle.
+     *
+     * @return {@link DutyCycleTracker} updated each duty cycle or null if the duty cycle is not tracked.
+     */
+    public DutyCycleTracker dutyCycleTracker()
+    {
+        return dutyCycleTracker;
+    }
+
+    /**
+     * The {@link DeadlineTimerService} polled each duty cycle.
+     *
+     * @return {@link DeadlineTimerService} polled each duty cycle or null if the agent does not use timers.
+     */
+    public DeadlineTimerService timerService()
+    {
+        return timerService;
+    }
+
     /**
      * Has the {@link Agent} been closed?
      *
@@ -154,12 +251,13 @@ public class AgentRunner implements Runnable, AutoCloseable
                 isRunning = false;
             }
 
-            while (isRunning)
+            if (null == dutyCycleTracker && null == timerService)
             {
-                if (doDutyCycle(idleStrategy, agent))
-                {
-                    break;
-                }
+                runDutyCycles(idleStrategy, agent);
+            }
+            else
+            {
+                runTimedDutyCycles(idleStrategy, agent, nanoClock, dutyCycleTracker, timerService);
             }
 
             try
@@ -213,11 +311,52 @@ public class AgentRunner implements Runnable, AutoCloseable
         }
     }
 
-    private boolean doDutyCycle(final IdleStrategy idleStrategy, final Agent agent)
+    private void runDutyCycles(final IdleStrategy idleStrategy, final Agent agent)
+    {
+        while (isRunning)
+        {
+            if (doDutyCycle(idleStrategy, agent, null, 0))
+            {
+                break;
+            }
+        }
+    }
+
+    private void runTimedDutyCycles(
+        final IdleStrategy idleStrategy,
+        final Agent agent,
+        final NanoClock nanoClock,
+        final DutyCycleTracker dutyCycleTracker,
+        final DeadlineTimerService timerService)
+    {
+        long nowNs = nanoClock.nanoTime();
+        if (null != dutyCycleTracker)
+        {
+            dutyCycleTracker.update(nowNs);
+        }
+
+        while (isRunning)
+        {
+            if (doDutyCycle(idleStrategy, agent, timerService, nowNs))
+            {
+                break;
+            }
+
+            nowNs = nanoClock.nanoTime();
+            if (null != dutyCycleTracker)
+            {
+                dutyCycleTracker.measureAndUpdate(nowNs);
+            }
+        }
+    }
+
+    private boolean doDutyCycle(
+        final IdleStrategy idleStrategy, final Agent agent, final DeadlineTimerService timerService, final long nowNs)
     {
         try
         {
-            idleStrategy.idle(agent.doWork());
+            final int workCount = null == timerService ? 0 : timerService.poll(nowNs);
+            idleStrategy.idle(workCount + agent.doWork());
         }
         catch (final InterruptedException | ClosedByInterruptException ignore)
         {
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+/**
+ * Recorded by a {@link StallWatchdogAgent} when a watched counter has stopped advancing. The stack trace is that of
+ * the stalled thread at the time the stall was detected rather than the thread which created the exception.
+ *
+ * @see StallWatchdogAgent
+ */
+public class AgentStallException extends RuntimeException
+{
+    public AgentStallException(final String message, final StackTraceElement[] stackTrace)
+    {
+        super(message, null, false, true);
+        setStackTrace(stackTrace);
+    }
+}
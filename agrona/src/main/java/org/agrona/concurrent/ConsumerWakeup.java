@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+/**
+ * Wake-up protocol for a data structure with a single consumer so the consumer can park when idle and the producers
+ * {@link java.util.concurrent.locks.LockSupport#unpark(Thread)} it only when it has advertised that it is parking.
+ * <p>
+ * The consumer calls {@link #enableConsumerWakeup(Thread)} once and then brackets each park with
+ * {@link #prepareConsumerPark()} and {@link #completeConsumerPark()}. Until wake-up is enabled producers pay no more
+ * than a read of the wake-up state after each successful offer.
+ * <p>
+ * <b>Note:</b> Producers can only unpark a consumer thread within the same process and via the same instance on
+ * which wake-up was enabled.
+ *
+ * @see ConsumerWakeupIdleStrategy
+ */
+public interface ConsumerWakeup
+{
+    /**
+     * Wake-up has not been enabled by the consumer so producers need take no action.
+     */
+    int WAKEUP_DISABLED = 0;
+
+    /**
+     * Wake-up has been enabled and the consumer is active.
+     */
+    int CONSUMER_ACTIVE = 1;
+
+    /**
+     * The consumer has advertised that it is about to park and should be unparked on the next offer.
+     */
+    int CONSUMER_PARKING = 2;
+
+    /**
+     * Enable wake-up signalling to the given consumer thread.
+     * <p>
+     * This method should be called by the consumer thread.
+     *
+     * @param consumerThread to be unparked by producers when it is parking.
+     */
+    void enableConsumerWakeup(Thread consumerThread);
+
+    /**
+     * Advertise to producers that the consumer is about to park. If work became available before the advertisement
+     * was visible then the advertisement is withdrawn and the consumer should not park.
+     * <p>
+     * This method should be called by the consumer thread.
+     *
+     * @return true if the consumer may park, or false if work is available.
+     */
+    boolean prepareConsumerPark();
+
+    /**
+     * Withdraw the advertisement that the consumer is parking after it has returned from parking.
+     * <p>
+     * This method should be called by the consumer thread.
+     */
+    void completeConsumerPark();
+}
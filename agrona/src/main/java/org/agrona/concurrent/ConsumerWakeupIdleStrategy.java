@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.hints.ThreadHints;
+
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idling strategy for a consumer of one or more {@link ConsumerWakeup} data structures.
+ * <p>
+ * Spin for maxSpins, then
+ * {@link Thread#yield()} for maxYields, then advertise via {@link ConsumerWakeup#prepareConsumerPark()} that the
+ * consumer is parking and {@link LockSupport#parkNanos(long)} for up to maxParkPeriodNs until a producer unparks it.
+ * <p>
+ * Wake-up is enabled on the data structures from the thread which first parks, so an instance should only be used
+ * by a single consumer thread.
+ */
+public final class ConsumerWakeupIdleStrategy implements IdleStrategy
+{
+    private static final int NOT_IDLE = 0;
+    private static final int SPINNING = 1;
+    private static final int YIELDING = 2;
+    private static final int PARKING = 3;
+
+    private final long maxSpins;
+    private final long maxYields;
+    private final long maxParkPeriodNs;
+    private final ConsumerWakeup[] wakeups;
+
+    private int state = NOT_IDLE;
+    private long spins;
+    private long yields;
+    private Thread consumerThread;
+
+    /**
+     * Create an idle strategy which parks the consumer of the given data structures when idle.
+     *
+     * @param maxSpins        to perform before moving to {@link Thread#yield()}
+     * @param maxYields       to perform before moving to {@link LockSupport#parkNanos(long)}
+     * @param maxParkPeriodNs upper bound on a park should a producer not signal.
+     * @param wakeups         data structures which are consumed by the thread using this strategy.
+     */
+    public ConsumerWakeupIdleStrategy(
+        final long maxSpins, final long maxYields, final long maxParkPeriodNs, final ConsumerWakeup... wakeups)
+    {
+        for (final ConsumerWakeup wakeup : wakeups)
+        {
+            Objects.requireNonNull(wakeup, "wakeup");
+        }
+
+        this.maxSpins = maxSpins;
+        this.maxYields = maxYields;
+        this.maxParkPeriodNs = maxParkPeriodNs;
+        this.wakeups = wakeups;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void idle(final int workCount)
+    {
+        if (workCount > 0)
+        {
+            reset();
+        }
+        else
+        {
+            idle();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void idle()
+    {
+        switch (state)
+        {
+            case NOT_IDLE:
+                state = SPINNING;
+                spins++;
+                break;
+
+            case SPINNING:
+                ThreadHints.onSpinWait();
+                if (++spins > maxSpins)
+                {
+                    state = YIELDING;
+                    yields = 0;
+                }
+                break;
+
+            case YIELDING:
+                if (++yields > maxYields)
+                {
+                    state = PARKING;
+                }
+                else
+                {
+                    Thread.yield();
+                }
+                break;
+
+            case PARKING:
+                park();
+                break;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        spins = 0;
+        yields = 0;
+        state = NOT_IDLE;
+    }
+
+    private void park()
+    {
+        final ConsumerWakeup[] wakeups = this.wakeups;
+        final Thread currentThread = Thread.currentThread();
+        if (consumerThread != currentThread)
+        {
+            consumerThread = currentThread;
+            for (final ConsumerWakeup wakeup : wakeups)
+            {
+                wakeup.enableConsumerWakeup(currentThread);
+            }
+        }
+
+        int prepared = 0;
+        for (final ConsumerWakeup wakeup : wakeups)
+        {
+            if (!wakeup.prepareConsumerPark())
+            {
+                break;
+            }
+
+            prepared++;
+        }
+
+        if (prepared == wakeups.length)
+        {
+            LockSupport.parkNanos(maxParkPeriodNs);
+        }
+
+        for (int i = 0; i < prepared; i++)
+        {
+            wakeups[i].completeConsumerPark();
+        }
+    }
+}
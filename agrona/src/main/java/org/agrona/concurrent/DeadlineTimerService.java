@@ -0,0 +1,346 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Service for scheduling deadline timers which is polled once per duty cycle by an {@link AgentRunner} or
+ * {@link AgentInvoker} so agents need not embed and poll their own timer wheel.
+ * <p>
+ * Timers are held in a binary min-heap ordered by deadline so they expire in deadline order. Timer ids encode the slot
+ * of the timer and a generation so a stale id for an expired or cancelled timer will not match a new timer. Storage
+ * grows when needed but does not shrink so steady state scheduling is allocation free.
+ * <p>
+ * The time read by the runner each duty cycle is published to a {@link CachedNanoClock} which agents can share to
+ * avoid reading the system clock themselves.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe and should only be used from the thread running the agent.
+ */
+public class DeadlineTimerService
+{
+    /**
+     * Timer id returned when no timer exists.
+     */
+    public static final long NULL_TIMER_ID = -1;
+
+    /**
+     * Deadline returned for a timer which does not exist.
+     */
+    public static final long NULL_DEADLINE = Long.MAX_VALUE;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int FREE = -1;
+
+    /**
+     * Handler for the expiry of a timer.
+     */
+    @FunctionalInterface
+    public interface ExpiryHandler
+    {
+        /**
+         * Called when a timer expires.
+         *
+         * @param timerId    of the timer which has expired.
+         * @param deadlineNs for which the timer was scheduled.
+         */
+        void onTimerExpiry(long timerId, long deadlineNs);
+    }
+
+    private int size;
+    private int freeSlotCount;
+    private int[] heap;
+    private int[] heapIndexBySlot;
+    private int[] generationBySlot;
+    private int[] freeSlots;
+    private long[] deadlineBySlot;
+    private ExpiryHandler[] handlerBySlot;
+    private final CachedNanoClock cachedNanoClock;
+
+    /**
+     * Construct a timer service which publishes the time of each poll to a new {@link CachedNanoClock}.
+     */
+    public DeadlineTimerService()
+    {
+        this(new CachedNanoClock());
+    }
+
+    /**
+     * Construct a timer service which publishes the time of each poll to the provided {@link CachedNanoClock}.
+     *
+     * @param cachedNanoClock to be updated with the time of each poll.
+     */
+    public DeadlineTimerService(final CachedNanoClock cachedNanoClock)
+    {
+        Objects.requireNonNull(cachedNanoClock, "cachedNanoClock");
+
+        this.cachedNanoClock = cachedNanoClock;
+        heap = new int[INITIAL_CAPACITY];
+        heapIndexBySlot = new int[INITIAL_CAPACITY];
+        generationBySlot = new int[INITIAL_CAPACITY];
+        freeSlots = new int[INITIAL_CAPACITY];
+        deadlineBySlot = new long[INITIAL_CAPACITY];
+        handlerBySlot = new ExpiryHandler[INITIAL_CAPACITY];
+
+        for (int i = 0; i < INITIAL_CAPACITY; i++)
+        {
+            heapIndexBySlot[i] = FREE;
+            freeSlots[freeSlotCount++] = INITIAL_CAPACITY - 1 - i;
+        }
+    }
+
+    /**
+     * The {@link CachedNanoClock} updated with the time of each poll.
+     *
+     * @return the {@link CachedNanoClock} updated with the time of each poll.
+     */
+    public CachedNanoClock cachedNanoClock()
+    {
+        return cachedNanoClock;
+    }
+
+    /**
+     * Schedule a timer to expire at a deadline.
+     *
+     * @param deadlineNs at which the timer should expire.
+     * @param handler    to be called when the timer expires.
+     * @return the id of the timer which can be used to cancel it.
+     */
+    public long scheduleTimer(final long deadlineNs, final ExpiryHandler handler)
+    {
+        Objects.requireNonNull(handler, "handler");
+
+        if (0 == freeSlotCount)
+        {
+            grow();
+        }
+
+        final int slot = freeSlots[--freeSlotCount];
+        deadlineBySlot[slot] = deadlineNs;
+        handlerBySlot[slot] = handler;
+        heap[size] = slot;
+        heapIndexBySlot[slot] = size;
+        siftUp(size++);
+
+        return timerId(slot);
+    }
+
+    /**
+     * Cancel a timer which has not yet expired.
+     *
+     * @param timerId of the timer to cancel.
+     * @return true if the timer was cancelled otherwise false if it does not exist.
+     */
+    public boolean cancelTimer(final long timerId)
+    {
+        final int slot = slot(timerId);
+        if (FREE == slot)
+        {
+            return false;
+        }
+
+        removeAt(heapIndexBySlot[slot]);
+
+        return true;
+    }
+
+    /**
+     * The deadline of a timer.
+     *
+     * @param timerId of the timer.
+     * @return the deadline of the timer or {@link #NULL_DEADLINE} if it does not exist.
+     */
+    public long deadline(final long timerId)
+    {
+        final int slot = slot(timerId);
+
+        return FREE == slot ? NULL_DEADLINE : deadlineBySlot[slot];
+    }
+
+    /**
+     * The earliest deadline of the scheduled timers.
+     *
+     * @return the earliest deadline of the scheduled timers or {@link #NULL_DEADLINE} if none are scheduled.
+     */
+    public long nextDeadline()
+    {
+        return 0 == size ? NULL_DEADLINE : deadlineBySlot[heap[0]];
+    }
+
+    /**
+     * The number of scheduled timers.
+     *
+     * @return the number of scheduled timers.
+     */
+    public int timerCount()
+    {
+        return size;
+    }
+
+    /**
+     * Update the {@link #cachedNanoClock()} and expire the timers with a deadline at or before the given time in
+     * deadline order.
+     * <p>
+     * At most the number of timers scheduled when the poll begins will expire so a handler which schedules a timer
+     * that is already due will not cause the poll to spin.
+     *
+     * @param nowNs the current time.
+     * @return the number of timers which expired.
+     */
+    public int poll(final long nowNs)
+    {
+        cachedNanoClock.update(nowNs);
+
+        final int limit = size;
+        int expiredCount = 0;
+
+        while (expiredCount < limit && size > 0)
+        {
+            final int slot = heap[0];
+            final long deadlineNs = deadlineBySlot[slot];
+            if (deadlineNs > nowNs)
+            {
+                break;
+            }
+
+            final ExpiryHandler handler = handlerBySlot[slot];
+            final long timerId = timerId(slot);
+            removeAt(0);
+            expiredCount++;
+
+            handler.onTimerExpiry(timerId, deadlineNs);
+        }
+
+        return expiredCount;
+    }
+
+    private long timerId(final int slot)
+    {
+        return ((long)generationBySlot[slot] << 32) | slot;
+    }
+
+    private int slot(final long timerId)
+    {
+        if (timerId < 0)
+        {
+            return FREE;
+        }
+
+        final int slot = (int)timerId;
+        if (slot >= heapIndexBySlot.length ||
+            FREE == heapIndexBySlot[slot] ||
+            generationBySlot[slot] != (int)(timerId >>> 32))
+        {
+            return FREE;
+        }
+
+        return slot;
+    }
+
+    private void removeAt(final int index)
+    {
+        final int slot = heap[index];
+        heapIndexBySlot[slot] = FREE;
+        handlerBySlot[slot] = null;
+        generationBySlot[slot] = (generationBySlot[slot] + 1) & Integer.MAX_VALUE;
+        freeSlots[freeSlotCount++] = slot;
+
+        final int lastIndex = --size;
+        if (index != lastIndex)
+        {
+            final int lastSlot = heap[lastIndex];
+            heap[index] = lastSlot;
+            heapIndexBySlot[lastSlot] = index;
+            siftDown(index);
+            siftUp(heapIndexBySlot[lastSlot]);
+        }
+    }
+
+    private void siftUp(final int index)
+    {
+        final int slot = heap[index];
+        final long deadlineNs = deadlineBySlot[slot];
+
+        int i = index;
+        while (i > 0)
+        {
+            final int parentIndex = (i - 1) >>> 1;
+            final int parentSlot = heap[parentIndex];
+            if (deadlineBySlot[parentSlot] <= deadlineNs)
+            {
+                break;
+            }
+
+            heap[i] = parentSlot;
+            heapIndexBySlot[parentSlot] = i;
+            i = parentIndex;
+        }
+
+        heap[i] = slot;
+        heapIndexBySlot[slot] = i;
+    }
+
+    private void siftDown(final int index)
+    {
+        final int slot = heap[index];
+        final long deadlineNs = deadlineBySlot[slot];
+        final int half = size >>> 1;
+
+        int i = index;
+        while (i < half)
+        {
+            int childIndex = (i << 1) + 1;
+            final int rightIndex = childIndex + 1;
+            if (rightIndex < size && deadlineBySlot[heap[rightIndex]] < deadlineBySlot[heap[childIndex]])
+            {
+                childIndex = rightIndex;
+            }
+
+            final int childSlot = heap[childIndex];
+            if (deadlineNs <= deadlineBySlot[childSlot])
+            {
+                break;
+            }
+
+            heap[i] = childSlot;
+            heapIndexBySlot[childSlot] = i;
+            i = childIndex;
+        }
+
+        heap[i] = slot;
+        heapIndexBySlot[slot] = i;
+    }
+
+    private void grow()
+    {
+        final int oldCapacity = heap.length;
+        final int newCapacity = oldCapacity << 1;
+
+        heap = Arrays.copyOf(heap, newCapacity);
+        heapIndexBySlot = Arrays.copyOf(heapIndexBySlot, newCapacity);
+        generationBySlot = Arrays.copyOf(generationBySlot, newCapacity);
+        freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+        deadlineBySlot = Arrays.copyOf(deadlineBySlot, newCapacity);
+        handlerBySlot = Arrays.copyOf(handlerBySlot, newCapacity);
+
+        for (int i = newCapacity - 1; i >= oldCapacity; i--)
+        {
+            heapIndexBySlot[i] = FREE;
+            freeSlots[freeSlotCount++] = i;
+        }
+    }
+}
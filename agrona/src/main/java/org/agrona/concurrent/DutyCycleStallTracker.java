@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.CloseHelper;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+/**
+ * {@link DutyCycleTracker} which publishes the max cycle time, the count of cycles which exceed a threshold, and a
+ * histogram of cycle times to {@link AtomicCounter}s so stalled agents can be alerted upon from another process.
+ * <p>
+ * The histogram buckets are powers of 2 in nanoseconds. The first bucket counts cycles shorter than
+ * 2^{@link #HISTOGRAM_LOWEST_EXPONENT} nanoseconds, each following bucket counts cycles up to double the previous
+ * bound, and the last bucket counts all longer cycles.
+ */
+public class DutyCycleStallTracker extends DutyCycleTracker implements AutoCloseable
+{
+    /**
+     * Exponent of the power of 2 in nanoseconds which bounds the first histogram bucket.
+     */
+    public static final int HISTOGRAM_LOWEST_EXPONENT = 10;
+
+    private final long cycleTimeThresholdNs;
+    private final AtomicCounter maxCycleTime;
+    private final AtomicCounter cycleTimeThresholdExceededCount;
+    private final AtomicCounter[] histogramBuckets;
+
+    /**
+     * Create a tracker which allocates its counters from a {@link CountersManager}.
+     *
+     * @param countersManager      from which the counters are allocated.
+     * @param name                 of the agent which prefixes the counter labels.
+     * @param cycleTimeThresholdNs above which a cycle is counted as exceeding the threshold.
+     * @param histogramBucketCount number of histogram buckets which may be zero for no histogram.
+     */
+    public DutyCycleStallTracker(
+        final CountersManager countersManager,
+        final String name,
+        final long cycleTimeThresholdNs,
+        final int histogramBucketCount)
+    {
+        this(
+            countersManager.newCounter(name + " max cycle time ns"),
+            countersManager.newCounter(name + " cycle time threshold exceeded count"),
+            cycleTimeThresholdNs,
+            newHistogramBuckets(countersManager, name, histogramBucketCount));
+    }
+
+    /**
+     * Create a tracker which publishes to the provided counters.
+     *
+     * @param maxCycleTime                    counter for the max cycle time.
+     * @param cycleTimeThresholdExceededCount counter for the number of cycles which exceed the threshold.
+     * @param cycleTimeThresholdNs            above which a cycle is counted as exceeding the threshold.
+     * @param histogramBuckets                counters for the histogram buckets which may be empty.
+     */
+    public DutyCycleStallTracker(
+        final AtomicCounter maxCycleTime,
+        final AtomicCounter cycleTimeThresholdExceededCount,
+        final long cycleTimeThresholdNs,
+        final AtomicCounter... histogramBuckets)
+    {
+        this.maxCycleTime = maxCycleTime;
+        this.cycleTimeThresholdExceededCount = cycleTimeThresholdExceededCount;
+        this.cycleTimeThresholdNs = cycleTimeThresholdNs;
+        this.histogramBuckets = histogramBuckets;
+    }
+
+    /**
+     * Index of the histogram bucket in which a cycle time is counted given a number of buckets.
+     *
+     * @param durationNs  of the cycle.
+     * @param bucketCount number of buckets in the histogram.
+     * @return the index of the histogram bucket in which the cycle time is counted.
+     */
+    public static int histogramBucketIndex(final long durationNs, final int bucketCount)
+    {
+        final int exponent = 64 - Long.numberOfLeadingZeros(durationNs >>> HISTOGRAM_LOWEST_EXPONENT);
+
+        return Math.min(exponent, bucketCount - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reportMeasurement(final long durationNs)
+    {
+        maxCycleTime.proposeMaxOrdered(durationNs);
+
+        if (durationNs > cycleTimeThresholdNs)
+        {
+            cycleTimeThresholdExceededCount.orderedIncrement();
+        }
+
+        final AtomicCounter[] histogramBuckets = this.histogramBuckets;
+        if (histogramBuckets.length > 0)
+        {
+            histogramBuckets[histogramBucketIndex(durationNs, histogramBuckets.length)].orderedIncrement();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long maxCycleTimeNs()
+    {
+        return maxCycleTime.get();
+    }
+
+    /**
+     * The threshold in nanoseconds above which a cycle is counted as exceeding the threshold.
+     *
+     * @return the threshold in nanoseconds above which a cycle is counted as exceeding the threshold.
+     */
+    public long cycleTimeThresholdNs()
+    {
+        return cycleTimeThresholdNs;
+    }
+
+    /**
+     * Counter for the max cycle time.
+     *
+     * @return counter for the max cycle time.
+     */
+    public AtomicCounter maxCycleTime()
+    {
+        return maxCycleTime;
+    }
+
+    /**
+     * Counter for the number of cycles which exceed the threshold.
+     *
+     * @return counter for the number of cycles which exceed the threshold.
+     */
+    public AtomicCounter cycleTimeThresholdExceededCount()
+    {
+        return cycleTimeThresholdExceededCount;
+    }
+
+    /**
+     * Counters for the histogram buckets.
+     *
+     * @return counters for the histogram buckets.
+     * @see #histogramBucketIndex(long, int)
+     */
+    public AtomicCounter[] histogramBuckets()
+    {
+        return histogramBuckets;
+    }
+
+    /**
+     * Free the counters for reuse.
+     */
+    public void close()
+    {
+        CloseHelper.quietClose(maxCycleTime);
+        CloseHelper.quietClose(cycleTimeThresholdExceededCount);
+        for (final AtomicCounter bucket : histogramBuckets)
+        {
+            CloseHelper.quietClose(bucket);
+        }
+    }
+
+    private static AtomicCounter[] newHistogramBuckets(
+        final CountersManager countersManager, final String name, final int bucketCount)
+    {
+        final AtomicCounter[] buckets = new AtomicCounter[bucketCount];
+        for (int i = 0; i < bucketCount; i++)
+        {
+            final String bound = i < bucketCount - 1 ?
+                "< " + (1L << (HISTOGRAM_LOWEST_EXPONENT + i)) : ">= " + ((1L << (HISTOGRAM_LOWEST_EXPONENT + i)) >> 1);
+            buckets[i] = countersManager.newCounter(name + " cycle time ns " + bound);
+        }
+
+        return buckets;
+    }
+}
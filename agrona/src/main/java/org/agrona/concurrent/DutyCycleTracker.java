@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+/**
+ * Tracker to record the time taken by the duty cycles of an {@link Agent} from a single clock reading per cycle.
+ * <p>
+ * As only one reading is taken per cycle the time measured is from the start of one cycle to the start of the next
+ * and so includes the time spent in the {@link IdleStrategy}.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe and should be updated from the agent thread only.
+ *
+ * @see AgentRunner
+ */
+public class DutyCycleTracker
+{
+    private long timeOfLastUpdateNs;
+    private long maxCycleTimeNs;
+
+    /**
+     * Update the time of the last cycle without reporting a measurement, such as when the agent starts.
+     *
+     * @param nowNs value to update the time of the last cycle to.
+     */
+    public void update(final long nowNs)
+    {
+        timeOfLastUpdateNs = nowNs;
+    }
+
+    /**
+     * Report the time since the last update as a cycle measurement and then update the time of the last cycle.
+     *
+     * @param nowNs value to measure the cycle against and update the time of the last cycle to.
+     */
+    public void measureAndUpdate(final long nowNs)
+    {
+        reportMeasurement(nowNs - timeOfLastUpdateNs);
+        timeOfLastUpdateNs = nowNs;
+    }
+
+    /**
+     * Report a cycle time measurement. Subclasses can override to publish measurements.
+     *
+     * @param durationNs of the cycle.
+     */
+    public void reportMeasurement(final long durationNs)
+    {
+        if (durationNs > maxCycleTimeNs)
+        {
+            maxCycleTimeNs = durationNs;
+        }
+    }
+
+    /**
+     * The maximum cycle time in nanoseconds that has been reported.
+     *
+     * @return the maximum cycle time in nanoseconds that has been reported.
+     */
+    public long maxCycleTimeNs()
+    {
+        return maxCycleTimeNs;
+    }
+}
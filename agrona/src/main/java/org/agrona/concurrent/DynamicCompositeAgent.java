@@ -26,6 +26,14 @@ import java.util.concurrent.atomic.AtomicReference;
  * <p>
  * {@link Agent}s can be dynamically added and removed.
  * <p>
+ * Each sub-agent can be given a weight, which is the maximum number of times its {@link Agent#doWork()} is called per
+ * duty cycle while it continues to do work, and a {@link Priority} lane. Sub-agents in the {@link Priority#LOW} lane
+ * are only called in duty cycles where the other lanes did no work, or after maxLowPriorityDeferCycles, so
+ * housekeeping does not eat into the cycle budget of hot agents. If maxSkipCycles is greater than zero then a sub-agent
+ * which does no work is skipped for an exponentially increasing number of duty cycles up to maxSkipCycles until it
+ * does work again. By default all sub-agents have a weight of 1 in the {@link Priority#NORMAL} lane and are not skipped
+ * so are called in strict round-robin.
+ * <p>
  * <b>Note:</b> This class is threadsafe for add and remove.
  */
 public class DynamicCompositeAgent implements Agent
@@ -48,12 +56,38 @@ public class DynamicCompositeAgent implements Agent
         CLOSED
     }
 
-    private static final Agent[] EMPTY_AGENTS = new Agent[0];
+    /**
+     * Lane in which a sub-agent is scheduled.
+     */
+    public enum Priority
+    {
+        /**
+         * Called first in every duty cycle.
+         */
+        HIGH,
+
+        /**
+         * Called after the {@link #HIGH} lane in every duty cycle.
+         */
+        NORMAL,
+
+        /**
+         * Called only when the other lanes did no work or the lane has been deferred for too long.
+         */
+        LOW
+    }
+
+    private static final SubAgent[] EMPTY_AGENTS = new SubAgent[0];
 
     private volatile Status status = Status.INIT;
-    private Agent[] agents;
+    private int lowPriorityDeferredCycles;
+    private final int maxSkipCycles;
+    private final int maxLowPriorityDeferCycles;
+    private SubAgent[] highAgents = EMPTY_AGENTS;
+    private SubAgent[] normalAgents = EMPTY_AGENTS;
+    private SubAgent[] lowAgents = EMPTY_AGENTS;
     private final String roleName;
-    private final AtomicReference<Agent> addAgent = new AtomicReference<>();
+    private final AtomicReference<SubAgent> addAgent = new AtomicReference<>();
     private final AtomicReference<Agent> removeAgent = new AtomicReference<>();
 
     /**
@@ -63,8 +97,33 @@ public class DynamicCompositeAgent implements Agent
      */
     public DynamicCompositeAgent(final String roleName)
     {
+        this(roleName, 0, 0);
+    }
+
+    /**
+     * Construct a new composite that has no {@link Agent}s to begin with and schedules the sub-agents adaptively.
+     *
+     * @param roleName                  to be given for {@link Agent#roleName()}.
+     * @param maxSkipCycles             for which a sub-agent which does no work is skipped, or 0 to never skip.
+     * @param maxLowPriorityDeferCycles for which the {@link Priority#LOW} lane can be deferred while others do work.
+     */
+    public DynamicCompositeAgent(final String roleName, final int maxSkipCycles, final int maxLowPriorityDeferCycles)
+    {
+        if (maxSkipCycles < 0)
+        {
+            throw new IllegalArgumentException("maxSkipCycles must not be negative: maxSkipCycles=" + maxSkipCycles);
+        }
+
+        if (maxLowPriorityDeferCycles < 0)
+        {
+            throw new IllegalArgumentException(
+                "maxLowPriorityDeferCycles must not be negative: maxLowPriorityDeferCycles=" +
+                maxLowPriorityDeferCycles);
+        }
+
         this.roleName = roleName;
-        agents = EMPTY_AGENTS;
+        this.maxSkipCycles = maxSkipCycles;
+        this.maxLowPriorityDeferCycles = maxLowPriorityDeferCycles;
     }
 
     /**
@@ -74,14 +133,14 @@ public class DynamicCompositeAgent implements Agent
      */
     public DynamicCompositeAgent(final String roleName, final List<? extends Agent> agents)
     {
-        this.roleName = roleName;
-        this.agents = new Agent[agents.size()];
+        this(roleName);
+        normalAgents = new SubAgent[agents.size()];
 
         int i = 0;
         for (final Agent agent : agents)
         {
             Objects.requireNonNull(agent, "Agent cannot be null");
-            this.agents[i++] = agent;
+            normalAgents[i++] = new SubAgent(agent, 1, Priority.NORMAL);
         }
     }
 
@@ -102,14 +161,14 @@ public class DynamicCompositeAgent implements Agent
      */
     public DynamicCompositeAgent(final String roleName, final Agent... agents)
     {
-        this.roleName = roleName;
-        this.agents = new Agent[agents.length];
+        this(roleName);
+        normalAgents = new SubAgent[agents.length];
 
         int i = 0;
         for (final Agent agent : agents)
         {
             Objects.requireNonNull(agent, "Agent cannot be null");
-            this.agents[i++] = agent;
+            normalAgents[i++] = new SubAgent(agent, 1, Priority.NORMAL);
         }
     }
 
@@ -120,9 +179,12 @@ public class DynamicCompositeAgent implements Agent
      */
     public void onStart()
     {
-        for (final Agent agent : agents)
+        for (final SubAgent[] lane : lanes())
         {
-            agent.onStart();
+            for (final SubAgent subAgent : lane)
+            {
+                subAgent.agent.onStart();
+            }
         }
 
         status = Status.ACTIVE;
@@ -130,9 +192,7 @@ public class DynamicCompositeAgent implements Agent
 
     public int doWork() throws Exception
     {
-        int workCount = 0;
-
-        final Agent agentToAdd = addAgent.get();
+        final SubAgent agentToAdd = addAgent.get();
         if (null != agentToAdd)
         {
             add(agentToAdd);
@@ -144,9 +204,15 @@ public class DynamicCompositeAgent implements Agent
             remove(agentToRemove);
         }
 
-        for (final Agent agent : agents)
+        int workCount = doWork(highAgents) + doWork(normalAgents);
+
+        if (lowAgents.length > 0)
         {
-            workCount += agent.doWork();
+            if (0 == workCount || ++lowPriorityDeferredCycles > maxLowPriorityDeferCycles)
+            {
+                lowPriorityDeferredCycles = 0;
+                workCount += doWork(lowAgents);
+            }
         }
 
         return workCount;
@@ -161,12 +227,17 @@ public class DynamicCompositeAgent implements Agent
     {
         status = Status.CLOSED;
 
-        for (final Agent agent : agents)
+        for (final SubAgent[] lane : lanes())
         {
-            agent.onClose();
+            for (final SubAgent subAgent : lane)
+            {
+                subAgent.agent.onClose();
+            }
         }
 
-        agents = EMPTY_AGENTS;
+        highAgents = EMPTY_AGENTS;
+        normalAgents = EMPTY_AGENTS;
+        lowAgents = EMPTY_AGENTS;
     }
 
     public String roleName()
@@ -188,15 +259,41 @@ public class DynamicCompositeAgent implements Agent
      * @see #hasAddAgentCompleted()
      */
     public boolean tryAdd(final Agent agent)
+    {
+        return tryAdd(agent, 1, Priority.NORMAL);
+    }
+
+    /**
+     * Try and add a new {@link Agent} to the composite with a weight and {@link Priority} lane. This method does not
+     * block and will return false if another concurrent attempt to add is in progress.
+     * <p>
+     * The agent will be added during the next invocation of {@link #doWork()} if this operation is successful.
+     * If the {@link Agent#onStart()} method throws an exception then it will not be added and {@link Agent#onClose()}
+     * will be called.
+     *
+     * @param agent    to be added to the composite.
+     * @param weight   as the maximum number of times {@link Agent#doWork()} is called per duty cycle.
+     * @param priority lane in which the agent is scheduled.
+     * @return true is a successful add request is pending otherwise false if another concurrent add request is in
+     * progress.
+     * @see #hasAddAgentCompleted()
+     */
+    public boolean tryAdd(final Agent agent, final int weight, final Priority priority)
     {
         Objects.requireNonNull(agent, "Agent cannot be null");
+        Objects.requireNonNull(priority, "priority");
+
+        if (weight < 1)
+        {
+            throw new IllegalArgumentException("weight must be positive: weight=" + weight);
+        }
 
         if (Status.ACTIVE != status)
         {
             throw new IllegalStateException("Add called when not active");
         }
 
-        return addAgent.compareAndSet(null, agent);
+        return addAgent.compareAndSet(null, new SubAgent(agent, weight, priority));
     }
 
     /**
@@ -255,10 +352,52 @@ public class DynamicCompositeAgent implements Agent
         return null == removeAgent.get();
     }
 
-    private void add(final Agent agent)
+    private int doWork(final SubAgent[] subAgents) throws Exception
+    {
+        int workCount = 0;
+
+        for (final SubAgent subAgent : subAgents)
+        {
+            if (subAgent.skipCyclesRemaining > 0)
+            {
+                subAgent.skipCyclesRemaining--;
+                continue;
+            }
+
+            final Agent agent = subAgent.agent;
+            int lastWorkCount = agent.doWork();
+            int subAgentWorkCount = lastWorkCount;
+            for (int i = 1, weight = subAgent.weight; i < weight && lastWorkCount > 0; i++)
+            {
+                lastWorkCount = agent.doWork();
+                subAgentWorkCount += lastWorkCount;
+            }
+
+            if (subAgentWorkCount > 0)
+            {
+                subAgent.skipCycles = 0;
+                workCount += subAgentWorkCount;
+            }
+            else if (maxSkipCycles > 0)
+            {
+                subAgent.skipCycles = Math.min(Math.max(subAgent.skipCycles << 1, 1), maxSkipCycles);
+                subAgent.skipCyclesRemaining = subAgent.skipCycles;
+            }
+        }
+
+        return workCount;
+    }
+
+    private SubAgent[][] lanes()
+    {
+        return new SubAgent[][]{ highAgents, normalAgents, lowAgents };
+    }
+
+    private void add(final SubAgent subAgent)
     {
         addAgent.lazySet(null);
 
+        final Agent agent = subAgent.agent;
         try
         {
             agent.onStart();
@@ -269,25 +408,72 @@ public class DynamicCompositeAgent implements Agent
             throw ex;
         }
 
-        agents = ArrayUtil.add(agents, agent);
+        switch (subAgent.priority)
+        {
+            case HIGH:
+                highAgents = ArrayUtil.add(highAgents, subAgent);
+                break;
+
+            case NORMAL:
+                normalAgents = ArrayUtil.add(normalAgents, subAgent);
+                break;
+
+            case LOW:
+                lowAgents = ArrayUtil.add(lowAgents, subAgent);
+                break;
+        }
     }
 
     private void remove(final Agent agent)
     {
         removeAgent.lazySet(null);
 
-        final Agent[] newAgents = ArrayUtil.remove(agents, agent);
+        int index;
+        if (ArrayUtil.UNKNOWN_INDEX != (index = indexOf(highAgents, agent)))
+        {
+            highAgents = ArrayUtil.remove(highAgents, index);
+        }
+        else if (ArrayUtil.UNKNOWN_INDEX != (index = indexOf(normalAgents, agent)))
+        {
+            normalAgents = ArrayUtil.remove(normalAgents, index);
+        }
+        else if (ArrayUtil.UNKNOWN_INDEX != (index = indexOf(lowAgents, agent)))
+        {
+            lowAgents = ArrayUtil.remove(lowAgents, index);
+        }
 
-        try
+        if (ArrayUtil.UNKNOWN_INDEX != index)
+        {
+            agent.onClose();
+        }
+    }
+
+    private static int indexOf(final SubAgent[] subAgents, final Agent agent)
+    {
+        for (int i = 0; i < subAgents.length; i++)
         {
-            if (newAgents != agents)
+            if (subAgents[i].agent == agent)
             {
-                agent.onClose();
+                return i;
             }
         }
-        finally
+
+        return ArrayUtil.UNKNOWN_INDEX;
+    }
+
+    static final class SubAgent
+    {
+        int skipCycles;
+        int skipCyclesRemaining;
+        final int weight;
+        final Priority priority;
+        final Agent agent;
+
+        SubAgent(final Agent agent, final int weight, final Priority priority)
         {
-            agents = newAgents;
+            this.agent = agent;
+            this.weight = weight;
+            this.priority = priority;
         }
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.concurrent.status.AtomicCounter;
+
+/**
+ * {@link DutyCycleTracker} which increments a heartbeat counter on every duty cycle of an {@link AgentRunner} so
+ * the progress of the agent thread can be watched from another thread or process, such as by a
+ * {@link StallWatchdogAgent}.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe and should be updated from the agent thread only.
+ */
+public class HeartbeatDutyCycleTracker extends DutyCycleTracker
+{
+    private final AtomicCounter heartbeat;
+
+    /**
+     * Construct a tracker which increments the heartbeat counter on each duty cycle.
+     *
+     * @param heartbeat counter to be incremented on each duty cycle.
+     */
+    public HeartbeatDutyCycleTracker(final AtomicCounter heartbeat)
+    {
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reportMeasurement(final long durationNs)
+    {
+        super.reportMeasurement(durationNs);
+        heartbeat.orderedIncrement();
+    }
+
+    /**
+     * The counter which is incremented on each duty cycle.
+     *
+     * @return the counter which is incremented on each duty cycle.
+     */
+    public AtomicCounter heartbeat()
+    {
+        return heartbeat;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Wrapper for a {@link QueuedPipe} which records its occupancy and the time sampled elements spend in it with an
+ * {@link OccupancyRecorder}.
+ * <p>
+ * Positions are measured by {@link Pipe#addedCount()} and {@link Pipe#removedCount()} of the delegate.
+ *
+ * @param <E> type of the elements stored in the {@link java.util.Queue}.
+ */
+public class InstrumentedQueuedPipe<E> implements QueuedPipe<E>
+{
+    private final QueuedPipe<E> delegate;
+    private final OccupancyRecorder recorder;
+
+    /**
+     * Wrap a {@link QueuedPipe} to record its occupancy.
+     *
+     * @param delegate to which operations are delegated.
+     * @param recorder to which occupancy and sojourn times are recorded.
+     */
+    public InstrumentedQueuedPipe(final QueuedPipe<E> delegate, final OccupancyRecorder recorder)
+    {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    /**
+     * The {@link QueuedPipe} to which operations are delegated.
+     *
+     * @return the {@link QueuedPipe} to which operations are delegated.
+     */
+    public QueuedPipe<E> delegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * The {@link OccupancyRecorder} to which occupancy and sojourn times are recorded.
+     *
+     * @return the {@link OccupancyRecorder} to which occupancy and sojourn times are recorded.
+     */
+    public OccupancyRecorder recorder()
+    {
+        return recorder;
+    }
+
+    public boolean offer(final E e)
+    {
+        if (recorder.isSampleDue())
+        {
+            final long timestampNs = recorder.nanoTime();
+            final boolean offered = delegate.offer(e);
+            if (offered)
+            {
+                onSample(timestampNs);
+            }
+
+            return offered;
+        }
+
+        return delegate.offer(e);
+    }
+
+    public boolean add(final E e)
+    {
+        if (offer(e))
+        {
+            return true;
+        }
+
+        throw new IllegalStateException("Queue is full");
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public E poll()
+    {
+        final E e = delegate.poll();
+        if (null != e)
+        {
+            recorder.onConsumed(delegate.removedCount());
+        }
+
+        return e;
+    }
+
+    public E remove()
+    {
+        final E e = delegate.remove();
+        recorder.onConsumed(delegate.removedCount());
+
+        return e;
+    }
+
+    public int drain(final Consumer<E> elementHandler)
+    {
+        return onConsumed(delegate.drain(elementHandler));
+    }
+
+    public int drain(final Consumer<E> elementHandler, final int limit)
+    {
+        return onConsumed(delegate.drain(elementHandler, limit));
+    }
+
+    public int drainTo(final Collection<? super E> target, final int limit)
+    {
+        return onConsumed(delegate.drainTo(target, limit));
+    }
+
+    public E element()
+    {
+        return delegate.element();
+    }
+
+    public E peek()
+    {
+        return delegate.peek();
+    }
+
+    public int size()
+    {
+        return delegate.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return delegate.isEmpty();
+    }
+
+    public boolean contains(final Object o)
+    {
+        return delegate.contains(o);
+    }
+
+    public Iterator<E> iterator()
+    {
+        return delegate.iterator();
+    }
+
+    public Object[] toArray()
+    {
+        return delegate.toArray();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        return delegate.toArray(a);
+    }
+
+    public boolean remove(final Object o)
+    {
+        return delegate.remove(o);
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        return delegate.containsAll(c);
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        return delegate.removeAll(c);
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        return delegate.retainAll(c);
+    }
+
+    public void clear()
+    {
+        delegate.clear();
+    }
+
+    public long addedCount()
+    {
+        return delegate.addedCount();
+    }
+
+    public long removedCount()
+    {
+        return delegate.removedCount();
+    }
+
+    public int capacity()
+    {
+        return delegate.capacity();
+    }
+
+    public int remainingCapacity()
+    {
+        return delegate.remainingCapacity();
+    }
+
+    private void onSample(final long timestampNs)
+    {
+        final long addedCount = delegate.addedCount();
+        if (recorder.onSample(timestampNs, addedCount, addedCount - delegate.removedCount()) &&
+            delegate.removedCount() >= addedCount)
+        {
+            recorder.discardSample(addedCount);
+        }
+    }
+
+    private int onConsumed(final int count)
+    {
+        if (count > 0)
+        {
+            recorder.onConsumed(delegate.removedCount());
+        }
+
+        return count;
+    }
+}
@@ -17,6 +17,7 @@ package org.agrona.concurrent;
 
 import java.util.Collection;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.agrona.UnsafeAccess.UNSAFE;
 
@@ -111,6 +112,89 @@ public class ManyToManyConcurrentArrayQueue<E> extends AbstractConcurrentArrayQu
         while (true);
     }
 
+    public boolean offerBatch(final E[] items, final int offset, final int length)
+    {
+        checkBatch(items, offset, length);
+
+        final long mask = this.capacity - 1;
+        final long[] sequences = this.sequences;
+        long currentTail;
+
+        while (true)
+        {
+            currentTail = tail;
+            final int freeCount = freeSlotCount(sequences, mask, currentTail, length);
+            if (freeCount == length)
+            {
+                if (UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, currentTail, currentTail + length))
+                {
+                    break;
+                }
+            }
+            else if (freeCount >= 0)
+            {
+                return false;
+            }
+        }
+
+        final Object[] buffer = this.buffer;
+        for (int i = 0; i < length; i++)
+        {
+            final long sequence = currentTail + i;
+            UNSAFE.putObject(buffer, sequenceToBufferOffset(sequence, mask), items[offset + i]);
+            UNSAFE.putOrderedLong(sequences, sequenceArrayOffset(sequence, mask), sequence + 1L);
+        }
+
+        return true;
+    }
+
+    public int fill(final Supplier<E> supplier, final int limit)
+    {
+        final long mask = this.capacity - 1;
+        final long[] sequences = this.sequences;
+        long currentTail;
+        int count;
+
+        do
+        {
+            currentTail = tail;
+            count = freeSlotCount(sequences, mask, currentTail, limit);
+            if (0 == count)
+            {
+                return 0;
+            }
+        }
+        while (count < 0 || !UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, currentTail, currentTail + count));
+
+        final Object[] buffer = this.buffer;
+        int filled = 0;
+        try
+        {
+            while (filled < count)
+            {
+                final E e = supplier.get();
+                if (null == e)
+                {
+                    break;
+                }
+
+                final long sequence = currentTail + filled;
+                UNSAFE.putObject(buffer, sequenceToBufferOffset(sequence, mask), e);
+                UNSAFE.putOrderedLong(sequences, sequenceArrayOffset(sequence, mask), sequence + 1L);
+                filled++;
+            }
+        }
+        finally
+        {
+            if (filled < count)
+            {
+                releaseClaimedSlots(sequences, mask, currentTail + filled, currentTail + count);
+            }
+        }
+
+        return filled;
+    }
+
     @SuppressWarnings("unchecked")
     public E poll()
     {
@@ -137,7 +221,10 @@ public class ManyToManyConcurrentArrayQueue<E> extends AbstractConcurrentArrayQu
                 UNSAFE.putObject(buffer, elementOffset, null);
                 UNSAFE.putOrderedLong(sequences, sequenceOffset, attemptedHead + mask);
 
-                return (E)e;
+                if (null != e)
+                {
+                    return (E)e;
+                }
             }
         }
         while (true);
@@ -181,8 +268,47 @@ public class ManyToManyConcurrentArrayQueue<E> extends AbstractConcurrentArrayQu
         return count;
     }
 
+    /**
+     * Count the consecutive slots from the tail, up to a limit, which are free for producers.
+     *
+     * @return the number of free slots, or -1 if the tail has been claimed by another producer.
+     */
+    private static int freeSlotCount(final long[] sequences, final long mask, final long currentTail, final int limit)
+    {
+        int count = 0;
+        while (count < limit)
+        {
+            final long expectedSequence = currentTail + count;
+            final long sequence = UNSAFE.getLongVolatile(sequences, sequenceArrayOffset(expectedSequence, mask));
+            if (sequence != expectedSequence)
+            {
+                return sequence > expectedSequence ? -1 : count;
+            }
+
+            count++;
+        }
+
+        return count;
+    }
+
     private static long sequenceArrayOffset(final long sequence, final long mask)
     {
         return SEQUENCES_ARRAY_BASE + ((sequence & mask) << 3);
     }
+
+    /**
+     * Give back slots claimed by a fill which were not filled. If another producer has since claimed slots after
+     * them then the tail cannot be moved back so they are published empty and stepped over by consumers instead.
+     */
+    private void releaseClaimedSlots(
+        final long[] sequences, final long mask, final long fromSequence, final long toSequence)
+    {
+        if (!UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, toSequence, fromSequence))
+        {
+            for (long sequence = fromSequence; sequence < toSequence; sequence++)
+            {
+                UNSAFE.putOrderedLong(sequences, sequenceArrayOffset(sequence, mask), sequence + 1L);
+            }
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.generation.DoNotSub;
+
+import java.util.function.IntConsumer;
+
+import static org.agrona.UnsafeAccess.UNSAFE;
+
+/**
+ * Many producer to many consumer concurrent queue of primitive {@code int} elements that is array backed, as
+ * {@link ManyToManyConcurrentArrayQueue} without boxing.
+ * <p>
+ * <b>Note:</b> Poll can return the null value when an offer is in progress. If you wish to check for empty then call
+ * {@link #isEmpty()} rather than {@link #size()} checking for zero.
+ */
+public class ManyToManyConcurrentIntArrayQueue extends AbstractConcurrentIntArrayQueue
+{
+    @DoNotSub private static final int SEQUENCES_ARRAY_BASE;
+
+    static
+    {
+        try
+        {
+            SEQUENCES_ARRAY_BASE = UNSAFE.arrayBaseOffset(long[].class);
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private final long[] sequences;
+
+    /**
+     * Create a new queue with a bounded capacity which is rounded up to the next positive power of two.
+     *
+     * @param requestedCapacity of the queue which must be &gt;= 2.
+     * @param nullValue         which is returned when the queue is empty and cannot be offered.
+     * @throws IllegalArgumentException if the requestedCapacity &lt; 2.
+     */
+    public ManyToManyConcurrentIntArrayQueue(
+        @DoNotSub final int requestedCapacity,
+        final int nullValue)
+    {
+        super(requestedCapacity, nullValue);
+
+        if (requestedCapacity < 2)
+        {
+            throw new IllegalArgumentException("requestCapacity must be >= 2: requestedCapacity=" + requestedCapacity);
+        }
+
+        final long[] sequences = new long[capacity];
+
+        for (@DoNotSub int i = 0, size = capacity; i < size; i++)
+        {
+            final long sequenceOffset = sequenceArrayOffset(i, size - 1);
+            UNSAFE.putOrderedLong(sequences, sequenceOffset, i);
+        }
+
+        this.sequences = sequences;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean offerInt(final int value)
+    {
+        checkValue(value);
+
+        final long mask = this.capacity - 1;
+        final long[] sequences = this.sequences;
+
+        do
+        {
+            final long currentTail = tail;
+            final long sequenceOffset = sequenceArrayOffset(currentTail, mask);
+            final long sequence = UNSAFE.getLongVolatile(sequences, sequenceOffset);
+
+            if (sequence < currentTail)
+            {
+                return false;
+            }
+
+            if (UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, currentTail, currentTail + 1L))
+            {
+                UNSAFE.putInt(buffer, sequenceToBufferOffset(currentTail, mask), value);
+                UNSAFE.putOrderedLong(sequences, sequenceOffset, currentTail + 1L);
+
+                return true;
+            }
+        }
+        while (true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int pollInt()
+    {
+        final long[] sequences = this.sequences;
+        final long mask = this.capacity - 1;
+
+        do
+        {
+            final long currentHead = head;
+            final long sequenceOffset = sequenceArrayOffset(currentHead, mask);
+            final long sequence = UNSAFE.getLongVolatile(sequences, sequenceOffset);
+            final long attemptedHead = currentHead + 1L;
+
+            if (sequence < attemptedHead)
+            {
+                return nullValue;
+            }
+
+            if (UNSAFE.compareAndSwapLong(this, HEAD_OFFSET, currentHead, attemptedHead))
+            {
+                final long elementOffset = sequenceToBufferOffset(currentHead, mask);
+
+                final int value = UNSAFE.getInt(buffer, elementOffset);
+                UNSAFE.putInt(buffer, elementOffset, nullValue);
+                UNSAFE.putOrderedLong(sequences, sequenceOffset, attemptedHead + mask);
+
+                return value;
+            }
+        }
+        while (true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public @DoNotSub int drain(
+        final IntConsumer elementHandler,
+        @DoNotSub final int limit)
+    {
+        final int nullValue = this.nullValue;
+        @DoNotSub int count = 0;
+
+        int value;
+        while (count < limit && nullValue != (value = pollInt()))
+        {
+            elementHandler.accept(value);
+            ++count;
+        }
+
+        return count;
+    }
+
+    private static long sequenceArrayOffset(final long sequence, final long mask)
+    {
+        return SEQUENCES_ARRAY_BASE + ((sequence & mask) << 3);
+    }
+}
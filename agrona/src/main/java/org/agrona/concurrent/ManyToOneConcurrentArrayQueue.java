@@ -16,18 +16,45 @@
 package org.agrona.concurrent;
 
 import java.util.Collection;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.agrona.UnsafeAccess.UNSAFE;
 
 /**
  * Many producer to one consumer concurrent queue that is array backed. The algorithm is a variation of Fast Flow
  * consumer adapted to work with the Java Memory Model on arrays by using {@link sun.misc.Unsafe}.
+ * <p>
+ * The consumer may opt in to being unparked by producers via the {@link ConsumerWakeup} protocol.
  *
  * @param <E> type of the elements stored in the {@link java.util.Queue}.
  */
-public class ManyToOneConcurrentArrayQueue<E> extends AbstractConcurrentArrayQueue<E>
+public class ManyToOneConcurrentArrayQueue<E> extends AbstractConcurrentArrayQueue<E> implements ConsumerWakeup
 {
+    private static final long CONSUMER_WAKEUP_STATE_OFFSET;
+
+    /**
+     * Marks a slot which was claimed by a fill but not filled so the consumer steps over it.
+     */
+    private static final Object SKIPPED_SLOT = new Object();
+
+    static
+    {
+        try
+        {
+            CONSUMER_WAKEUP_STATE_OFFSET = UNSAFE.objectFieldOffset(
+                ManyToOneConcurrentArrayQueue.class.getDeclaredField("consumerWakeupState"));
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private volatile int consumerWakeupState = WAKEUP_DISABLED;
+    private volatile Thread consumerThread;
+
     public ManyToOneConcurrentArrayQueue(final int requestedCapacity)
     {
         super(requestedCapacity);
@@ -63,24 +90,159 @@ public class ManyToOneConcurrentArrayQueue<E> extends AbstractConcurrentArrayQue
 
         UNSAFE.putOrderedObject(buffer, sequenceToBufferOffset(currentTail, capacity - 1), e);
 
+        if (CONSUMER_PARKING == consumerWakeupState)
+        {
+            signalConsumer();
+        }
+
         return true;
     }
 
+    public boolean offerBatch(final E[] items, final int offset, final int length)
+    {
+        checkBatch(items, offset, length);
+
+        final int capacity = this.capacity;
+        long currentHead = sharedHeadCache;
+        long bufferLimit = currentHead + capacity;
+        long currentTail;
+        do
+        {
+            currentTail = tail;
+            if (currentTail + length > bufferLimit)
+            {
+                currentHead = head;
+                bufferLimit = currentHead + capacity;
+                if (currentTail + length > bufferLimit)
+                {
+                    return false;
+                }
+
+                UNSAFE.putOrderedLong(this, SHARED_HEAD_CACHE_OFFSET, currentHead);
+            }
+        }
+        while (!UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, currentTail, currentTail + length));
+
+        final Object[] buffer = this.buffer;
+        final long mask = capacity - 1;
+        for (int i = 0; i < length; i++)
+        {
+            UNSAFE.putOrderedObject(buffer, sequenceToBufferOffset(currentTail + i, mask), items[offset + i]);
+        }
+
+        if (CONSUMER_PARKING == consumerWakeupState)
+        {
+            signalConsumer();
+        }
+
+        return true;
+    }
+
+    public int fill(final Supplier<E> supplier, final int limit)
+    {
+        final int capacity = this.capacity;
+        long currentHead = sharedHeadCache;
+        long bufferLimit = currentHead + capacity;
+        long currentTail;
+        int count;
+        do
+        {
+            currentTail = tail;
+            if (bufferLimit - currentTail < limit)
+            {
+                currentHead = head;
+                bufferLimit = currentHead + capacity;
+                UNSAFE.putOrderedLong(this, SHARED_HEAD_CACHE_OFFSET, currentHead);
+            }
+
+            count = (int)Math.min(bufferLimit - currentTail, limit);
+            if (count <= 0)
+            {
+                return 0;
+            }
+        }
+        while (!UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, currentTail, currentTail + count));
+
+        final Object[] buffer = this.buffer;
+        final long mask = capacity - 1;
+        int filled = 0;
+        try
+        {
+            while (filled < count)
+            {
+                final E e = supplier.get();
+                if (null == e)
+                {
+                    break;
+                }
+
+                UNSAFE.putOrderedObject(buffer, sequenceToBufferOffset(currentTail + filled, mask), e);
+                filled++;
+            }
+        }
+        finally
+        {
+            if (filled < count)
+            {
+                releaseClaimedSlots(buffer, mask, currentTail + filled, currentTail + count);
+            }
+
+            if (CONSUMER_PARKING == consumerWakeupState)
+            {
+                signalConsumer();
+            }
+        }
+
+        return filled;
+    }
+
     @SuppressWarnings("unchecked")
     public E poll()
     {
-        final long currentHead = head;
-        final long elementOffset = sequenceToBufferOffset(currentHead, capacity - 1);
+        final long mask = capacity - 1;
         final Object[] buffer = this.buffer;
-        final Object e = UNSAFE.getObjectVolatile(buffer, elementOffset);
+        long currentHead = head;
 
-        if (null != e)
+        while (true)
         {
-            UNSAFE.putObject(buffer, elementOffset, null);
-            UNSAFE.putOrderedLong(this, HEAD_OFFSET, currentHead + 1);
+            final long elementOffset = sequenceToBufferOffset(currentHead, mask);
+            final Object e = UNSAFE.getObjectVolatile(buffer, elementOffset);
+
+            if (null != e)
+            {
+                UNSAFE.putObject(buffer, elementOffset, null);
+                UNSAFE.putOrderedLong(this, HEAD_OFFSET, ++currentHead);
+
+                if (SKIPPED_SLOT == e)
+                {
+                    continue;
+                }
+            }
+
+            return (E)e;
         }
+    }
 
-        return (E)e;
+    @SuppressWarnings("unchecked")
+    public E peek()
+    {
+        final long mask = capacity - 1;
+        final Object[] buffer = this.buffer;
+        long currentHead = head;
+
+        while (true)
+        {
+            final long elementOffset = sequenceToBufferOffset(currentHead, mask);
+            final Object e = UNSAFE.getObjectVolatile(buffer, elementOffset);
+
+            if (SKIPPED_SLOT != e)
+            {
+                return (E)e;
+            }
+
+            UNSAFE.putObject(buffer, elementOffset, null);
+            UNSAFE.putOrderedLong(this, HEAD_OFFSET, ++currentHead);
+        }
     }
 
     public int drain(final Consumer<E> elementHandler)
@@ -93,11 +255,10 @@ public class ManyToOneConcurrentArrayQueue<E> extends AbstractConcurrentArrayQue
     {
         final Object[] buffer = this.buffer;
         final long mask = this.capacity - 1;
-        final long currentHead = head;
-        long nextSequence = currentHead;
-        final long limitSequence = nextSequence + limit;
+        long nextSequence = head;
+        int count = 0;
 
-        while (nextSequence < limitSequence)
+        while (count < limit)
         {
             final long elementOffset = sequenceToBufferOffset(nextSequence, mask);
             final Object item = UNSAFE.getObjectVolatile(buffer, elementOffset);
@@ -110,10 +271,15 @@ public class ManyToOneConcurrentArrayQueue<E> extends AbstractConcurrentArrayQue
             UNSAFE.putOrderedObject(buffer, elementOffset, null);
             nextSequence++;
             UNSAFE.putOrderedLong(this, HEAD_OFFSET, nextSequence);
-            elementHandler.accept((E)item);
+
+            if (SKIPPED_SLOT != item)
+            {
+                count++;
+                elementHandler.accept((E)item);
+            }
         }
 
-        return (int)(nextSequence - currentHead);
+        return count;
     }
 
     @SuppressWarnings("unchecked")
@@ -136,10 +302,71 @@ public class ManyToOneConcurrentArrayQueue<E> extends AbstractConcurrentArrayQue
             UNSAFE.putOrderedObject(buffer, elementOffset, null);
             nextSequence++;
             UNSAFE.putOrderedLong(this, HEAD_OFFSET, nextSequence);
-            count++;
-            target.add((E)e);
+
+            if (SKIPPED_SLOT != e)
+            {
+                count++;
+                target.add((E)e);
+            }
         }
 
         return count;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void enableConsumerWakeup(final Thread consumerThread)
+    {
+        this.consumerThread = consumerThread;
+        consumerWakeupState = CONSUMER_ACTIVE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean prepareConsumerPark()
+    {
+        consumerWakeupState = CONSUMER_PARKING;
+
+        if (head != tail)
+        {
+            UNSAFE.putOrderedInt(this, CONSUMER_WAKEUP_STATE_OFFSET, CONSUMER_ACTIVE);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void completeConsumerPark()
+    {
+        UNSAFE.putOrderedInt(this, CONSUMER_WAKEUP_STATE_OFFSET, CONSUMER_ACTIVE);
+    }
+
+    private void signalConsumer()
+    {
+        if (UNSAFE.compareAndSwapInt(this, CONSUMER_WAKEUP_STATE_OFFSET, CONSUMER_PARKING, CONSUMER_ACTIVE))
+        {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    /**
+     * Give back slots claimed by a fill which were not filled. If another producer has since claimed slots after
+     * them then the tail cannot be moved back so they are marked to be skipped by the consumer instead.
+     */
+    private void releaseClaimedSlots(
+        final Object[] buffer, final long mask, final long fromSequence, final long toSequence)
+    {
+        if (!UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, toSequence, fromSequence))
+        {
+            for (long sequence = fromSequence; sequence < toSequence; sequence++)
+            {
+                UNSAFE.putOrderedObject(buffer, sequenceToBufferOffset(sequence, mask), SKIPPED_SLOT);
+            }
+        }
+    }
 }
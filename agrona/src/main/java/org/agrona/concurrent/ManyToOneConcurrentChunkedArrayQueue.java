@@ -0,0 +1,556 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.BitUtil;
+import org.agrona.hints.ThreadHints;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import static org.agrona.UnsafeAccess.UNSAFE;
+import static org.agrona.concurrent.AbstractConcurrentArrayQueue.sequenceToBufferOffset;
+
+/**
+ * Pad out a cache line to the left of the producer fields to prevent false sharing.
+ */
+class ManyToOneConcurrentChunkedArrayQueuePadding1
+{
+    protected static final long TAIL_OFFSET;
+    protected static final long PRODUCER_CHUNK_OFFSET;
+    protected static final long PRODUCER_CHUNK_INDEX_OFFSET;
+    protected static final long HEAD_OFFSET;
+
+    static final class Chunk
+    {
+        final Object[] elements;
+        volatile long index;
+        volatile Chunk prev;
+        volatile Chunk next;
+
+        Chunk(final int length, final long index)
+        {
+            this.elements = new Object[length];
+            this.index = index;
+        }
+    }
+
+    static
+    {
+        try
+        {
+            TAIL_OFFSET = UNSAFE.objectFieldOffset(
+                ManyToOneConcurrentChunkedArrayQueueProducer.class.getDeclaredField("tail"));
+            PRODUCER_CHUNK_OFFSET = UNSAFE.objectFieldOffset(
+                ManyToOneConcurrentChunkedArrayQueueProducer.class.getDeclaredField("producerChunk"));
+            PRODUCER_CHUNK_INDEX_OFFSET = UNSAFE.objectFieldOffset(
+                ManyToOneConcurrentChunkedArrayQueueProducer.class.getDeclaredField("producerChunkIndex"));
+            HEAD_OFFSET = UNSAFE.objectFieldOffset(
+                ManyToOneConcurrentChunkedArrayQueueConsumer.class.getDeclaredField("head"));
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    protected long p1, p2, p3, p4, p5, p6, p7, p8, p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * Values for the producers that are expected to be padded.
+ */
+class ManyToOneConcurrentChunkedArrayQueueProducer extends ManyToOneConcurrentChunkedArrayQueuePadding1
+{
+    protected volatile long tail;
+    protected volatile long producerChunkIndex;
+    protected volatile Chunk producerChunk;
+}
+
+/**
+ * Pad out a cache line between the producer and consumer fields to prevent false sharing.
+ */
+class ManyToOneConcurrentChunkedArrayQueuePadding2 extends ManyToOneConcurrentChunkedArrayQueueProducer
+{
+    @SuppressWarnings("unused")
+    protected long p16, p17, p18, p19, p20, p21, p22, p23, p24, p25, p26, p27, p28, p29, p30;
+}
+
+/**
+ * Values for the consumer that are expected to be padded.
+ */
+class ManyToOneConcurrentChunkedArrayQueueConsumer extends ManyToOneConcurrentChunkedArrayQueuePadding2
+{
+    protected volatile long head;
+    protected Chunk consumerChunk;
+}
+
+/**
+ * Pad out a cache line between the consumer fields and the immutable fields to prevent false sharing.
+ */
+class ManyToOneConcurrentChunkedArrayQueuePadding3 extends ManyToOneConcurrentChunkedArrayQueueConsumer
+{
+    @SuppressWarnings("unused")
+    protected long p31, p32, p33, p34, p35, p36, p37, p38, p39, p40, p41, p42, p43, p44, p45;
+}
+
+/**
+ * Unbounded many producer to one consumer concurrent queue made from a linked list of fixed size array chunks so
+ * elements can be queued without allocating a node per element.
+ * <p>
+ * Producers claim a sequence with an atomic increment of the tail and then write the element into the chunk for
+ * that sequence. The producer which first needs a new chunk appends it, taking a chunk recycled by the consumer
+ * when one is available. The consumer recycles each chunk once it has been fully consumed, up to a limit of pooled
+ * chunks, so a queue in a steady state does not allocate.
+ * <p>
+ * <b>Note:</b> As with {@link ManyToOneConcurrentLinkedQueue}, poll and peek can return null when an element has
+ * been claimed by a producer but not yet written. If you wish to check for empty then call {@link #isEmpty()}.
+ *
+ * @param <E> type of the elements stored in the {@link java.util.Queue}.
+ */
+public class ManyToOneConcurrentChunkedArrayQueue<E>
+    extends ManyToOneConcurrentChunkedArrayQueuePadding3
+    implements QueuedPipe<E>
+{
+    private static final long ROTATION = -1;
+
+    private final int chunkSize;
+    private final long chunkMask;
+    private final int chunkShift;
+    private final OneToOneConcurrentArrayQueue<Chunk> freeChunks;
+
+    /**
+     * Construct a queue with a given chunk size and a default pool of 2 recycled chunks.
+     *
+     * @param requestedChunkSize number of elements in each chunk which will be rounded up to a power of 2.
+     */
+    public ManyToOneConcurrentChunkedArrayQueue(final int requestedChunkSize)
+    {
+        this(requestedChunkSize, 2);
+    }
+
+    /**
+     * Construct a queue with a given chunk size and limit of recycled chunks to be pooled.
+     *
+     * @param requestedChunkSize number of elements in each chunk which will be rounded up to a power of 2.
+     * @param maxPooledChunks    number of consumed chunks which will be kept for reuse.
+     */
+    public ManyToOneConcurrentChunkedArrayQueue(final int requestedChunkSize, final int maxPooledChunks)
+    {
+        chunkSize = BitUtil.findNextPositivePowerOfTwo(requestedChunkSize);
+        chunkMask = chunkSize - 1;
+        chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        freeChunks = new OneToOneConcurrentArrayQueue<>(Math.max(maxPooledChunks, 1));
+
+        final Chunk chunk = new Chunk(chunkSize, 0);
+        consumerChunk = chunk;
+        UNSAFE.putOrderedObject(this, PRODUCER_CHUNK_OFFSET, chunk);
+    }
+
+    /**
+     * Number of elements in each chunk.
+     *
+     * @return number of elements in each chunk.
+     */
+    public int chunkSize()
+    {
+        return chunkSize;
+    }
+
+    public long addedCount()
+    {
+        return tail;
+    }
+
+    public long removedCount()
+    {
+        return head;
+    }
+
+    /**
+     * The queue is unbounded so capacity is reported as {@link Integer#MAX_VALUE}.
+     *
+     * @return {@link Integer#MAX_VALUE}.
+     */
+    public int capacity()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    public int remainingCapacity()
+    {
+        return Integer.MAX_VALUE - size();
+    }
+
+    public boolean add(final E e)
+    {
+        return offer(e);
+    }
+
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException("element cannot be null");
+        }
+
+        final long sequence = UNSAFE.getAndAddLong(this, TAIL_OFFSET, 1);
+        final Chunk chunk = producerChunk(sequence >> chunkShift);
+        UNSAFE.putOrderedObject(chunk.elements, sequenceToBufferOffset(sequence, chunkMask), e);
+
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll()
+    {
+        final long currentHead = head;
+        final Chunk chunk = consumerChunk(currentHead);
+        if (null == chunk)
+        {
+            return null;
+        }
+
+        final Object[] elements = chunk.elements;
+        final long elementOffset = sequenceToBufferOffset(currentHead, chunkMask);
+        final Object e = UNSAFE.getObjectVolatile(elements, elementOffset);
+
+        if (null != e)
+        {
+            UNSAFE.putObject(elements, elementOffset, null);
+            UNSAFE.putOrderedLong(this, HEAD_OFFSET, currentHead + 1);
+        }
+
+        return (E)e;
+    }
+
+    public E remove()
+    {
+        final E e = poll();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek()
+    {
+        final long currentHead = head;
+        final Chunk chunk = consumerChunk(currentHead);
+
+        return null == chunk ?
+            null : (E)UNSAFE.getObjectVolatile(chunk.elements, sequenceToBufferOffset(currentHead, chunkMask));
+    }
+
+    public E element()
+    {
+        final E e = peek();
+        if (null == e)
+        {
+            throw new NoSuchElementException("Queue is empty");
+        }
+
+        return e;
+    }
+
+    public int drain(final Consumer<E> elementHandler)
+    {
+        return drain(elementHandler, (int)Math.min(tail - head, Integer.MAX_VALUE));
+    }
+
+    @SuppressWarnings("unchecked")
+    public int drain(final Consumer<E> elementHandler, final int limit)
+    {
+        final long mask = this.chunkMask;
+        final long currentHead = head;
+        long nextSequence = currentHead;
+        final long limitSequence = nextSequence + limit;
+
+        while (nextSequence < limitSequence)
+        {
+            final Chunk chunk = consumerChunk(nextSequence);
+            if (null == chunk)
+            {
+                break;
+            }
+
+            final Object[] elements = chunk.elements;
+            final long elementOffset = sequenceToBufferOffset(nextSequence, mask);
+            final Object item = UNSAFE.getObjectVolatile(elements, elementOffset);
+
+            if (null == item)
+            {
+                break;
+            }
+
+            UNSAFE.putOrderedObject(elements, elementOffset, null);
+            nextSequence++;
+            UNSAFE.putOrderedLong(this, HEAD_OFFSET, nextSequence);
+            elementHandler.accept((E)item);
+        }
+
+        return (int)(nextSequence - currentHead);
+    }
+
+    public int drainTo(final Collection<? super E> target, final int limit)
+    {
+        int count = 0;
+        while (count < limit)
+        {
+            final E e = poll();
+            if (null == e)
+            {
+                break;
+            }
+
+            count++;
+            target.add(e);
+        }
+
+        return count;
+    }
+
+    /**
+     * Size can be considered an approximation on a moving queue as it includes elements which have been claimed
+     * but not yet written by producers.
+     *
+     * @return an approximation for the size of the queue.
+     */
+    public int size()
+    {
+        long currentHeadBefore;
+        long currentTail;
+        long currentHeadAfter = head;
+
+        do
+        {
+            currentHeadBefore = currentHeadAfter;
+            currentTail = tail;
+            currentHeadAfter = head;
+        }
+        while (currentHeadAfter != currentHeadBefore);
+
+        return (int)Math.min(currentTail - currentHeadAfter, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty()
+    {
+        return head == tail;
+    }
+
+    public void clear()
+    {
+        Object value;
+        do
+        {
+            value = poll();
+        }
+        while (null != value);
+    }
+
+    /**
+     * Walks the chunks from head to tail looking for the element. Elements claimed but not yet written by producers
+     * are not found. If called from a thread other than the consumer while chunks are being recycled then the
+     * search ends early.
+     *
+     * @param o element to search for.
+     * @return true if the element was found in the queue otherwise false.
+     */
+    public boolean contains(final Object o)
+    {
+        if (null == o)
+        {
+            return false;
+        }
+
+        final long mask = this.chunkMask;
+        final int shift = this.chunkShift;
+        Chunk chunk = consumerChunk;
+
+        for (long i = head, limit = tail; i < limit; i++)
+        {
+            final long chunkIndex = i >> shift;
+            while (null != chunk && chunk.index < chunkIndex)
+            {
+                chunk = chunk.next;
+            }
+
+            if (null == chunk || chunk.index != chunkIndex)
+            {
+                break;
+            }
+
+            final Object e = UNSAFE.getObjectVolatile(chunk.elements, sequenceToBufferOffset(i, mask));
+            if (o.equals(e))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object[] toArray()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public <T> T[] toArray(final T[] a)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(final Object o)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean containsAll(final Collection<?> c)
+    {
+        for (final Object o : c)
+        {
+            if (!contains(o))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean addAll(final Collection<? extends E> c)
+    {
+        for (final E e : c)
+        {
+            add(e);
+        }
+
+        return true;
+    }
+
+    public boolean removeAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean retainAll(final Collection<?> c)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public String toString()
+    {
+        return "ManyToOneConcurrentChunkedArrayQueue{" +
+            "chunkSize=" + chunkSize +
+            ", head=" + head +
+            ", tail=" + tail +
+            '}';
+    }
+
+    private Chunk producerChunk(final long chunkIndex)
+    {
+        while (true)
+        {
+            final long currentIndex = producerChunkIndex;
+            if (ROTATION == currentIndex)
+            {
+                ThreadHints.onSpinWait();
+                continue;
+            }
+
+            final Chunk chunk = producerChunk;
+            if (chunk.index != currentIndex)
+            {
+                continue;
+            }
+
+            if (currentIndex == chunkIndex)
+            {
+                return chunk;
+            }
+
+            if (currentIndex > chunkIndex)
+            {
+                Chunk previous = chunk;
+                do
+                {
+                    previous = previous.prev;
+                }
+                while (previous.index != chunkIndex);
+
+                return previous;
+            }
+
+            if (UNSAFE.compareAndSwapLong(this, PRODUCER_CHUNK_INDEX_OFFSET, currentIndex, ROTATION))
+            {
+                appendChunk(chunk, currentIndex + 1);
+            }
+        }
+    }
+
+    private void appendChunk(final Chunk tailChunk, final long index)
+    {
+        Chunk chunk = freeChunks.poll();
+        if (null == chunk)
+        {
+            chunk = new Chunk(chunkSize, index);
+        }
+        else
+        {
+            chunk.index = index;
+        }
+
+        chunk.prev = tailChunk;
+        tailChunk.next = chunk;
+
+        UNSAFE.putOrderedObject(this, PRODUCER_CHUNK_OFFSET, chunk);
+        UNSAFE.putOrderedLong(this, PRODUCER_CHUNK_INDEX_OFFSET, index);
+    }
+
+    private Chunk consumerChunk(final long sequence)
+    {
+        final Chunk chunk = consumerChunk;
+        if ((sequence >> chunkShift) == chunk.index)
+        {
+            return chunk;
+        }
+
+        final Chunk next = chunk.next;
+        if (null == next)
+        {
+            return null;
+        }
+
+        next.prev = null;
+        consumerChunk = next;
+
+        chunk.next = null;
+        freeChunks.offer(chunk);
+
+        return next;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.generation.DoNotSub;
+
+import java.util.function.IntConsumer;
+
+import static org.agrona.UnsafeAccess.UNSAFE;
+
+/**
+ * Many producer to one consumer concurrent queue of primitive {@code int} elements that is array backed, as
+ * {@link ManyToOneConcurrentArrayQueue} without boxing.
+ */
+public class ManyToOneConcurrentIntArrayQueue extends AbstractConcurrentIntArrayQueue
+{
+    /**
+     * Create a new queue with a bounded capacity which is rounded up to the next positive power of two.
+     *
+     * @param requestedCapacity of the queue.
+     * @param nullValue         which marks an empty slot and cannot be offered.
+     */
+    public ManyToOneConcurrentIntArrayQueue(
+        @DoNotSub final int requestedCapacity,
+        final int nullValue)
+    {
+        super(requestedCapacity, nullValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean offerInt(final int value)
+    {
+        checkValue(value);
+
+        @DoNotSub final int capacity = this.capacity;
+        long currentHead = sharedHeadCache;
+        long bufferLimit = currentHead + capacity;
+        long currentTail;
+        do
+        {
+            currentTail = tail;
+            if (currentTail >= bufferLimit)
+            {
+                currentHead = head;
+                bufferLimit = currentHead + capacity;
+                if (currentTail >= bufferLimit)
+                {
+                    return false;
+                }
+
+                UNSAFE.putOrderedLong(this, SHARED_HEAD_CACHE_OFFSET, currentHead);
+            }
+        }
+        while (!UNSAFE.compareAndSwapLong(this, TAIL_OFFSET, currentTail, currentTail + 1));
+
+        UNSAFE.putOrderedInt(buffer, sequenceToBufferOffset(currentTail, capacity - 1), value);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int pollInt()
+    {
+        final int[] buffer = this.buffer;
+        final int nullValue = this.nullValue;
+        final long currentHead = head;
+        final long elementOffset = sequenceToBufferOffset(currentHead, capacity - 1);
+
+        final int value = UNSAFE.getIntVolatile(buffer, elementOffset);
+        if (nullValue != value)
+        {
+            UNSAFE.putInt(buffer, elementOffset, nullValue);
+            UNSAFE.putOrderedLong(this, HEAD_OFFSET, currentHead + 1);
+        }
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public @DoNotSub int drain(
+        final IntConsumer elementHandler,
+        @DoNotSub final int limit)
+    {
+        final int[] buffer = this.buffer;
+        final int nullValue = this.nullValue;
+        final long mask = this.capacity - 1;
+        final long currentHead = head;
+        long nextSequence = currentHead;
+        final long limitSequence = nextSequence + limit;
+
+        while (nextSequence < limitSequence)
+        {
+            final long elementOffset = sequenceToBufferOffset(nextSequence, mask);
+            final int value = UNSAFE.getIntVolatile(buffer, elementOffset);
+
+            if (nullValue == value)
+            {
+                break;
+            }
+
+            UNSAFE.putOrderedInt(buffer, elementOffset, nullValue);
+            nextSequence++;
+            UNSAFE.putOrderedLong(this, HEAD_OFFSET, nextSequence);
+            elementHandler.accept(value);
+        }
+
+        return (int)(nextSequence - currentHead); // @DoNotSub
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * {@link MessageHandler} which reassembles messages that were split into fragments because they exceeded the
+ * maximum message length of a ring buffer or broadcast buffer, and delegates whole messages on to another handler.
+ * <p>
+ * Fragments are written with the reserved {@link #FRAGMENT_MSG_TYPE_ID} and begin with a header of
+ * {@link #FRAGMENT_HEADER_LENGTH} containing the {@link #BEGIN_FLAG} and {@link #END_FLAG}, the type id of the
+ * original message, a sequence number for the message from the fragmenter, and the index within the message at
+ * which the fragment payload belongs. Messages of any other type are passed straight through to the delegate without
+ * being copied.
+ * <p>
+ * A fragment which does not continue the message in progress, such as after a broadcast receiver has been lapped
+ * and skipped ahead to a fragment of a later message, causes the partially assembled message to be discarded along
+ * with the fragment. A {@link #BEGIN_FLAG} fragment always discards any partially assembled message.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe.
+ */
+public class MessageFragmentAssembler implements MessageHandler
+{
+    /**
+     * Message type id reserved for fragments of messages which exceed the max message length.
+     */
+    public static final int FRAGMENT_MSG_TYPE_ID = Integer.MAX_VALUE;
+
+    /**
+     * Offset within a fragment of the flags field.
+     */
+    public static final int FLAGS_OFFSET = 0;
+
+    /**
+     * Offset within a fragment of the type id of the reassembled message.
+     */
+    public static final int MSG_TYPE_ID_OFFSET = 4;
+
+    /**
+     * Offset within a fragment of the sequence number of the fragmented message.
+     */
+    public static final int SEQUENCE_OFFSET = 8;
+
+    /**
+     * Offset within a fragment of the index in the reassembled message at which the fragment payload belongs.
+     */
+    public static final int MESSAGE_INDEX_OFFSET = 12;
+
+    /**
+     * Length of the header which begins each fragment.
+     */
+    public static final int FRAGMENT_HEADER_LENGTH = 16;
+
+    /**
+     * Flag for the first fragment of a message.
+     */
+    public static final int BEGIN_FLAG = 0x80;
+
+    /**
+     * Flag for the last fragment of a message.
+     */
+    public static final int END_FLAG = 0x40;
+
+    private final MessageHandler delegate;
+    private final ExpandableDirectByteBuffer buffer;
+    private int limit;
+    private int msgTypeId;
+    private int sequence;
+    private boolean isInProgress;
+
+    /**
+     * Construct an assembler with a default initial buffer capacity.
+     *
+     * @param delegate to be called for each whole message.
+     */
+    public MessageFragmentAssembler(final MessageHandler delegate)
+    {
+        this(delegate, ExpandableDirectByteBuffer.INITIAL_CAPACITY);
+    }
+
+    /**
+     * Construct an assembler with a given initial buffer capacity which will grow as required.
+     *
+     * @param delegate              to be called for each whole message.
+     * @param initialBufferCapacity for reassembling messages.
+     */
+    public MessageFragmentAssembler(final MessageHandler delegate, final int initialBufferCapacity)
+    {
+        this.delegate = delegate;
+        this.buffer = new ExpandableDirectByteBuffer(initialBufferCapacity);
+    }
+
+    /**
+     * The delegate to which whole messages are passed.
+     *
+     * @return the delegate to which whole messages are passed.
+     */
+    public MessageHandler delegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * Discard any partially assembled message.
+     */
+    public void reset()
+    {
+        isInProgress = false;
+        limit = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length)
+    {
+        if (FRAGMENT_MSG_TYPE_ID != msgTypeId)
+        {
+            delegate.onMessage(msgTypeId, buffer, index, length);
+        }
+        else
+        {
+            onFragment(buffer, index, length);
+        }
+    }
+
+    private void onFragment(final MutableDirectBuffer srcBuffer, final int index, final int length)
+    {
+        final int flags = srcBuffer.getInt(index + FLAGS_OFFSET);
+        final int sequence = srcBuffer.getInt(index + SEQUENCE_OFFSET);
+        final int payloadLength = length - FRAGMENT_HEADER_LENGTH;
+
+        if ((flags & BEGIN_FLAG) == BEGIN_FLAG)
+        {
+            isInProgress = true;
+            limit = 0;
+            msgTypeId = srcBuffer.getInt(index + MSG_TYPE_ID_OFFSET);
+            this.sequence = sequence;
+        }
+        else if (!isInProgress || this.sequence != sequence || limit != srcBuffer.getInt(index + MESSAGE_INDEX_OFFSET))
+        {
+            reset();
+            return;
+        }
+
+        buffer.putBytes(limit, srcBuffer, index + FRAGMENT_HEADER_LENGTH, payloadLength);
+        limit += payloadLength;
+
+        if ((flags & END_FLAG) == END_FLAG)
+        {
+            isInProgress = false;
+            delegate.onMessage(msgTypeId, buffer, 0, limit);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.BitUtil;
+import org.agrona.CloseHelper;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+import static org.agrona.UnsafeAccess.UNSAFE;
+
+/**
+ * Pad out a cacheline to the left of the producer fields to prevent false sharing.
+ */
+class OccupancyRecorderPadding1
+{
+    @SuppressWarnings("unused")
+    protected long p1, p2, p3, p4, p5, p6, p7, p8, p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * Value for the producers that is expected to be padded.
+ */
+class OccupancyRecorderProducer extends OccupancyRecorderPadding1
+{
+    protected int sampleCount;
+}
+
+/**
+ * Pad out a cacheline between the producer and sample fields to prevent false sharing.
+ */
+class OccupancyRecorderPadding2 extends OccupancyRecorderProducer
+{
+    @SuppressWarnings("unused")
+    protected long p16, p17, p18, p19, p20, p21, p22, p23, p24, p25, p26, p27, p28, p29, p30;
+}
+
+/**
+ * Values for the outstanding sample, read by the consumer, that are expected to be padded.
+ */
+class OccupancyRecorderSample extends OccupancyRecorderPadding2
+{
+    protected volatile long sampleTimeNs;
+    protected volatile long samplePosition;
+}
+
+/**
+ * Pad out a cacheline between the sample fields and the immutable fields to prevent false sharing.
+ */
+class OccupancyRecorderPadding3 extends OccupancyRecorderSample
+{
+    @SuppressWarnings("unused")
+    protected long p31, p32, p33, p34, p35, p36, p37, p38, p39, p40, p41, p42, p43, p44, p45;
+}
+
+/**
+ * Records the occupancy of a queue, and the time sampled elements spend in it, to {@link AtomicCounter}s so a backlog
+ * can be attributed to the queue causing it.
+ * <p>
+ * Every sample interval the producer side takes a timestamp before its offer then records the depth and high-water
+ * mark of the queue and, if no sample is outstanding, marks the position after its element with that timestamp. When
+ * the consumer side reaches that position the sojourn time is recorded. Between samples the cost is a counter
+ * increment for producers and a single volatile read for consumers. The producer counter is padded away from the
+ * sample fields read by consumers so the two sides do not contend for a cache line.
+ * <p>
+ * Positions are taken after the offer so with multiple producers the sampled element may be slightly later than the
+ * one which triggered the sample, which is sufficient for attributing latency. A consumer may also pass the position
+ * before the sample is marked, in which case the producer discards the sample with
+ * {@link #discardSample(long)} rather than leave it to be completed by a later, unrelated, consume.
+ *
+ * @see InstrumentedQueuedPipe
+ * @see org.agrona.concurrent.ringbuffer.InstrumentedRingBuffer
+ */
+public class OccupancyRecorder extends OccupancyRecorderPadding3 implements AutoCloseable
+{
+    private static final long NO_SAMPLE = -1;
+    private static final long SAMPLE_CLAIMED = -2;
+    private static final long SAMPLE_POSITION_OFFSET;
+
+    static
+    {
+        try
+        {
+            SAMPLE_POSITION_OFFSET = UNSAFE.objectFieldOffset(
+                OccupancyRecorderSample.class.getDeclaredField("samplePosition"));
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private final int sampleMask;
+    private final NanoClock clock;
+    private final AtomicCounter depth;
+    private final AtomicCounter highWaterMark;
+    private final AtomicCounter sojournTimeNs;
+    private final AtomicCounter maxSojournTimeNs;
+
+    /**
+     * Construct a recorder allocating its counters from a {@link CountersManager}.
+     *
+     * @param countersManager from which the counters are allocated.
+     * @param name            of the queue which prefixes the counter labels.
+     * @param clock           for timing sampled elements.
+     * @param sampleInterval  as the number of produced elements between samples which must be a power of 2.
+     */
+    public OccupancyRecorder(
+        final CountersManager countersManager, final String name, final NanoClock clock, final int sampleInterval)
+    {
+        this(
+            countersManager.newCounter(name + " depth"),
+            countersManager.newCounter(name + " high-water mark"),
+            countersManager.newCounter(name + " sojourn time ns"),
+            countersManager.newCounter(name + " max sojourn time ns"),
+            clock,
+            sampleInterval);
+    }
+
+    /**
+     * Construct a recorder which publishes to the provided counters.
+     *
+     * @param depth            of the queue when last sampled.
+     * @param highWaterMark    of the queue depth across samples.
+     * @param sojournTimeNs    of the last sampled element.
+     * @param maxSojournTimeNs of the sampled elements.
+     * @param clock            for timing sampled elements.
+     * @param sampleInterval   as the number of produced elements between samples which must be a power of 2.
+     */
+    public OccupancyRecorder(
+        final AtomicCounter depth,
+        final AtomicCounter highWaterMark,
+        final AtomicCounter sojournTimeNs,
+        final AtomicCounter maxSojournTimeNs,
+        final NanoClock clock,
+        final int sampleInterval)
+    {
+        if (!BitUtil.isPowerOfTwo(sampleInterval))
+        {
+            throw new IllegalArgumentException("sampleInterval must be a power of 2: sampleInterval=" + sampleInterval);
+        }
+
+        this.depth = depth;
+        this.highWaterMark = highWaterMark;
+        this.sojournTimeNs = sojournTimeNs;
+        this.maxSojournTimeNs = maxSojournTimeNs;
+        this.clock = clock;
+        this.sampleMask = sampleInterval - 1;
+        this.samplePosition = NO_SAMPLE;
+    }
+
+    /**
+     * Called by a producer before each offer to determine if this offer should be sampled.
+     * <p>
+     * The count is a plain field so with multiple producers increments can be lost and the interval is approximate,
+     * which only affects how often samples are taken.
+     *
+     * @return true if a timestamp should be taken with {@link #nanoTime()} before the offer and
+     * {@link #onSample(long, long, long)} called after it.
+     */
+    public boolean isSampleDue()
+    {
+        return (++sampleCount & sampleMask) == 0;
+    }
+
+    /**
+     * Time from the clock of this recorder to be taken by a producer before an offer which is to be sampled.
+     *
+     * @return time from the clock of this recorder.
+     */
+    public long nanoTime()
+    {
+        return clock.nanoTime();
+    }
+
+    /**
+     * Record the depth of the queue and, if no sample is outstanding, begin timing the element before a position.
+     * <p>
+     * If this returns true then the producer should check the consumer has not already reached the position and, if
+     * it has, call {@link #discardSample(long)}.
+     *
+     * @param timestampNs taken from {@link #nanoTime()} before the offer.
+     * @param position    of the producer after the offer.
+     * @param depth       of the queue after the offer.
+     * @return true if a sample was begun for the position.
+     */
+    public boolean onSample(final long timestampNs, final long position, final long depth)
+    {
+        this.depth.setOrdered(depth);
+        highWaterMark.proposeMax(depth);
+
+        if (UNSAFE.compareAndSwapLong(this, SAMPLE_POSITION_OFFSET, NO_SAMPLE, SAMPLE_CLAIMED))
+        {
+            sampleTimeNs = timestampNs;
+            samplePosition = position;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Discard an outstanding sample for a position the consumer reached before the sample was begun.
+     *
+     * @param position of the sample begun by {@link #onSample(long, long, long)}.
+     */
+    public void discardSample(final long position)
+    {
+        UNSAFE.compareAndSwapLong(this, SAMPLE_POSITION_OFFSET, position, NO_SAMPLE);
+    }
+
+    /**
+     * Called by a consumer after each successful poll or read with the consumer position.
+     *
+     * @param position of the consumer after the poll or read.
+     */
+    public void onConsumed(final long position)
+    {
+        final long samplePosition = this.samplePosition;
+        if (samplePosition >= 0 && position >= samplePosition)
+        {
+            final long sojournTimeNs = clock.nanoTime() - sampleTimeNs;
+            if (UNSAFE.compareAndSwapLong(this, SAMPLE_POSITION_OFFSET, samplePosition, NO_SAMPLE))
+            {
+                this.sojournTimeNs.setOrdered(sojournTimeNs);
+                maxSojournTimeNs.proposeMax(sojournTimeNs);
+            }
+        }
+    }
+
+    /**
+     * Counter for the depth of the queue when last sampled.
+     *
+     * @return counter for the depth of the queue when last sampled.
+     */
+    public AtomicCounter depth()
+    {
+        return depth;
+    }
+
+    /**
+     * Counter for the high-water mark of the queue depth across samples.
+     *
+     * @return counter for the high-water mark of the queue depth across samples.
+     */
+    public AtomicCounter highWaterMark()
+    {
+        return highWaterMark;
+    }
+
+    /**
+     * Counter for the time in nanoseconds the last sampled element spent in the queue.
+     *
+     * @return counter for the time in nanoseconds the last sampled element spent in the queue.
+     */
+    public AtomicCounter sojournTimeNs()
+    {
+        return sojournTimeNs;
+    }
+
+    /**
+     * Counter for the maximum time in nanoseconds a sampled element spent in the queue.
+     *
+     * @return counter for the maximum time in nanoseconds a sampled element spent in the queue.
+     */
+    public AtomicCounter maxSojournTimeNs()
+    {
+        return maxSojournTimeNs;
+    }
+
+    /**
+     * Free the counters for reuse.
+     */
+    public void close()
+    {
+        CloseHelper.quietClose(depth);
+        CloseHelper.quietClose(highWaterMark);
+        CloseHelper.quietClose(sojournTimeNs);
+        CloseHelper.quietClose(maxSojournTimeNs);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.agrona.UnsafeAccess.UNSAFE;
+
+/**
+ * One producer to many consumer concurrent queue that is array backed for fanning work out from a single thread to
+ * a pool of consumers.
+ * <p>
+ * The producer path is wait-free. It checks the slot at the tail has been cleared by consumers and publishes the
+ * element followed by the tail with ordered stores. Consumers claim an element by advancing the head with a CAS and
+ * then clear the slot.
+ *
+ * @param <E> type of the elements stored in the {@link java.util.Queue}.
+ */
+public class OneToManyConcurrentArrayQueue<E> extends AbstractConcurrentArrayQueue<E>
+{
+    public OneToManyConcurrentArrayQueue(final int requestedCapacity)
+    {
+        super(requestedCapacity);
+    }
+
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException("Null is not a valid element");
+        }
+
+        final int capacity = this.capacity;
+        final long currentTail = tail;
+        if (currentTail >= headCache + capacity)
+        {
+            final long currentHead = head;
+            if (currentTail >= currentHead + capacity)
+            {
+                return false;
+            }
+
+            headCache = currentHead;
+        }
+
+        final Object[] buffer = this.buffer;
+        final long elementOffset = sequenceToBufferOffset(currentTail, capacity - 1);
+        if (null != UNSAFE.getObjectVolatile(buffer, elementOffset))
+        {
+            return false;
+        }
+
+        UNSAFE.putOrderedObject(buffer, elementOffset, e);
+        UNSAFE.putOrderedLong(this, TAIL_OFFSET, currentTail + 1);
+
+        return true;
+    }
+
+    public boolean offerBatch(final E[] items, final int offset, final int length)
+    {
+        checkBatch(items, offset, length);
+
+        final int capacity = this.capacity;
+        final long currentTail = tail;
+        final long newTail = currentTail + length;
+        if (newTail > headCache + capacity)
+        {
+            final long currentHead = head;
+            if (newTail > currentHead + capacity)
+            {
+                return false;
+            }
+
+            headCache = currentHead;
+        }
+
+        final Object[] buffer = this.buffer;
+        final long mask = capacity - 1;
+        if (clearedSlotCount(buffer, mask, currentTail, length) < length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            UNSAFE.putOrderedObject(buffer, sequenceToBufferOffset(currentTail + i, mask), items[offset + i]);
+        }
+
+        UNSAFE.putOrderedLong(this, TAIL_OFFSET, newTail);
+
+        return true;
+    }
+
+    public int fill(final Supplier<E> supplier, final int limit)
+    {
+        final int capacity = this.capacity;
+        final long currentTail = tail;
+        long available = headCache + capacity - currentTail;
+        if (available < limit)
+        {
+            final long currentHead = head;
+            available = currentHead + capacity - currentTail;
+            headCache = currentHead;
+        }
+
+        final Object[] buffer = this.buffer;
+        final long mask = capacity - 1;
+        final int count = clearedSlotCount(buffer, mask, currentTail, (int)Math.min(available, limit));
+        if (count <= 0)
+        {
+            return 0;
+        }
+
+        int filled = 0;
+        try
+        {
+            while (filled < count)
+            {
+                final E e = supplier.get();
+                if (null == e)
+                {
+                    break;
+                }
+
+                UNSAFE.putOrderedObject(buffer, sequenceToBufferOffset(currentTail + filled, mask), e);
+                filled++;
+            }
+        }
+        finally
+        {
+            UNSAFE.putOrderedLong(this, TAIL_OFFSET, currentTail + filled);
+        }
+
+        return filled;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll()
+    {
+        final Object[] buffer = this.buffer;
+        final long mask = this.capacity - 1;
+
+        while (true)
+        {
+            final long currentHead = head;
+            if (currentHead >= tail)
+            {
+                return null;
+            }
+
+            final long elementOffset = sequenceToBufferOffset(currentHead, mask);
+            final Object e = UNSAFE.getObjectVolatile(buffer, elementOffset);
+
+            if (null != e && UNSAFE.compareAndSwapLong(this, HEAD_OFFSET, currentHead, currentHead + 1))
+            {
+                UNSAFE.putOrderedObject(buffer, elementOffset, null);
+
+                return (E)e;
+            }
+        }
+    }
+
+    public int drain(final Consumer<E> elementHandler)
+    {
+        return drain(elementHandler, size());
+    }
+
+    public int drain(final Consumer<E> elementHandler, final int limit)
+    {
+        int count = 0;
+
+        E e;
+        while (count < limit && null != (e = poll()))
+        {
+            elementHandler.accept(e);
+            ++count;
+        }
+
+        return count;
+    }
+
+    public int drainTo(final Collection<? super E> target, final int limit)
+    {
+        int count = 0;
+
+        while (count < limit)
+        {
+            final E e = poll();
+            if (null == e)
+            {
+                break;
+            }
+
+            target.add(e);
+            ++count;
+        }
+
+        return count;
+    }
+
+    /**
+     * Count the consecutive slots from a sequence, up to a limit, which have been cleared by consumers.
+     *
+     * @return the number of cleared slots.
+     */
+    private static int clearedSlotCount(final Object[] buffer, final long mask, final long sequence, final int limit)
+    {
+        int count = 0;
+        while (count < limit)
+        {
+            if (null != UNSAFE.getObjectVolatile(buffer, sequenceToBufferOffset(sequence + count, mask)))
+            {
+                break;
+            }
+
+            count++;
+        }
+
+        return count;
+    }
+}
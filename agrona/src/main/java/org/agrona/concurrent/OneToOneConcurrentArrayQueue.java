@@ -17,6 +17,7 @@ package org.agrona.concurrent;
 
 import java.util.Collection;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.agrona.UnsafeAccess.UNSAFE;
 
@@ -64,6 +65,79 @@ public class OneToOneConcurrentArrayQueue<E> extends AbstractConcurrentArrayQueu
         return true;
     }
 
+    public boolean offerBatch(final E[] items, final int offset, final int length)
+    {
+        checkBatch(items, offset, length);
+
+        final int capacity = this.capacity;
+        final long currentTail = tail;
+        final long newTail = currentTail + length;
+        if (newTail > headCache + capacity)
+        {
+            final long currentHead = head;
+            if (newTail > currentHead + capacity)
+            {
+                return false;
+            }
+
+            headCache = currentHead;
+        }
+
+        final Object[] buffer = this.buffer;
+        final long mask = capacity - 1;
+        for (int i = 0; i < length; i++)
+        {
+            UNSAFE.putOrderedObject(buffer, sequenceToBufferOffset(currentTail + i, mask), items[offset + i]);
+        }
+
+        UNSAFE.putOrderedLong(this, TAIL_OFFSET, newTail);
+
+        return true;
+    }
+
+    public int fill(final Supplier<E> supplier, final int limit)
+    {
+        final int capacity = this.capacity;
+        final long currentTail = tail;
+        long available = headCache + capacity - currentTail;
+        if (available < limit)
+        {
+            final long currentHead = head;
+            available = currentHead + capacity - currentTail;
+            headCache = currentHead;
+        }
+
+        final int count = (int)Math.min(available, limit);
+        if (count <= 0)
+        {
+            return 0;
+        }
+
+        final Object[] buffer = this.buffer;
+        final long mask = capacity - 1;
+        int filled = 0;
+        try
+        {
+            while (filled < count)
+            {
+                final E e = supplier.get();
+                if (null == e)
+                {
+                    break;
+                }
+
+                UNSAFE.putOrderedObject(buffer, sequenceToBufferOffset(currentTail + filled, mask), e);
+                filled++;
+            }
+        }
+        finally
+        {
+            UNSAFE.putOrderedLong(this, TAIL_OFFSET, currentTail + filled);
+        }
+
+        return filled;
+    }
+
     @SuppressWarnings("unchecked")
     public E poll()
     {
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idling strategy which parks with an exponential backoff from minParkPeriodNs to maxParkPeriodNs and never spins or
+ * yields.
+ * <p>
+ * This cooperates with the scheduler of virtual threads, see {@link VirtualThreadFactory}, as a parked virtual thread
+ * releases its carrier thread to run other virtual threads whereas a spinning one would occupy it. On a platform
+ * thread it behaves like a {@link SleepingIdleStrategy} which backs off.
+ */
+public final class ParkingIdleStrategy implements IdleStrategy
+{
+    private final long minParkPeriodNs;
+    private final long maxParkPeriodNs;
+    private long parkPeriodNs;
+
+    /**
+     * Create a strategy which parks with an exponential backoff when idle.
+     *
+     * @param minParkPeriodNs to use when initiating parking.
+     * @param maxParkPeriodNs to use when parking.
+     */
+    public ParkingIdleStrategy(final long minParkPeriodNs, final long maxParkPeriodNs)
+    {
+        if (minParkPeriodNs < 1 || minParkPeriodNs > maxParkPeriodNs)
+        {
+            throw new IllegalArgumentException(
+                "invalid park bounds: minParkPeriodNs=" + minParkPeriodNs + ", maxParkPeriodNs=" + maxParkPeriodNs);
+        }
+
+        this.minParkPeriodNs = minParkPeriodNs;
+        this.maxParkPeriodNs = maxParkPeriodNs;
+        this.parkPeriodNs = minParkPeriodNs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void idle(final int workCount)
+    {
+        if (workCount > 0)
+        {
+            reset();
+        }
+        else
+        {
+            idle();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void idle()
+    {
+        LockSupport.parkNanos(parkPeriodNs);
+        parkPeriodNs = Math.min(parkPeriodNs << 1, maxParkPeriodNs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        parkPeriodNs = minParkPeriodNs;
+    }
+
+    /**
+     * The period in nanoseconds for which the next idle will park.
+     *
+     * @return the period in nanoseconds for which the next idle will park.
+     */
+    public long parkPeriodNs()
+    {
+        return parkPeriodNs;
+    }
+}
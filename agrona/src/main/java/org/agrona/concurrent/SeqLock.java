@@ -0,0 +1,259 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.UnsafeAccess;
+import org.agrona.hints.ThreadHints;
+
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+/**
+ * Sequence lock flyweight over a region of an {@link AtomicBuffer} so a single writer can publish multi-field state
+ * which readers in this or other processes can copy out consistently without locks or allocation.
+ * <p>
+ * The region begins with a version followed by the data. The writer makes the version odd with an ordered store
+ * before writing the data and even again after. A reader copies the data between two reads of the version and
+ * retries if the version was odd or has changed.
+ * <pre>
+ *   0                   1                   2                   3
+ *   0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ *  +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ *  |                           Version                             |
+ *  |                                                               |
+ *  +---------------------------------------------------------------+
+ *  |                             Data                             ...
+ * ...                                                              |
+ *  +---------------------------------------------------------------+
+ * </pre>
+ * <b>Note:</b> Only one thread should write to a region at a time.
+ */
+public class SeqLock
+{
+    /**
+     * Offset within the region at which the version is stored.
+     */
+    public static final int VERSION_OFFSET = 0;
+
+    /**
+     * Offset within the region at which the data begins.
+     */
+    public static final int DATA_OFFSET = VERSION_OFFSET + SIZE_OF_LONG;
+
+    private AtomicBuffer buffer;
+    private int versionIndex;
+    private int dataIndex;
+    private int dataLength;
+
+    /**
+     * Construct a flyweight which must be wrapped around a region before use.
+     */
+    public SeqLock()
+    {
+    }
+
+    /**
+     * Construct a flyweight wrapped around a region of a buffer.
+     *
+     * @param buffer containing the region.
+     * @param offset at which the region begins which must be 8 byte aligned.
+     * @param length of the region including the version.
+     */
+    public SeqLock(final AtomicBuffer buffer, final int offset, final int length)
+    {
+        wrap(buffer, offset, length);
+    }
+
+    /**
+     * Wrap a region of a buffer.
+     *
+     * @param buffer containing the region.
+     * @param offset at which the region begins which must be 8 byte aligned.
+     * @param length of the region including the version.
+     */
+    public void wrap(final AtomicBuffer buffer, final int offset, final int length)
+    {
+        buffer.boundsCheck(offset, length);
+
+        this.buffer = buffer;
+        this.versionIndex = offset + VERSION_OFFSET;
+        this.dataIndex = offset + DATA_OFFSET;
+        this.dataLength = length - DATA_OFFSET;
+    }
+
+    /**
+     * The underlying buffer containing the region.
+     *
+     * @return the underlying buffer containing the region.
+     */
+    public AtomicBuffer buffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * Index in the underlying buffer at which the data begins.
+     *
+     * @return index in the underlying buffer at which the data begins.
+     */
+    public int dataIndex()
+    {
+        return dataIndex;
+    }
+
+    /**
+     * Length of the data in the region.
+     *
+     * @return length of the data in the region.
+     */
+    public int dataLength()
+    {
+        return dataLength;
+    }
+
+    /**
+     * Current version of the region which is odd while a write is in progress.
+     *
+     * @return current version of the region.
+     */
+    public long version()
+    {
+        return buffer.getLongVolatile(versionIndex);
+    }
+
+    /**
+     * Begin a write so the data can be updated directly in the {@link #buffer()} from {@link #dataIndex()}.
+     * Must be followed by {@link #endWrite()}.
+     */
+    public void beginWrite()
+    {
+        final AtomicBuffer buffer = this.buffer;
+        buffer.putLongOrdered(versionIndex, buffer.getLong(versionIndex) + 1);
+        UnsafeAccess.UNSAFE.storeFence();
+    }
+
+    /**
+     * End a write begun with {@link #beginWrite()} to publish the update to readers.
+     */
+    public void endWrite()
+    {
+        final AtomicBuffer buffer = this.buffer;
+        buffer.putLongOrdered(versionIndex, buffer.getLong(versionIndex) + 1);
+    }
+
+    /**
+     * Write data into the region as a single update.
+     *
+     * @param srcBuffer containing the data.
+     * @param srcIndex  at which the data begins.
+     * @param length    of the data which must not exceed the {@link #dataLength()}.
+     * @throws IllegalArgumentException if the length exceeds the {@link #dataLength()}.
+     */
+    public void write(final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        checkLength(length);
+        beginWrite();
+        buffer.putBytes(dataIndex, srcBuffer, srcIndex, length);
+        endWrite();
+    }
+
+    /**
+     * Begin a read by waiting for any write in progress to complete. The data can then be copied directly from
+     * the {@link #buffer()} and is consistent if {@link #validateRead(long)} returns true.
+     *
+     * @return the version to be validated after the data has been copied.
+     */
+    public long beginRead()
+    {
+        final AtomicBuffer buffer = this.buffer;
+        long version;
+        while (((version = buffer.getLongVolatile(versionIndex)) & 1) != 0)
+        {
+            ThreadHints.onSpinWait();
+        }
+
+        return version;
+    }
+
+    /**
+     * Validate that the data copied since {@link #beginRead()} is consistent.
+     *
+     * @param version returned from {@link #beginRead()}.
+     * @return true if the data is consistent or false if it must be copied again.
+     */
+    public boolean validateRead(final long version)
+    {
+        UnsafeAccess.UNSAFE.loadFence();
+
+        return buffer.getLongVolatile(versionIndex) == version;
+    }
+
+    /**
+     * Make a single attempt to copy a consistent snapshot of the data.
+     *
+     * @param dstBuffer to copy the data into.
+     * @param dstIndex  at which the data should be copied.
+     * @param length    of the data to copy which must not exceed the {@link #dataLength()}.
+     * @return the version of the data copied, or -1 if a write was in progress or the data changed during the copy.
+     */
+    public long tryRead(final MutableDirectBuffer dstBuffer, final int dstIndex, final int length)
+    {
+        checkLength(length);
+        final AtomicBuffer buffer = this.buffer;
+        final long version = buffer.getLongVolatile(versionIndex);
+        if ((version & 1) != 0)
+        {
+            return -1;
+        }
+
+        dstBuffer.putBytes(dstIndex, buffer, dataIndex, length);
+
+        return validateRead(version) ? version : -1;
+    }
+
+    /**
+     * Copy a consistent snapshot of the data, retrying while writes are in progress.
+     *
+     * @param dstBuffer to copy the data into.
+     * @param dstIndex  at which the data should be copied.
+     * @param length    of the data to copy which must not exceed the {@link #dataLength()}.
+     * @return the version of the data copied.
+     */
+    public long read(final MutableDirectBuffer dstBuffer, final int dstIndex, final int length)
+    {
+        checkLength(length);
+        while (true)
+        {
+            final long version = beginRead();
+            dstBuffer.putBytes(dstIndex, buffer, dataIndex, length);
+
+            if (validateRead(version))
+            {
+                return version;
+            }
+        }
+    }
+
+    private void checkLength(final int length)
+    {
+        if (length > dataLength)
+        {
+            throw new IllegalArgumentException(
+                "Data exceeds dataLength of " + dataLength + ", length=" + length);
+        }
+    }
+}
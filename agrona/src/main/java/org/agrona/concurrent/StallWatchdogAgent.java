@@ -0,0 +1,300 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.collections.ArrayUtil;
+import org.agrona.concurrent.errors.DistinctErrorLog;
+import org.agrona.concurrent.status.CountersReader;
+import org.agrona.concurrent.status.StatusIndicator;
+
+import java.util.Objects;
+
+/**
+ * {@link Agent} which watches heartbeat or progress counters, such as a per {@link AgentRunner} duty cycle counter,
+ * and detects when they stop advancing.
+ * <p>
+ * When a watched counter has not changed for longer than the stall threshold the stack trace of the thread
+ * associated with the counter is captured and recorded to a {@link DistinctErrorLog} as an
+ * {@link AgentStallException}, and the stall indicator for the watch, if provided, is set to {@link #STALLED}.
+ * The indicator is returned to {@link #NOT_STALLED} once the counter advances again. A stall is recorded once per
+ * episode so a long stall does not flood the log.
+ * <p>
+ * Counters are checked at most once per check interval so the watchdog can share a thread with other agents.
+ * Watches can be added and removed from any thread while the agent is running.
+ */
+public class StallWatchdogAgent implements Agent
+{
+    /**
+     * Value of a stall indicator while the watched counter is advancing.
+     */
+    public static final long NOT_STALLED = 0;
+
+    /**
+     * Value of a stall indicator while the watched counter is stalled.
+     */
+    public static final long STALLED = 1;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final Watch[] EMPTY_WATCHES = new Watch[0];
+
+    private final long stallThresholdNs;
+    private final long checkIntervalNs;
+    private long nextCheckNs = NULL_TIME;
+    private final CountersReader countersReader;
+    private final DistinctErrorLog errorLog;
+    private final NanoClock nanoClock;
+    private volatile Watch[] watches = EMPTY_WATCHES;
+
+    /**
+     * Construct a watchdog which checks watched counters on every duty cycle.
+     *
+     * @param countersReader   for reading the values of watched counters.
+     * @param errorLog         to which stalls are recorded.
+     * @param nanoClock        for measuring the time since a counter last advanced.
+     * @param stallThresholdNs time a counter can go without advancing before it is considered stalled.
+     */
+    public StallWatchdogAgent(
+        final CountersReader countersReader,
+        final DistinctErrorLog errorLog,
+        final NanoClock nanoClock,
+        final long stallThresholdNs)
+    {
+        this(countersReader, errorLog, nanoClock, stallThresholdNs, 0);
+    }
+
+    /**
+     * Construct a watchdog which checks watched counters at most once per check interval.
+     *
+     * @param countersReader   for reading the values of watched counters.
+     * @param errorLog         to which stalls are recorded.
+     * @param nanoClock        for measuring the time since a counter last advanced.
+     * @param stallThresholdNs time a counter can go without advancing before it is considered stalled.
+     * @param checkIntervalNs  minimum time between checks of the watched counters.
+     */
+    public StallWatchdogAgent(
+        final CountersReader countersReader,
+        final DistinctErrorLog errorLog,
+        final NanoClock nanoClock,
+        final long stallThresholdNs,
+        final long checkIntervalNs)
+    {
+        Objects.requireNonNull(countersReader, "countersReader");
+        Objects.requireNonNull(errorLog, "errorLog");
+        Objects.requireNonNull(nanoClock, "nanoClock");
+
+        if (stallThresholdNs <= 0)
+        {
+            throw new IllegalArgumentException(
+                "stallThresholdNs must be positive: stallThresholdNs=" + stallThresholdNs);
+        }
+
+        if (checkIntervalNs < 0)
+        {
+            throw new IllegalArgumentException(
+                "checkIntervalNs must not be negative: checkIntervalNs=" + checkIntervalNs);
+        }
+
+        this.countersReader = countersReader;
+        this.errorLog = errorLog;
+        this.nanoClock = nanoClock;
+        this.stallThresholdNs = stallThresholdNs;
+        this.checkIntervalNs = checkIntervalNs;
+    }
+
+    /**
+     * Watch a counter for progress with the thread which advances it.
+     *
+     * @param counterId      of the heartbeat or progress counter to watch.
+     * @param thread         which advances the counter and whose stack trace is captured on a stall.
+     * @param stallIndicator to be set to {@link #STALLED} while the counter is stalled, or null if not required.
+     * @return true if the watch was added or false if the counter is already watched.
+     */
+    public synchronized boolean watch(final int counterId, final Thread thread, final StatusIndicator stallIndicator)
+    {
+        Objects.requireNonNull(thread, "thread");
+
+        if (null != find(watches, counterId))
+        {
+            return false;
+        }
+
+        watches = ArrayUtil.add(watches, new Watch(counterId, thread, stallIndicator));
+
+        return true;
+    }
+
+    /**
+     * Stop watching a counter.
+     *
+     * @param counterId of the counter to stop watching.
+     * @return true if the counter was watched otherwise false.
+     */
+    public synchronized boolean unwatch(final int counterId)
+    {
+        final Watch watch = find(watches, counterId);
+        if (null == watch)
+        {
+            return false;
+        }
+
+        watches = ArrayUtil.remove(watches, watch);
+
+        return true;
+    }
+
+    /**
+     * Is the counter currently considered stalled.
+     *
+     * @param counterId of the watched counter.
+     * @return true if the counter is watched and stalled otherwise false.
+     */
+    public boolean isStalled(final int counterId)
+    {
+        final Watch watch = find(watches, counterId);
+
+        return null != watch && watch.isStalled;
+    }
+
+    /**
+     * Number of counters currently being watched.
+     *
+     * @return the number of counters currently being watched.
+     */
+    public int watchCount()
+    {
+        return watches.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int doWork()
+    {
+        final long nowNs = nanoClock.nanoTime();
+        if (NULL_TIME != nextCheckNs && nowNs - nextCheckNs < 0)
+        {
+            return 0;
+        }
+
+        nextCheckNs = nowNs + checkIntervalNs;
+
+        int workCount = 0;
+        for (final Watch watch : watches)
+        {
+            workCount += check(watch, nowNs);
+        }
+
+        return workCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void onClose()
+    {
+        for (final Watch watch : watches)
+        {
+            if (watch.isStalled && null != watch.stallIndicator)
+            {
+                watch.stallIndicator.setOrdered(NOT_STALLED);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String roleName()
+    {
+        return "stall-watchdog";
+    }
+
+    private int check(final Watch watch, final long nowNs)
+    {
+        final long value = countersReader.getCounterValue(watch.counterId);
+
+        if (NULL_TIME == watch.lastProgressNs || value != watch.lastValue)
+        {
+            watch.lastValue = value;
+            watch.lastProgressNs = nowNs;
+
+            if (watch.isStalled)
+            {
+                watch.isStalled = false;
+                if (null != watch.stallIndicator)
+                {
+                    watch.stallIndicator.setOrdered(NOT_STALLED);
+                }
+
+                return 1;
+            }
+
+            return 0;
+        }
+
+        final long stalledNs = nowNs - watch.lastProgressNs;
+        if (!watch.isStalled && stalledNs >= stallThresholdNs && watch.thread.isAlive())
+        {
+            watch.isStalled = true;
+            errorLog.record(new AgentStallException(
+                "counter stalled: counterId=" + watch.counterId +
+                " value=" + value +
+                " stalledNs=" + stalledNs +
+                " thread=" + watch.thread.getName() +
+                " state=" + watch.thread.getState(),
+                watch.thread.getStackTrace()));
+
+            if (null != watch.stallIndicator)
+            {
+                watch.stallIndicator.setOrdered(STALLED);
+            }
+
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private static Watch find(final Watch[] watches, final int counterId)
+    {
+        for (final Watch watch : watches)
+        {
+            if (counterId == watch.counterId)
+            {
+                return watch;
+            }
+        }
+
+        return null;
+    }
+
+    static final class Watch
+    {
+        final int counterId;
+        final Thread thread;
+        final StatusIndicator stallIndicator;
+        long lastValue;
+        long lastProgressNs = NULL_TIME;
+        volatile boolean isStalled;
+
+        Watch(final int counterId, final Thread thread, final StatusIndicator stallIndicator)
+        {
+            this.counterId = counterId;
+            this.thread = thread;
+            this.stallIndicator = stallIndicator;
+        }
+    }
+}
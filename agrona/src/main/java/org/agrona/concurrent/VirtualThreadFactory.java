@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link ThreadFactory} which creates virtual threads when run on a JDK which supports them and otherwise delegates
+ * to a fallback factory for platform threads.
+ * <p>
+ * The library is compiled for Java 8 so virtual thread support is discovered via reflection once when this class is
+ * loaded. It can be used with {@link AgentRunner#startOnThread(AgentRunner, ThreadFactory)} to run agents with a low
+ * duty cycle on virtual threads in combination with {@link ParkingIdleStrategy} so idle agents release their carrier
+ * thread.
+ */
+public class VirtualThreadFactory implements ThreadFactory
+{
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY = findVirtualThreadFactory();
+
+    private final ThreadFactory fallbackFactory;
+
+    /**
+     * Create a factory which falls back to {@link Thread#Thread(Runnable)} when virtual threads are not supported.
+     */
+    public VirtualThreadFactory()
+    {
+        this(Thread::new);
+    }
+
+    /**
+     * Create a factory which falls back to the provided factory when virtual threads are not supported.
+     *
+     * @param fallbackFactory to create threads when virtual threads are not supported.
+     */
+    public VirtualThreadFactory(final ThreadFactory fallbackFactory)
+    {
+        Objects.requireNonNull(fallbackFactory, "fallbackFactory");
+
+        this.fallbackFactory = fallbackFactory;
+    }
+
+    /**
+     * Are virtual threads supported by the running JDK?
+     *
+     * @return true if virtual threads are supported by the running JDK otherwise false.
+     */
+    public static boolean isSupported()
+    {
+        return null != VIRTUAL_THREAD_FACTORY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Thread newThread(final Runnable runnable)
+    {
+        return null != VIRTUAL_THREAD_FACTORY ?
+            VIRTUAL_THREAD_FACTORY.newThread(runnable) : fallbackFactory.newThread(runnable);
+    }
+
+    private static ThreadFactory findVirtualThreadFactory()
+    {
+        try
+        {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Method factoryMethod = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+
+            return (ThreadFactory)factoryMethod.invoke(builder);
+        }
+        catch (final Throwable ignore)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,541 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.BitUtil;
+import org.agrona.ErrorHandler;
+import org.agrona.collections.ArrayUtil;
+import org.agrona.concurrent.status.AtomicCounter;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Scheduler which runs many {@link Agent}s on a smaller number of threads so agents with a low duty cycle do not
+ * each need a thread of their own.
+ * <p>
+ * Each thread has its own run queue and {@link IdleStrategy}. A thread repeatedly passes over the agents in its run
+ * queue so a busy agent stays on the same thread for cache affinity. An agent which does no work for a number of
+ * consecutive duty cycles is parked in a queue shared by all threads. Each pass over a run queue is followed by a
+ * duty cycle of one parked agent so parked agents are serviced at a lower rate, and a parked agent which does work is
+ * adopted by the thread which found it. A thread which finds no work will steal an agent from another thread that has
+ * more agents than itself.
+ * <p>
+ * Queues are sized with headroom of twice {@link #maxAgents()} so an agent can always be queued. Should an offer fail
+ * transiently, while another thread has claimed but not yet released a slot, the agent is offered to the other
+ * queues in turn until one accepts it so it is never dropped.
+ * <p>
+ * {@link Agent#onStart()} and {@link Agent#onClose()} are called on the thread that runs the agent, except for agents
+ * still present when the scheduler is closed which have {@link Agent#onClose()} called on the closing thread.
+ * <p>
+ * <b>Note:</b> This class is threadsafe for add and remove. An instance should only be started once and then
+ * discarded, it should not be reused.
+ */
+public class WorkStealingAgentScheduler implements AutoCloseable
+{
+    /**
+     * Default number of consecutive duty cycles without work after which an agent is parked.
+     */
+    public static final int DEFAULT_PARK_THRESHOLD = 1000;
+
+    private static final ScheduledAgent[] EMPTY_AGENTS = new ScheduledAgent[0];
+
+    private volatile boolean isRunning = true;
+    private boolean isStarted = false;
+    private boolean isClosed = false;
+    private int nextWorkerIndex = 0;
+    private final int maxAgents;
+    private final int parkThreshold;
+    private final String roleName;
+    private final ErrorHandler errorHandler;
+    private final AtomicCounter errorCounter;
+    private final Worker[] workers;
+    private final Thread[] threads;
+    private final AtomicInteger queuedAgentCount = new AtomicInteger();
+    private final ManyToManyConcurrentArrayQueue<ScheduledAgent> parkedAgents;
+    private volatile ScheduledAgent[] agents = EMPTY_AGENTS;
+
+    /**
+     * Create a scheduler with the {@link #DEFAULT_PARK_THRESHOLD}.
+     *
+     * @param roleName             used to name the threads.
+     * @param threadCount          number of threads on which the agents are run.
+     * @param maxAgents            maximum number of agents which can be scheduled at the same time.
+     * @param idleStrategySupplier to provide an {@link IdleStrategy} for each thread.
+     * @param errorHandler         to be called if an {@link Throwable} is encountered.
+     * @param errorCounter         to be incremented each time an exception is encountered. This may be null.
+     */
+    public WorkStealingAgentScheduler(
+        final String roleName,
+        final int threadCount,
+        final int maxAgents,
+        final Supplier<IdleStrategy> idleStrategySupplier,
+        final ErrorHandler errorHandler,
+        final AtomicCounter errorCounter)
+    {
+        this(
+            roleName, threadCount, maxAgents, DEFAULT_PARK_THRESHOLD, idleStrategySupplier, errorHandler, errorCounter);
+    }
+
+    /**
+     * Create a scheduler.
+     *
+     * @param roleName             used to name the threads.
+     * @param threadCount          number of threads on which the agents are run.
+     * @param maxAgents            maximum number of agents which can be scheduled at the same time.
+     * @param parkThreshold        number of consecutive duty cycles without work after which an agent is parked.
+     * @param idleStrategySupplier to provide an {@link IdleStrategy} for each thread.
+     * @param errorHandler         to be called if an {@link Throwable} is encountered.
+     * @param errorCounter         to be incremented each time an exception is encountered. This may be null.
+     */
+    public WorkStealingAgentScheduler(
+        final String roleName,
+        final int threadCount,
+        final int maxAgents,
+        final int parkThreshold,
+        final Supplier<IdleStrategy> idleStrategySupplier,
+        final ErrorHandler errorHandler,
+        final AtomicCounter errorCounter)
+    {
+        Objects.requireNonNull(idleStrategySupplier, "idleStrategySupplier");
+        Objects.requireNonNull(errorHandler, "errorHandler");
+
+        if (threadCount < 1)
+        {
+            throw new IllegalArgumentException("threadCount must be positive: threadCount=" + threadCount);
+        }
+
+        if (maxAgents < 1)
+        {
+            throw new IllegalArgumentException("maxAgents must be positive: maxAgents=" + maxAgents);
+        }
+
+        this.roleName = roleName;
+        this.maxAgents = maxAgents;
+        this.parkThreshold = parkThreshold;
+        this.errorHandler = errorHandler;
+        this.errorCounter = errorCounter;
+
+        final int queueCapacity = BitUtil.findNextPositivePowerOfTwo(maxAgents << 1);
+        parkedAgents = new ManyToManyConcurrentArrayQueue<>(queueCapacity);
+        workers = new Worker[threadCount];
+        threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++)
+        {
+            workers[i] = new Worker(i, idleStrategySupplier.get(), new ManyToManyConcurrentArrayQueue<>(queueCapacity));
+        }
+    }
+
+    /**
+     * Start the threads on which agents are run using {@link Thread#Thread(Runnable)}.
+     */
+    public void start()
+    {
+        start(Thread::new);
+    }
+
+    /**
+     * Start the threads on which agents are run. The factory can be used to set thread affinity.
+     *
+     * @param threadFactory the factory to use to create the threads.
+     */
+    public synchronized void start(final ThreadFactory threadFactory)
+    {
+        if (isStarted || isClosed)
+        {
+            throw new IllegalStateException("Scheduler can only be started once");
+        }
+
+        isStarted = true;
+        for (int i = 0; i < workers.length; i++)
+        {
+            final Thread thread = threadFactory.newThread(workers[i]);
+            thread.setName(roleName + "-" + i);
+            threads[i] = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Add an {@link Agent} to be scheduled. The agent is placed on the run queue of the next thread in turn and
+     * {@link Agent#onStart()} is called on that thread before its first duty cycle.
+     *
+     * @param agent to be scheduled.
+     * @return true if the agent has been added or false if {@link #maxAgents()} are already scheduled or are still
+     * awaiting removal.
+     * @throws IllegalStateException if the scheduler is closed.
+     */
+    public synchronized boolean add(final Agent agent)
+    {
+        Objects.requireNonNull(agent, "Agent cannot be null");
+
+        if (isClosed)
+        {
+            throw new IllegalStateException("Add called when closed");
+        }
+
+        if (queuedAgentCount.get() >= maxAgents)
+        {
+            return false;
+        }
+
+        queuedAgentCount.incrementAndGet();
+        final ScheduledAgent scheduledAgent = new ScheduledAgent(agent);
+        agents = ArrayUtil.add(agents, scheduledAgent);
+
+        final int workerIndex = nextWorkerIndex;
+        nextWorkerIndex = ++nextWorkerIndex == workers.length ? 0 : nextWorkerIndex;
+        enqueue(workers[workerIndex].runQueue, workerIndex, scheduledAgent);
+
+        return true;
+    }
+
+    /**
+     * Remove an {@link Agent} by identity. {@link Agent#onClose()} will be called on the thread which next encounters
+     * the agent.
+     *
+     * @param agent to be removed.
+     * @return true if the agent was found and will be removed otherwise false.
+     */
+    public synchronized boolean remove(final Agent agent)
+    {
+        for (final ScheduledAgent scheduledAgent : agents)
+        {
+            if (scheduledAgent.agent == agent)
+            {
+                scheduledAgent.isRemoveRequested = true;
+                agents = ArrayUtil.remove(agents, scheduledAgent);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * The number of agents which are scheduled.
+     *
+     * @return the number of agents which are scheduled.
+     */
+    public int agentCount()
+    {
+        return agents.length;
+    }
+
+    /**
+     * The maximum number of agents which can be scheduled at the same time.
+     *
+     * @return the maximum number of agents which can be scheduled at the same time.
+     */
+    public int maxAgents()
+    {
+        return maxAgents;
+    }
+
+    /**
+     * The number of threads on which agents are run.
+     *
+     * @return the number of threads on which agents are run.
+     */
+    public int threadCount()
+    {
+        return workers.length;
+    }
+
+    /**
+     * Stop the threads, waiting for them to exit, and then close the agents which are still scheduled.
+     */
+    public void close()
+    {
+        synchronized (this)
+        {
+            if (isClosed)
+            {
+                return;
+            }
+
+            isClosed = true;
+            isRunning = false;
+        }
+
+        for (final Thread thread : threads)
+        {
+            if (null != thread)
+            {
+                try
+                {
+                    thread.join();
+                }
+                catch (final InterruptedException ignore)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        for (final Worker worker : workers)
+        {
+            worker.runQueue.drain(this::closeAgent);
+        }
+
+        parkedAgents.drain(this::closeAgent);
+        agents = EMPTY_AGENTS;
+    }
+
+    private void closeAgent(final ScheduledAgent scheduledAgent)
+    {
+        if (scheduledAgent.isStarted)
+        {
+            try
+            {
+                scheduledAgent.agent.onClose();
+            }
+            catch (final Throwable throwable)
+            {
+                handleError(throwable);
+            }
+        }
+    }
+
+    private void handleError(final Throwable throwable)
+    {
+        if (null != errorCounter)
+        {
+            errorCounter.increment();
+        }
+
+        errorHandler.onError(throwable);
+    }
+
+    /**
+     * Offer an agent to a queue falling back to the run queues, starting with the given worker, and then the parked
+     * queue until one accepts it.
+     */
+    private void enqueue(
+        final ManyToManyConcurrentArrayQueue<ScheduledAgent> queue,
+        final int workerIndex,
+        final ScheduledAgent scheduledAgent)
+    {
+        final Worker[] workers = this.workers;
+        while (!queue.offer(scheduledAgent))
+        {
+            for (int i = 0; i < workers.length; i++)
+            {
+                if (workers[(workerIndex + i) % workers.length].runQueue.offer(scheduledAgent))
+                {
+                    return;
+                }
+            }
+
+            if (parkedAgents.offer(scheduledAgent))
+            {
+                return;
+            }
+
+            Thread.yield();
+        }
+    }
+
+    private void removeTerminated(final ScheduledAgent scheduledAgent)
+    {
+        queuedAgentCount.decrementAndGet();
+        synchronized (this)
+        {
+            agents = ArrayUtil.remove(agents, scheduledAgent);
+        }
+
+        closeAgent(scheduledAgent);
+    }
+
+    static final class ScheduledAgent
+    {
+        boolean isStarted;
+        int idleCycles;
+        volatile boolean isRemoveRequested;
+        final Agent agent;
+
+        ScheduledAgent(final Agent agent)
+        {
+            this.agent = agent;
+        }
+    }
+
+    final class Worker implements Runnable
+    {
+        private final int index;
+        private final IdleStrategy idleStrategy;
+        private final ManyToManyConcurrentArrayQueue<ScheduledAgent> runQueue;
+
+        Worker(
+            final int index,
+            final IdleStrategy idleStrategy,
+            final ManyToManyConcurrentArrayQueue<ScheduledAgent> runQueue)
+        {
+            this.index = index;
+            this.idleStrategy = idleStrategy;
+            this.runQueue = runQueue;
+        }
+
+        public void run()
+        {
+            while (isRunning)
+            {
+                int workCount = runQueuePass() + runParked();
+
+                if (0 == workCount)
+                {
+                    workCount = steal();
+                }
+
+                idleStrategy.idle(workCount);
+            }
+        }
+
+        private int runQueuePass()
+        {
+            int workCount = 0;
+
+            for (int i = runQueue.size(); i > 0; i--)
+            {
+                final ScheduledAgent scheduledAgent = runQueue.poll();
+                if (null == scheduledAgent)
+                {
+                    break;
+                }
+
+                final int work = doWork(scheduledAgent);
+                if (work >= 0)
+                {
+                    workCount += work;
+                    if (scheduledAgent.idleCycles >= parkThreshold)
+                    {
+                        enqueue(parkedAgents, index, scheduledAgent);
+                    }
+                    else
+                    {
+                        enqueue(runQueue, index, scheduledAgent);
+                    }
+                }
+            }
+
+            return workCount;
+        }
+
+        private int runParked()
+        {
+            final ScheduledAgent scheduledAgent = parkedAgents.poll();
+            if (null == scheduledAgent)
+            {
+                return 0;
+            }
+
+            final int workCount = doWork(scheduledAgent);
+            if (workCount > 0)
+            {
+                enqueue(runQueue, index, scheduledAgent);
+            }
+            else if (0 == workCount)
+            {
+                enqueue(parkedAgents, index, scheduledAgent);
+            }
+
+            return Math.max(workCount, 0);
+        }
+
+        private int steal()
+        {
+            final int size = runQueue.size();
+            for (int i = 1; i < workers.length; i++)
+            {
+                final Worker victim = workers[(index + i) % workers.length];
+                if (victim.runQueue.size() > size + 1)
+                {
+                    final ScheduledAgent scheduledAgent = victim.runQueue.poll();
+                    if (null != scheduledAgent)
+                    {
+                        final int workCount = doWork(scheduledAgent);
+                        if (workCount >= 0)
+                        {
+                            enqueue(runQueue, index, scheduledAgent);
+                        }
+
+                        return Math.max(workCount, 0);
+                    }
+                }
+            }
+
+            return 0;
+        }
+
+        /**
+         * Run a duty cycle of an agent, starting it if necessary.
+         *
+         * @return the work count or -1 if the agent has been removed and should no longer be scheduled.
+         */
+        private int doWork(final ScheduledAgent scheduledAgent)
+        {
+            if (scheduledAgent.isRemoveRequested)
+            {
+                queuedAgentCount.decrementAndGet();
+                closeAgent(scheduledAgent);
+                return -1;
+            }
+
+            final Agent agent = scheduledAgent.agent;
+            if (!scheduledAgent.isStarted)
+            {
+                scheduledAgent.isStarted = true;
+                try
+                {
+                    agent.onStart();
+                }
+                catch (final Throwable throwable)
+                {
+                    handleError(throwable);
+                    removeTerminated(scheduledAgent);
+                    return -1;
+                }
+            }
+
+            int workCount = 0;
+            try
+            {
+                workCount = agent.doWork();
+            }
+            catch (final AgentTerminationException ex)
+            {
+                handleError(ex);
+                removeTerminated(scheduledAgent);
+                return -1;
+            }
+            catch (final Throwable throwable)
+            {
+                if (throwable instanceof InterruptedException)
+                {
+                    Thread.interrupted();
+                }
+
+                handleError(throwable);
+            }
+
+            scheduledAgent.idleCycles = workCount > 0 ? 0 : scheduledAgent.idleCycles + 1;
+
+            return workCount;
+        }
+    }
+}
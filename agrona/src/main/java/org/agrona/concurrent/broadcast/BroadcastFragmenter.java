@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.broadcast;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.MessageFragmentAssembler;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import static org.agrona.concurrent.MessageFragmentAssembler.*;
+import static org.agrona.concurrent.broadcast.RecordDescriptor.checkTypeId;
+
+/**
+ * Transmits messages via a {@link BroadcastTransmitter} splitting those greater than
+ * {@link BroadcastTransmitter#maxMsgLength()} into fragments which can be reassembled by a
+ * {@link MessageFragmentAssembler} given to a {@link CopyBroadcastReceiver}.
+ * <p>
+ * Messages which fit are transmitted directly. Each fragmented message is given the next sequence number so
+ * receivers which are lapped part way through a fragmented message detect that the next fragment they see does not
+ * continue it and drop the message. Messages should be much smaller than the capacity of the broadcast buffer.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe.
+ */
+public class BroadcastFragmenter
+{
+    private final BroadcastTransmitter transmitter;
+    private final int maxMsgLength;
+    private final int maxPayloadLength;
+    private final UnsafeBuffer fragmentBuffer;
+    private int sequence;
+
+    /**
+     * Construct a fragmenter for transmitting via a given transmitter.
+     *
+     * @param transmitter via which messages will be transmitted.
+     */
+    public BroadcastFragmenter(final BroadcastTransmitter transmitter)
+    {
+        this.transmitter = transmitter;
+        this.maxMsgLength = transmitter.maxMsgLength();
+        this.maxPayloadLength = maxMsgLength - FRAGMENT_HEADER_LENGTH;
+        this.fragmentBuffer = new UnsafeBuffer(new byte[maxMsgLength]);
+    }
+
+    /**
+     * The transmitter via which messages are transmitted.
+     *
+     * @return the transmitter via which messages are transmitted.
+     */
+    public BroadcastTransmitter transmitter()
+    {
+        return transmitter;
+    }
+
+    /**
+     * Transmit a message to {@link BroadcastReceiver}s via the broadcast buffer which will be fragmented if necessary.
+     *
+     * @param msgTypeId type of the message to be transmitted.
+     * @param srcBuffer containing the encoded message to be transmitted.
+     * @param srcIndex  srcIndex in the source buffer at which the encoded message begins.
+     * @param length    in bytes of the encoded message.
+     * @throws IllegalArgumentException of the msgTypeId is not valid.
+     */
+    public void transmit(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        if (length <= maxMsgLength)
+        {
+            transmitter.transmit(msgTypeId, srcBuffer, srcIndex, length);
+        }
+        else
+        {
+            transmitFragmented(msgTypeId, srcBuffer, srcIndex, length);
+        }
+    }
+
+    private void transmitFragmented(
+        final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        checkTypeId(msgTypeId);
+
+        final UnsafeBuffer fragmentBuffer = this.fragmentBuffer;
+        fragmentBuffer.putInt(MSG_TYPE_ID_OFFSET, msgTypeId);
+        fragmentBuffer.putInt(SEQUENCE_OFFSET, ++sequence);
+
+        int offset = 0;
+        while (offset < length)
+        {
+            final int payloadLength = Math.min(length - offset, maxPayloadLength);
+            int flags = 0;
+            if (0 == offset)
+            {
+                flags |= BEGIN_FLAG;
+            }
+            if (offset + payloadLength == length)
+            {
+                flags |= END_FLAG;
+            }
+
+            fragmentBuffer.putInt(FLAGS_OFFSET, flags);
+            fragmentBuffer.putInt(MESSAGE_INDEX_OFFSET, offset);
+            fragmentBuffer.putBytes(FRAGMENT_HEADER_LENGTH, srcBuffer, srcIndex + offset, payloadLength);
+            transmitter.transmit(FRAGMENT_MSG_TYPE_ID, fragmentBuffer, 0, FRAGMENT_HEADER_LENGTH + payloadLength);
+
+            offset += payloadLength;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.agrona.concurrent.broadcast;
 
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.status.Position;
 
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -30,7 +31,8 @@ import static org.agrona.concurrent.broadcast.RecordDescriptor.*;
  * a transmission stream at any point by consuming the latest message at the point of joining and forward.
  * <p>
  * If a Receiver cannot keep up with the transmission stream then loss will be experienced. Loss is not an
- * error condition.
+ * error condition. Loss can be avoided by a receiver publishing its {@link Position} which is registered with the
+ * transmitter via {@link BroadcastTransmitter#addReceiverPosition(org.agrona.concurrent.status.ReadablePosition)}.
  * <p>
  * <b>Note:</b> Each Receiver is not threadsafe but there can be zero or many receivers to a transmission stream.
  */
@@ -46,6 +48,7 @@ public class BroadcastReceiver
 
     private final int latestCounterIndex;
     private final AtomicBuffer buffer;
+    private final Position position;
     private final AtomicLong lappedCount = new AtomicLong();
 
     /**
@@ -61,6 +64,7 @@ public class BroadcastReceiver
     {
         this.buffer = buffer;
         this.capacity = buffer.capacity() - TRAILER_LENGTH;
+        this.position = null;
 
         checkCapacity(capacity);
         buffer.verifyAlignment();
@@ -70,6 +74,34 @@ public class BroadcastReceiver
         this.latestCounterIndex = capacity + LATEST_COUNTER_OFFSET;
     }
 
+    /**
+     * Construct a new broadcast receiver which publishes its position so that it can be registered with a
+     * {@link BroadcastTransmitter} for lossless delivery. The receiver joins the transmission stream at the current
+     * tail and the position is set accordingly.
+     *
+     * @param buffer   via which messages will be exchanged.
+     * @param position to which the receiver publishes the position up to which it has consumed.
+     * @throws IllegalStateException if the buffer capacity is not a power of 2
+     *                               plus {@link BroadcastBufferDescriptor#TRAILER_LENGTH} in capacity.
+     */
+    public BroadcastReceiver(final AtomicBuffer buffer, final Position position)
+    {
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() - TRAILER_LENGTH;
+        this.position = position;
+
+        checkCapacity(capacity);
+        buffer.verifyAlignment();
+
+        this.tailIntentCounterIndex = capacity + TAIL_INTENT_COUNTER_OFFSET;
+        this.tailCounterIndex = capacity + TAIL_COUNTER_OFFSET;
+        this.latestCounterIndex = capacity + LATEST_COUNTER_OFFSET;
+
+        cursor = buffer.getLongVolatile(tailCounterIndex);
+        nextRecord = cursor;
+        position.setOrdered(cursor);
+    }
+
     /**
      * Get the capacity of the underlying broadcast buffer.
      *
@@ -172,6 +204,11 @@ public class BroadcastReceiver
 
             this.recordOffset = recordOffset;
             isAvailable = true;
+
+            if (null != position)
+            {
+                position.setOrdered(this.cursor);
+            }
         }
 
         return isAvailable;
@@ -192,6 +229,16 @@ public class BroadcastReceiver
         return validate(cursor);
     }
 
+    /**
+     * Skip forward to the latest record after the current record has been found to be overwritten, as the position
+     * of the next record was computed from a length which may have been overwritten too, and count it as a lap.
+     */
+    void skipToLatest()
+    {
+        lappedCount.lazySet(lappedCount.get() + 1);
+        nextRecord = buffer.getLongVolatile(latestCounterIndex);
+    }
+
     private boolean validate(final long cursor)
     {
         return (cursor + capacity) > buffer.getLongVolatile(tailIntentCounterIndex);
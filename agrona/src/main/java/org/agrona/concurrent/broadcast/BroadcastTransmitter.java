@@ -18,7 +18,9 @@ package org.agrona.concurrent.broadcast;
 import org.agrona.BitUtil;
 import org.agrona.DirectBuffer;
 import org.agrona.UnsafeAccess;
+import org.agrona.collections.ArrayUtil;
 import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.status.ReadablePosition;
 
 import static org.agrona.concurrent.broadcast.BroadcastBufferDescriptor.*;
 import static org.agrona.concurrent.broadcast.RecordDescriptor.*;
@@ -26,10 +28,19 @@ import static org.agrona.concurrent.broadcast.RecordDescriptor.*;
 /**
  * Transmit messages via an underlying broadcast buffer to zero or more {@link BroadcastReceiver}s.
  * <p>
+ * Messages sent with {@link #transmit(int, DirectBuffer, int, int)} may overwrite messages which receivers have yet
+ * to consume. For lossless delivery receivers can publish their positions which are registered via
+ * {@link #addReceiverPosition(ReadablePosition)}, then {@link #offer(int, DirectBuffer, int, int)} will apply
+ * back-pressure rather than overrun the slowest registered receiver.
+ * <p>
  * <b>Note:</b> This class is not threadsafe. Only one transmitter is allowed per broadcast buffer.
  */
 public class BroadcastTransmitter
 {
+    private static final ReadablePosition[] EMPTY_POSITIONS = new ReadablePosition[0];
+
+    private ReadablePosition[] receiverPositions = EMPTY_POSITIONS;
+    private long receiverLimit = Long.MAX_VALUE;
     private final AtomicBuffer buffer;
     private final int capacity;
     private final int maxMsgLength;
@@ -95,6 +106,88 @@ public class BroadcastTransmitter
         checkTypeId(msgTypeId);
         checkMessageLength(length);
 
+        write(msgTypeId, srcBuffer, srcIndex, length);
+    }
+
+    /**
+     * Offer a message to {@link BroadcastReceiver}s via the broadcast buffer without overrunning the slowest of the
+     * registered receiver positions.
+     * <p>
+     * If no receiver positions are registered this behaves as {@link #transmit(int, DirectBuffer, int, int)}.
+     *
+     * @param msgTypeId type of the message to be transmitted.
+     * @param srcBuffer containing the encoded message to be transmitted.
+     * @param srcIndex  srcIndex in the source buffer at which the encoded message begins.
+     * @param length    in bytes of the encoded message.
+     * @return true if the message was transmitted or false if back-pressured by the slowest receiver.
+     * @throws IllegalArgumentException of the msgTypeId is not valid,
+     *                                  or if the message length is greater than {@link #maxMsgLength()}.
+     */
+    public boolean offer(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        checkTypeId(msgTypeId);
+        checkMessageLength(length);
+
+        final long currentTail = buffer.getLong(tailCounterIndex);
+        final int recordOffset = (int)currentTail & (capacity - 1);
+        final int recordLengthAligned = BitUtil.align(HEADER_LENGTH + length, RECORD_ALIGNMENT);
+        final int toEndOfBuffer = capacity - recordOffset;
+        final int padding = toEndOfBuffer < recordLengthAligned ? toEndOfBuffer : 0;
+        final long newTail = currentTail + padding + recordLengthAligned;
+
+        if (newTail >= receiverLimit)
+        {
+            receiverLimit = computeReceiverLimit();
+            if (newTail >= receiverLimit)
+            {
+                return false;
+            }
+        }
+
+        write(msgTypeId, srcBuffer, srcIndex, length);
+
+        return true;
+    }
+
+    /**
+     * Register the position of a receiver which {@link #offer(int, DirectBuffer, int, int)} must not overrun.
+     * <p>
+     * The position should be at or ahead of the consumed position of the receiver in the buffer, such as the
+     * position of a {@link BroadcastReceiver#BroadcastReceiver(AtomicBuffer, org.agrona.concurrent.status.Position)},
+     * before it is registered.
+     *
+     * @param position published by the receiver.
+     */
+    public void addReceiverPosition(final ReadablePosition position)
+    {
+        receiverPositions = ArrayUtil.add(receiverPositions, position);
+        receiverLimit = computeReceiverLimit();
+    }
+
+    /**
+     * Remove the position of a receiver which is no longer consuming so it does not hold back the transmitter.
+     *
+     * @param position previously registered with {@link #addReceiverPosition(ReadablePosition)}.
+     */
+    public void removeReceiverPosition(final ReadablePosition position)
+    {
+        receiverPositions = ArrayUtil.remove(receiverPositions, position);
+        receiverLimit = computeReceiverLimit();
+    }
+
+    private long computeReceiverLimit()
+    {
+        long limit = Long.MAX_VALUE;
+        for (final ReadablePosition position : receiverPositions)
+        {
+            limit = Math.min(limit, position.getVolatile() + capacity);
+        }
+
+        return limit;
+    }
+
+    private void write(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
         final AtomicBuffer buffer = this.buffer;
         long currentTail = buffer.getLong(tailCounterIndex);
         int recordOffset = (int)currentTail & (capacity - 1);
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.broadcast;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
+
+import static org.agrona.concurrent.broadcast.BroadcastBufferDescriptor.*;
+import static org.agrona.concurrent.broadcast.RecordDescriptor.*;
+
+/**
+ * Transmit messages from many producer threads via an underlying broadcast buffer to zero or more
+ * {@link BroadcastReceiver}s. The buffer format is the same as for a {@link BroadcastTransmitter}.
+ * <p>
+ * Producers claim space by atomically advancing the tail intent counter, write their record, and then commit in the
+ * order of their claims by advancing the tail counter so receivers only ever see complete records. A producer waits
+ * for earlier claims to commit, therefore a producer thread which dies mid transmission will block the others.
+ * <p>
+ * <b>Note:</b> This class is threadsafe for many producers but should not be mixed with a
+ * {@link BroadcastTransmitter} on the same buffer.
+ */
+public class ConcurrentBroadcastTransmitter
+{
+    private final AtomicBuffer buffer;
+    private final int capacity;
+    private final int maxMsgLength;
+    private final int tailIntentCountIndex;
+    private final int tailCounterIndex;
+    private final int latestCounterIndex;
+
+    /**
+     * Construct a new broadcast transmitter based on an underlying {@link org.agrona.concurrent.AtomicBuffer}.
+     * The underlying buffer must a power of 2 in size plus sufficient space
+     * for the {@link BroadcastBufferDescriptor#TRAILER_LENGTH}.
+     *
+     * @param buffer via which messages will be exchanged.
+     * @throws IllegalStateException if the buffer capacity is not a power of 2
+     *                               plus {@link BroadcastBufferDescriptor#TRAILER_LENGTH} in capacity.
+     */
+    public ConcurrentBroadcastTransmitter(final AtomicBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() - TRAILER_LENGTH;
+
+        checkCapacity(capacity);
+        buffer.verifyAlignment();
+
+        this.maxMsgLength = calculateMaxMessageLength(capacity);
+        this.tailIntentCountIndex = capacity + TAIL_INTENT_COUNTER_OFFSET;
+        this.tailCounterIndex = capacity + TAIL_COUNTER_OFFSET;
+        this.latestCounterIndex = capacity + LATEST_COUNTER_OFFSET;
+    }
+
+    /**
+     * Get the capacity of the underlying broadcast buffer.
+     *
+     * @return the capacity of the underlying broadcast buffer.
+     */
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Get the maximum message length that can be transmitted for a buffer.
+     *
+     * @return the maximum message length that can be transmitted for a buffer.
+     */
+    public int maxMsgLength()
+    {
+        return maxMsgLength;
+    }
+
+    /**
+     * Transmit a message to {@link BroadcastReceiver}s via the broadcast buffer.
+     *
+     * @param msgTypeId type of the message to be transmitted.
+     * @param srcBuffer containing the encoded message to be transmitted.
+     * @param srcIndex  srcIndex in the source buffer at which the encoded message begins.
+     * @param length    in bytes of the encoded message.
+     * @throws IllegalArgumentException of the msgTypeId is not valid,
+     *                                  or if the message length is greater than {@link #maxMsgLength()}.
+     */
+    public void transmit(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        checkTypeId(msgTypeId);
+        checkMessageLength(length);
+
+        final AtomicBuffer buffer = this.buffer;
+        final int capacity = this.capacity;
+        final int recordLength = HEADER_LENGTH + length;
+        final int recordLengthAligned = BitUtil.align(recordLength, RECORD_ALIGNMENT);
+
+        long claimedTail;
+        long newTail;
+        int padding;
+        while (true)
+        {
+            claimedTail = buffer.getLongVolatile(tailIntentCountIndex);
+            final int toEndOfBuffer = capacity - ((int)claimedTail & (capacity - 1));
+            padding = toEndOfBuffer < recordLengthAligned ? toEndOfBuffer : 0;
+            newTail = claimedTail + padding + recordLengthAligned;
+
+            if ((newTail - buffer.getLongVolatile(tailCounterIndex)) > capacity)
+            {
+                Thread.yield(); // claims would overrun records still being written by other producers
+            }
+            else if (buffer.compareAndSetLong(tailIntentCountIndex, claimedTail, newTail))
+            {
+                break;
+            }
+        }
+
+        long currentTail = claimedTail;
+        int recordOffset = (int)currentTail & (capacity - 1);
+        if (0 != padding)
+        {
+            insertPaddingRecord(buffer, recordOffset, padding);
+
+            currentTail += padding;
+            recordOffset = 0;
+        }
+
+        buffer.putInt(lengthOffset(recordOffset), recordLength);
+        buffer.putInt(typeOffset(recordOffset), msgTypeId);
+
+        buffer.putBytes(msgOffset(recordOffset), srcBuffer, srcIndex, length);
+
+        while (buffer.getLongVolatile(tailCounterIndex) != claimedTail)
+        {
+            Thread.yield(); // an earlier producer may have been descheduled part way through its record
+        }
+
+        buffer.putLong(latestCounterIndex, currentTail);
+        buffer.putLongOrdered(tailCounterIndex, newTail);
+    }
+
+    private static void insertPaddingRecord(final AtomicBuffer buffer, final int recordOffset, final int length)
+    {
+        buffer.putInt(lengthOffset(recordOffset), length);
+        buffer.putInt(typeOffset(recordOffset), PADDING_MSG_TYPE_ID);
+    }
+
+    private void checkMessageLength(final int length)
+    {
+        if (length > maxMsgLength)
+        {
+            throw new IllegalArgumentException(
+                "Encoded message exceeds maxMsgLength of " + maxMsgLength + ", length=" + length);
+        }
+    }
+}
@@ -22,6 +22,9 @@ import java.nio.ByteBuffer;
 
 /**
  * Receiver that copies messages that have been broadcast to enable a simpler API for the client.
+ * <p>
+ * By default being lapped by the transmitter is an error. If a {@link LossHandler} is provided then the receiver
+ * recovers by skipping to the latest valid message and reports the loss to the handler.
  */
 public class CopyBroadcastReceiver
 {
@@ -30,8 +33,24 @@ public class CopyBroadcastReceiver
      */
     public static final int SCRATCH_BUFFER_LENGTH = 4096;
 
+    /**
+     * Handler for loss which is experienced when a receiver has been lapped by the transmitter.
+     */
+    @FunctionalInterface
+    public interface LossHandler
+    {
+        /**
+         * Called when the receiver has been lapped and has skipped forward to the latest valid message. On each lap
+         * at least a buffer's worth of messages have been lost.
+         *
+         * @param lappedCount the number of times the receiver was lapped since the last message was received.
+         */
+        void onLoss(long lappedCount);
+    }
+
     private final BroadcastReceiver receiver;
     private final UnsafeBuffer scratchBuffer;
+    private final LossHandler lossHandler;
 
     /**
      * Wrap a {@link BroadcastReceiver} to simplify the API for receiving messages.
@@ -40,8 +59,22 @@ public class CopyBroadcastReceiver
      * @param scratchBufferLength is the maximum length of a message to be copied when receiving.
      */
     public CopyBroadcastReceiver(final BroadcastReceiver receiver, final int scratchBufferLength)
+    {
+        this(receiver, scratchBufferLength, null);
+    }
+
+    /**
+     * Wrap a {@link BroadcastReceiver} to simplify the API for receiving messages and recover from being lapped.
+     *
+     * @param receiver            to be wrapped.
+     * @param scratchBufferLength is the maximum length of a message to be copied when receiving.
+     * @param lossHandler         to be notified of loss, or null if being lapped should be an error.
+     */
+    public CopyBroadcastReceiver(
+        final BroadcastReceiver receiver, final int scratchBufferLength, final LossHandler lossHandler)
     {
         this.receiver = receiver;
+        this.lossHandler = lossHandler;
         scratchBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(scratchBufferLength));
 
         while (receiver.receiveNext())
@@ -64,6 +97,10 @@ public class CopyBroadcastReceiver
 
     /**
      * Receive one message from the broadcast buffer.
+     * <p>
+     * If the receiver has been lapped then an {@link IllegalStateException} is thrown, unless a {@link LossHandler}
+     * was provided in which case it is notified and the latest valid message is received. If a message is overwritten
+     * while being copied then the handler is notified and the receiver skips to the latest message for the next call.
      *
      * @param handler to be called for each message received.
      * @return the number of messages that have been received.
@@ -76,32 +113,58 @@ public class CopyBroadcastReceiver
 
         if (receiver.receiveNext())
         {
-            if (lastSeenLappedCount != receiver.lappedCount())
+            final long lappedCount = receiver.lappedCount();
+            if (lastSeenLappedCount != lappedCount)
             {
-                throw new IllegalStateException("Unable to keep up with broadcast buffer");
+                if (null == lossHandler)
+                {
+                    throw new IllegalStateException("Unable to keep up with broadcast buffer");
+                }
+
+                lossHandler.onLoss(lappedCount - lastSeenLappedCount);
             }
 
             final int length = receiver.length();
             final int capacity = scratchBuffer.capacity();
-            if (length > capacity)
+            if (length < 0 || length > capacity)
             {
-                throw new IllegalStateException(
-                    "Buffer required length of " + length + " but only has " + capacity);
-            }
-
-            final int msgTypeId = receiver.typeId();
-            scratchBuffer.putBytes(0, receiver.buffer(), receiver.offset(), length);
+                // When recovering from loss a record overwritten during the read is skipped.
+                if (null == lossHandler || receiver.validate())
+                {
+                    throw new IllegalStateException(
+                        "Buffer required length of " + length + " but only has " + capacity);
+                }
 
-            if (!receiver.validate())
-            {
-                throw new IllegalStateException("Unable to keep up with broadcast buffer");
+                onOverwritten(receiver);
             }
+            else
+            {
+                final int msgTypeId = receiver.typeId();
+                scratchBuffer.putBytes(0, receiver.buffer(), receiver.offset(), length);
 
-            handler.onMessage(msgTypeId, scratchBuffer, 0, length);
+                if (receiver.validate())
+                {
+                    handler.onMessage(msgTypeId, scratchBuffer, 0, length);
 
-            messagesReceived = 1;
+                    messagesReceived = 1;
+                }
+                else if (null == lossHandler)
+                {
+                    throw new IllegalStateException("Unable to keep up with broadcast buffer");
+                }
+                else
+                {
+                    onOverwritten(receiver);
+                }
+            }
         }
 
         return messagesReceived;
     }
+
+    private void onOverwritten(final BroadcastReceiver receiver)
+    {
+        receiver.skipToLatest();
+        lossHandler.onLoss(1);
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.conflation;
+
+import org.agrona.BitUtil;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+/**
+ * Layout of the conflating buffer. The buffer consists of an array of fixed length slots, one per key, followed by
+ * a trailer section containing the count of slots in use and a counter of changes.
+ * <p>
+ * Each slot is protected by a sequence lock. The version is odd while the writer is updating the value and even
+ * once the update is complete.
+ * <pre>
+ *   0                   1                   2                   3
+ *   0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ *  +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ *  |                           Version                             |
+ *  |                                                               |
+ *  +---------------------------------------------------------------+
+ *  |                             Key                               |
+ *  |                                                               |
+ *  +---------------------------------------------------------------+
+ *  |                        Value Length                           |
+ *  +---------------------------------------------------------------+
+ *  |                          Reserved                             |
+ *  +---------------------------------------------------------------+
+ *  |                            Value                             ...
+ * ...                                                              |
+ *  +---------------------------------------------------------------+
+ * </pre>
+ */
+public class ConflatingBufferDescriptor
+{
+    /**
+     * Offset within a slot at which the version is stored.
+     */
+    public static final int VERSION_OFFSET = 0;
+
+    /**
+     * Offset within a slot at which the key is stored.
+     */
+    public static final int KEY_OFFSET = VERSION_OFFSET + SIZE_OF_LONG;
+
+    /**
+     * Offset within a slot at which the value length is stored.
+     */
+    public static final int VALUE_LENGTH_OFFSET = KEY_OFFSET + SIZE_OF_LONG;
+
+    /**
+     * Offset within a slot at which the value begins.
+     */
+    public static final int VALUE_OFFSET = VALUE_LENGTH_OFFSET + SIZE_OF_INT * 2;
+
+    /**
+     * Offset within the trailer for where the count of slots in use is stored.
+     */
+    public static final int SLOT_COUNT_OFFSET;
+
+    /**
+     * Offset within the trailer for where the change counter is stored.
+     */
+    public static final int CHANGE_COUNTER_OFFSET;
+
+    /**
+     * Total length of the trailer in bytes.
+     */
+    public static final int TRAILER_LENGTH;
+
+    static
+    {
+        int offset = 0;
+        SLOT_COUNT_OFFSET = offset;
+
+        offset += (CACHE_LINE_LENGTH * 2);
+        CHANGE_COUNTER_OFFSET = offset;
+
+        offset += (CACHE_LINE_LENGTH * 2);
+        TRAILER_LENGTH = offset;
+    }
+
+    /**
+     * The length of each slot for a max value length, rounded up to a cache line to avoid false sharing.
+     *
+     * @param maxValueLength of the values to be stored.
+     * @return the length of each slot.
+     */
+    public static int slotLength(final int maxValueLength)
+    {
+        return BitUtil.align(VALUE_OFFSET + maxValueLength, CACHE_LINE_LENGTH);
+    }
+
+    /**
+     * The length of buffer required for a number of keys.
+     *
+     * @param keyCapacity    number of distinct keys to be stored.
+     * @param maxValueLength of the values to be stored.
+     * @return the length of buffer required.
+     */
+    public static int bufferLength(final int keyCapacity, final int maxValueLength)
+    {
+        return (keyCapacity * slotLength(maxValueLength)) + TRAILER_LENGTH;
+    }
+
+    /**
+     * The number of keys which can be stored in a buffer.
+     *
+     * @param capacity       of the buffer including the trailer.
+     * @param maxValueLength of the values to be stored.
+     * @return the number of keys which can be stored.
+     * @throws IllegalStateException if the buffer cannot hold at least one key.
+     */
+    public static int keyCapacity(final int capacity, final int maxValueLength)
+    {
+        final int keyCapacity = (capacity - TRAILER_LENGTH) / slotLength(maxValueLength);
+        if (keyCapacity < 1)
+        {
+            final String msg = "Capacity must hold at least one slot plus TRAILER_LENGTH: capacity=" + capacity;
+            throw new IllegalStateException(msg);
+        }
+
+        return keyCapacity;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.conflation;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.SeqLock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import static org.agrona.concurrent.conflation.ConflatingBufferDescriptor.*;
+
+/**
+ * Reads the values from a conflating buffer written by a {@link ConflatingBufferWriter} in this or another process.
+ * Each poll delivers only the keys whose value has changed since the previous poll, with the latest value for each.
+ * <p>
+ * Values are copied out of the buffer under the sequence lock for the slot and the copy is retried should the
+ * writer update the slot during the copy, so the handler always sees a consistent value.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe. Each reader thread should have its own instance.
+ */
+public class ConflatingBufferReader
+{
+    /**
+     * Callback for the latest value of a key which has changed.
+     */
+    @FunctionalInterface
+    public interface ValueHandler
+    {
+        /**
+         * Called for each key with a changed value.
+         *
+         * @param key    for the value.
+         * @param buffer containing the encoded value.
+         * @param index  at which the encoded value begins.
+         * @param length in bytes of the encoded value.
+         */
+        void onValue(long key, MutableDirectBuffer buffer, int index, int length);
+    }
+
+    private final AtomicBuffer buffer;
+    private final int maxValueLength;
+    private final int slotLength;
+    private final int slotCountIndex;
+    private final int changeCounterIndex;
+    private final long[] lastVersions;
+    private final UnsafeBuffer scratchBuffer;
+    private final SeqLock seqLock = new SeqLock();
+    private long lastChangeCount;
+
+    /**
+     * Construct a new reader over a buffer which is shared with the writer.
+     *
+     * @param buffer         via which values will be exchanged.
+     * @param maxValueLength of the values which the writer will write.
+     * @throws IllegalStateException if the buffer cannot hold at least one key.
+     */
+    public ConflatingBufferReader(final AtomicBuffer buffer, final int maxValueLength)
+    {
+        buffer.verifyAlignment();
+
+        this.buffer = buffer;
+        this.maxValueLength = maxValueLength;
+        this.slotLength = slotLength(maxValueLength);
+        this.slotCountIndex = buffer.capacity() - TRAILER_LENGTH + SLOT_COUNT_OFFSET;
+        this.changeCounterIndex = buffer.capacity() - TRAILER_LENGTH + CHANGE_COUNTER_OFFSET;
+        this.lastVersions = new long[keyCapacity(buffer.capacity(), maxValueLength)];
+        this.scratchBuffer = new UnsafeBuffer(new byte[maxValueLength]);
+    }
+
+    /**
+     * Deliver the latest value of each key which has changed since the last poll.
+     *
+     * @param handler to be called with each changed value.
+     * @return the number of keys delivered.
+     */
+    public int poll(final ValueHandler handler)
+    {
+        final AtomicBuffer buffer = this.buffer;
+        final long changeCount = buffer.getLongVolatile(changeCounterIndex);
+        if (changeCount == lastChangeCount)
+        {
+            return 0;
+        }
+
+        lastChangeCount = changeCount;
+
+        final long[] lastVersions = this.lastVersions;
+        final int slotCount = buffer.getIntVolatile(slotCountIndex);
+        int keysRead = 0;
+
+        for (int slotIndex = 0; slotIndex < slotCount; slotIndex++)
+        {
+            final int slotOffset = slotIndex * slotLength;
+            if (buffer.getLongVolatile(slotOffset + VERSION_OFFSET) != lastVersions[slotIndex])
+            {
+                final int length = readValue(buffer, slotOffset, slotIndex);
+                ++keysRead;
+                handler.onValue(buffer.getLong(slotOffset + KEY_OFFSET), scratchBuffer, 0, length);
+            }
+        }
+
+        return keysRead;
+    }
+
+    private int readValue(final AtomicBuffer buffer, final int slotOffset, final int slotIndex)
+    {
+        final SeqLock seqLock = this.seqLock;
+        seqLock.wrap(buffer, slotOffset, slotLength);
+
+        while (true)
+        {
+            final long version = seqLock.beginRead();
+            final int length = buffer.getInt(slotOffset + VALUE_LENGTH_OFFSET);
+            if (length >= 0 && length <= maxValueLength)
+            {
+                scratchBuffer.putBytes(0, buffer, slotOffset + VALUE_OFFSET, length);
+
+                if (seqLock.validateRead(version))
+                {
+                    lastVersions[slotIndex] = version;
+                    return length;
+                }
+            }
+        }
+    }
+}
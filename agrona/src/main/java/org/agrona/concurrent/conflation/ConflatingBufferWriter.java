@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.conflation;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Hashing;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.SeqLock;
+
+import java.util.Arrays;
+
+import static org.agrona.concurrent.conflation.ConflatingBufferDescriptor.*;
+
+/**
+ * Writes the latest value for each key into a conflating buffer so that {@link ConflatingBufferReader}s which fall
+ * behind only see the most recent value rather than a backlog. Memory use is bounded by the number of keys.
+ * <p>
+ * The first value for a key claims the next free slot and each later value overwrites it under the sequence lock
+ * for the slot using a {@link SeqLock}. Keys already in the buffer are recovered when a writer is constructed over it.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe and there should be only one writer for a buffer.
+ */
+public class ConflatingBufferWriter
+{
+    private static final int MISSING_SLOT = -1;
+
+    private final AtomicBuffer buffer;
+    private final int maxValueLength;
+    private final int slotLength;
+    private final int keyCapacity;
+    private final int slotCountIndex;
+    private final int changeCounterIndex;
+    private final int[] slotIndexByKeyHash;
+    private final SeqLock seqLock = new SeqLock();
+    private int slotCount;
+    private long changeCount;
+
+    /**
+     * Construct a new writer over a buffer which is shared with the readers.
+     *
+     * @param buffer         via which values will be exchanged.
+     * @param maxValueLength of the values which will be written.
+     * @throws IllegalStateException if the buffer cannot hold at least one key.
+     */
+    public ConflatingBufferWriter(final AtomicBuffer buffer, final int maxValueLength)
+    {
+        buffer.verifyAlignment();
+
+        this.buffer = buffer;
+        this.maxValueLength = maxValueLength;
+        this.slotLength = slotLength(maxValueLength);
+        this.keyCapacity = ConflatingBufferDescriptor.keyCapacity(buffer.capacity(), maxValueLength);
+        this.slotCountIndex = buffer.capacity() - TRAILER_LENGTH + SLOT_COUNT_OFFSET;
+        this.changeCounterIndex = buffer.capacity() - TRAILER_LENGTH + CHANGE_COUNTER_OFFSET;
+        this.slotIndexByKeyHash = new int[BitUtil.findNextPositivePowerOfTwo(keyCapacity * 2)];
+        Arrays.fill(slotIndexByKeyHash, MISSING_SLOT);
+
+        slotCount = buffer.getIntVolatile(slotCountIndex);
+        changeCount = buffer.getLongVolatile(changeCounterIndex);
+        for (int slotIndex = 0; slotIndex < slotCount; slotIndex++)
+        {
+            slotIndexByKeyHash[findHashIndex(buffer.getLong(slotIndex * slotLength + KEY_OFFSET))] = slotIndex;
+        }
+    }
+
+    /**
+     * The max length of a value.
+     *
+     * @return the max length of a value.
+     */
+    public int maxValueLength()
+    {
+        return maxValueLength;
+    }
+
+    /**
+     * The number of distinct keys the buffer can hold.
+     *
+     * @return the number of distinct keys the buffer can hold.
+     */
+    public int keyCapacity()
+    {
+        return keyCapacity;
+    }
+
+    /**
+     * The number of distinct keys which have been written.
+     *
+     * @return the number of distinct keys which have been written.
+     */
+    public int keyCount()
+    {
+        return slotCount;
+    }
+
+    /**
+     * Write the latest value for a key, replacing any previous value.
+     *
+     * @param key       for the value.
+     * @param srcBuffer containing the encoded value.
+     * @param srcIndex  at which the encoded value begins.
+     * @param length    of the encoded value in bytes.
+     * @throws IllegalArgumentException if the length is greater than {@link #maxValueLength()}.
+     * @throws IllegalStateException    if the key is new and the buffer is already full.
+     */
+    public void write(final long key, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        if (length > maxValueLength || length < 0)
+        {
+            throw new IllegalArgumentException(
+                "Encoded value exceeds maxValueLength of " + maxValueLength + ", length=" + length);
+        }
+
+        final AtomicBuffer buffer = this.buffer;
+        final int hashIndex = findHashIndex(key);
+        final int slotIndex = slotIndexByKeyHash[hashIndex];
+
+        if (MISSING_SLOT != slotIndex)
+        {
+            writeValue(buffer, slotIndex * slotLength, srcBuffer, srcIndex, length);
+        }
+        else
+        {
+            if (slotCount == keyCapacity)
+            {
+                throw new IllegalStateException("Buffer is full, keyCapacity=" + keyCapacity + ", key=" + key);
+            }
+
+            final int newSlotIndex = slotCount;
+            final int slotOffset = newSlotIndex * slotLength;
+            buffer.putLong(slotOffset + KEY_OFFSET, key);
+            writeValue(buffer, slotOffset, srcBuffer, srcIndex, length);
+
+            slotIndexByKeyHash[hashIndex] = newSlotIndex;
+            buffer.putIntOrdered(slotCountIndex, ++slotCount);
+        }
+
+        buffer.putLongOrdered(changeCounterIndex, ++changeCount);
+    }
+
+    private void writeValue(
+        final AtomicBuffer buffer,
+        final int slotOffset,
+        final DirectBuffer srcBuffer,
+        final int srcIndex,
+        final int length)
+    {
+        final SeqLock seqLock = this.seqLock;
+        seqLock.wrap(buffer, slotOffset, slotLength);
+
+        seqLock.beginWrite();
+        buffer.putInt(slotOffset + VALUE_LENGTH_OFFSET, length);
+        buffer.putBytes(slotOffset + VALUE_OFFSET, srcBuffer, srcIndex, length);
+        seqLock.endWrite();
+    }
+
+    private int findHashIndex(final long key)
+    {
+        final int[] slotIndexByKeyHash = this.slotIndexByKeyHash;
+        final int mask = slotIndexByKeyHash.length - 1;
+        int hashIndex = Hashing.hash(key, mask);
+
+        int slotIndex;
+        while (MISSING_SLOT != (slotIndex = slotIndexByKeyHash[hashIndex]))
+        {
+            if (buffer.getLong(slotIndex * slotLength + KEY_OFFSET) == key)
+            {
+                break;
+            }
+
+            hashIndex = (hashIndex + 1) & mask;
+        }
+
+        return hashIndex;
+    }
+}
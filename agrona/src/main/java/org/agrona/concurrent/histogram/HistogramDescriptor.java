@@ -0,0 +1,214 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.histogram;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+/**
+ * Layout of a log-linear histogram buffer. The buffer consists of a header followed by an array of 64-bit bucket
+ * counts.
+ * <p>
+ * Values below 2<sup>subBucketBits</sup> are counted exactly. Above that each power of two range is divided
+ * linearly into 2<sup>subBucketBits</sup> buckets so the relative error of a recorded value is bounded by
+ * 2<sup>-subBucketBits</sup> across the whole range. Values above the highest trackable value are counted in the
+ * last bucket.
+ * <pre>
+ *   0                   1                   2                   3
+ *   0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ *  +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ *  |                       Sub Bucket Bits                         |
+ *  +---------------------------------------------------------------+
+ *  |                         Bucket Count                          |
+ *  +---------------------------------------------------------------+
+ *  |                         Total Count                           |
+ *  |                                                               |
+ *  +---------------------------------------------------------------+
+ *  |                          Min Value                            |
+ *  |                                                               |
+ *  +---------------------------------------------------------------+
+ *  |                          Max Value                            |
+ *  |                                                               |
+ *  +---------------------------------------------------------------+
+ *  |                     Reserved to Header Length                ...
+ * ...                                                              |
+ *  +---------------------------------------------------------------+
+ *  |                       Bucket Counts                          ...
+ * ...                                                              |
+ *  +---------------------------------------------------------------+
+ * </pre>
+ * The bucket count is written last when a buffer is initialised so a reader which sees a non-zero bucket count will
+ * see the rest of the header.
+ */
+public class HistogramDescriptor
+{
+    /**
+     * Minimum number of sub bucket bits.
+     */
+    public static final int MIN_SUB_BUCKET_BITS = 1;
+
+    /**
+     * Maximum number of sub bucket bits.
+     */
+    public static final int MAX_SUB_BUCKET_BITS = 20;
+
+    /**
+     * Offset in the header at which the number of sub bucket bits is stored.
+     */
+    public static final int SUB_BUCKET_BITS_OFFSET = 0;
+
+    /**
+     * Offset in the header at which the number of buckets is stored.
+     */
+    public static final int BUCKET_COUNT_OFFSET = SUB_BUCKET_BITS_OFFSET + SIZE_OF_INT;
+
+    /**
+     * Offset in the header at which the total count of recorded values is stored.
+     */
+    public static final int TOTAL_COUNT_OFFSET = BUCKET_COUNT_OFFSET + SIZE_OF_INT;
+
+    /**
+     * Offset in the header at which the minimum recorded value is stored.
+     */
+    public static final int MIN_VALUE_OFFSET = TOTAL_COUNT_OFFSET + SIZE_OF_LONG;
+
+    /**
+     * Offset in the header at which the maximum recorded value is stored.
+     */
+    public static final int MAX_VALUE_OFFSET = MIN_VALUE_OFFSET + SIZE_OF_LONG;
+
+    /**
+     * Total length of the header in bytes.
+     */
+    public static final int HEADER_LENGTH = CACHE_LINE_LENGTH * 2;
+
+    /**
+     * Min value stored when no values have been recorded.
+     */
+    public static final long NULL_MIN_VALUE = Long.MAX_VALUE;
+
+    /**
+     * Max value stored when no values have been recorded.
+     */
+    public static final long NULL_MAX_VALUE = 0;
+
+    /**
+     * The index of the bucket in which a value is counted.
+     *
+     * @param value         to be counted which must not be negative.
+     * @param subBucketBits of the histogram.
+     * @return the index of the bucket in which the value is counted.
+     */
+    public static int bucketIndex(final long value, final int subBucketBits)
+    {
+        if (value < (1L << subBucketBits))
+        {
+            return (int)value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+
+        return (exponent << subBucketBits) + (int)(value >>> exponent);
+    }
+
+    /**
+     * The lowest value which is counted in a bucket.
+     *
+     * @param bucketIndex   of the bucket.
+     * @param subBucketBits of the histogram.
+     * @return the lowest value which is counted in the bucket.
+     */
+    public static long lowestEquivalentValue(final int bucketIndex, final int subBucketBits)
+    {
+        if (bucketIndex < (1 << subBucketBits))
+        {
+            return bucketIndex;
+        }
+
+        final int exponent = (bucketIndex >>> subBucketBits) - 1;
+
+        return (long)(bucketIndex - (exponent << subBucketBits)) << exponent;
+    }
+
+    /**
+     * The highest value which is counted in a bucket.
+     *
+     * @param bucketIndex   of the bucket.
+     * @param subBucketBits of the histogram.
+     * @return the highest value which is counted in the bucket.
+     */
+    public static long highestEquivalentValue(final int bucketIndex, final int subBucketBits)
+    {
+        if (bucketIndex < (1 << subBucketBits))
+        {
+            return bucketIndex;
+        }
+
+        final int exponent = (bucketIndex >>> subBucketBits) - 1;
+
+        return lowestEquivalentValue(bucketIndex, subBucketBits) + (1L << exponent) - 1;
+    }
+
+    /**
+     * The number of buckets required to track values up to a highest trackable value.
+     *
+     * @param subBucketBits         of the histogram.
+     * @param highestTrackableValue which can be counted without being clamped to the last bucket.
+     * @return the number of buckets required.
+     */
+    public static int bucketCount(final int subBucketBits, final long highestTrackableValue)
+    {
+        return bucketIndex(highestTrackableValue, subBucketBits) + 1;
+    }
+
+    /**
+     * The length of buffer required to track values up to a highest trackable value.
+     *
+     * @param subBucketBits         of the histogram.
+     * @param highestTrackableValue which can be counted without being clamped to the last bucket.
+     * @return the length of buffer required.
+     */
+    public static int bufferLength(final int subBucketBits, final long highestTrackableValue)
+    {
+        return HEADER_LENGTH + (bucketCount(subBucketBits, highestTrackableValue) * SIZE_OF_LONG);
+    }
+
+    /**
+     * The offset in the buffer at which the count for a bucket is stored.
+     *
+     * @param bucketIndex of the bucket.
+     * @return the offset in the buffer at which the count for the bucket is stored.
+     */
+    public static int countOffset(final int bucketIndex)
+    {
+        return HEADER_LENGTH + (bucketIndex * SIZE_OF_LONG);
+    }
+
+    /**
+     * Check that the number of sub bucket bits is within range.
+     *
+     * @param subBucketBits to be checked.
+     * @throws IllegalArgumentException if the number of sub bucket bits is out of range.
+     */
+    public static void checkSubBucketBits(final int subBucketBits)
+    {
+        if (subBucketBits < MIN_SUB_BUCKET_BITS || subBucketBits > MAX_SUB_BUCKET_BITS)
+        {
+            throw new IllegalArgumentException("subBucketBits out of range: subBucketBits=" + subBucketBits);
+        }
+    }
+}
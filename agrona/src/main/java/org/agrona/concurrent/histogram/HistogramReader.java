@@ -0,0 +1,212 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.histogram;
+
+import org.agrona.concurrent.AtomicBuffer;
+
+import static org.agrona.concurrent.histogram.HistogramDescriptor.*;
+
+/**
+ * Reads a log-linear histogram held in an {@link AtomicBuffer} while it is being recorded by a
+ * {@link HistogramRecorder}, which may be in another process sharing a memory mapped file.
+ * <p>
+ * Reads are allocation free and use volatile loads so each bucket count is seen whole. As buckets are read one at a
+ * time while recording continues, aggregate queries may not reflect a single point in time. For a consistent view
+ * take a snapshot by adding the histogram to a {@link HistogramRecorder} over a private buffer and read that.
+ *
+ * @see HistogramDescriptor
+ */
+public class HistogramReader
+{
+    /**
+     * Consumer of the non-empty buckets of a histogram.
+     */
+    @FunctionalInterface
+    public interface BucketConsumer
+    {
+        /**
+         * Accept the count for a bucket.
+         *
+         * @param lowestValue  counted in the bucket.
+         * @param highestValue counted in the bucket.
+         * @param count        of values recorded in the bucket.
+         */
+        void accept(long lowestValue, long highestValue, long count);
+    }
+
+    private final int subBucketBits;
+    private final int bucketCount;
+    private final AtomicBuffer buffer;
+
+    /**
+     * Construct a reader over a buffer which has been initialised by a {@link HistogramRecorder}.
+     *
+     * @param buffer in which the histogram is stored.
+     * @throws IllegalStateException if the buffer has not been initialised or is too small for its header.
+     */
+    public HistogramReader(final AtomicBuffer buffer)
+    {
+        buffer.verifyAlignment();
+
+        final int bucketCount = buffer.getIntVolatile(BUCKET_COUNT_OFFSET);
+        if (bucketCount <= 0)
+        {
+            throw new IllegalStateException("histogram not initialised: bucketCount=" + bucketCount);
+        }
+
+        final int requiredLength = countOffset(bucketCount);
+        if (buffer.capacity() < requiredLength)
+        {
+            throw new IllegalStateException(
+                "buffer too small: capacity=" + buffer.capacity() + " requiredLength=" + requiredLength);
+        }
+
+        this.buffer = buffer;
+        this.bucketCount = bucketCount;
+        this.subBucketBits = buffer.getInt(SUB_BUCKET_BITS_OFFSET);
+    }
+
+    /**
+     * The number of sub bucket bits which determines the precision of the histogram.
+     *
+     * @return the number of sub bucket bits.
+     */
+    public int subBucketBits()
+    {
+        return subBucketBits;
+    }
+
+    /**
+     * The number of buckets in the histogram.
+     *
+     * @return the number of buckets in the histogram.
+     */
+    public int bucketCount()
+    {
+        return bucketCount;
+    }
+
+    /**
+     * The count of values recorded in a bucket.
+     *
+     * @param bucketIndex of the bucket.
+     * @return the count of values recorded in the bucket.
+     */
+    public long count(final int bucketIndex)
+    {
+        if (bucketIndex < 0 || bucketIndex >= bucketCount)
+        {
+            throw new IndexOutOfBoundsException("bucketIndex out of range: bucketIndex=" + bucketIndex);
+        }
+
+        return buffer.getLongVolatile(countOffset(bucketIndex));
+    }
+
+    /**
+     * The total count of values recorded.
+     *
+     * @return the total count of values recorded.
+     */
+    public long totalCount()
+    {
+        return buffer.getLongVolatile(TOTAL_COUNT_OFFSET);
+    }
+
+    /**
+     * The minimum value recorded.
+     *
+     * @return the minimum value recorded or {@link HistogramDescriptor#NULL_MIN_VALUE} if empty.
+     */
+    public long minValue()
+    {
+        return buffer.getLongVolatile(MIN_VALUE_OFFSET);
+    }
+
+    /**
+     * The maximum value recorded.
+     *
+     * @return the maximum value recorded or {@link HistogramDescriptor#NULL_MAX_VALUE} if empty.
+     */
+    public long maxValue()
+    {
+        return buffer.getLongVolatile(MAX_VALUE_OFFSET);
+    }
+
+    /**
+     * The value at or below which a percentage of the recorded values fall. The value returned is the highest
+     * equivalent value of the bucket which contains the percentile, limited to the max value recorded.
+     *
+     * @param percentile in the range 0.0 to 100.0.
+     * @return the value at the percentile or 0 if the histogram is empty.
+     */
+    public long valueAtPercentile(final double percentile)
+    {
+        long totalCount = 0;
+        for (int i = 0; i < bucketCount; i++)
+        {
+            totalCount += buffer.getLongVolatile(countOffset(i));
+        }
+
+        if (0 == totalCount)
+        {
+            return 0;
+        }
+
+        final double requestedPercentile = Math.min(Math.max(percentile, 0.0), 100.0);
+        final long countAtPercentile = Math.max((long)Math.ceil((requestedPercentile / 100.0) * totalCount), 1);
+
+        long countToIndex = 0;
+        int bucketIndex = bucketCount - 1;
+        for (int i = 0; i < bucketCount; i++)
+        {
+            countToIndex += buffer.getLongVolatile(countOffset(i));
+            if (countToIndex >= countAtPercentile)
+            {
+                bucketIndex = i;
+                break;
+            }
+        }
+
+        final long maxValue = maxValue();
+        final long value = highestEquivalentValue(bucketIndex, subBucketBits);
+
+        return bucketIndex == bucketCount - 1 ? maxValue : Math.min(value, maxValue);
+    }
+
+    /**
+     * Iterate over the non-empty buckets of the histogram in order of increasing value.
+     *
+     * @param consumer to be called for each non-empty bucket.
+     * @return the number of non-empty buckets.
+     */
+    public int forEach(final BucketConsumer consumer)
+    {
+        int bucketsConsumed = 0;
+
+        for (int i = 0; i < bucketCount; i++)
+        {
+            final long count = buffer.getLongVolatile(countOffset(i));
+            if (count > 0)
+            {
+                consumer.accept(
+                    lowestEquivalentValue(i, subBucketBits), highestEquivalentValue(i, subBucketBits), count);
+                ++bucketsConsumed;
+            }
+        }
+
+        return bucketsConsumed;
+    }
+}
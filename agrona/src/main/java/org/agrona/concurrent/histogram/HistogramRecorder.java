@@ -0,0 +1,249 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.histogram;
+
+import org.agrona.concurrent.AtomicBuffer;
+
+import static org.agrona.concurrent.histogram.HistogramDescriptor.*;
+
+/**
+ * Records values into a log-linear histogram held in an {@link AtomicBuffer}, which can be a memory mapped file,
+ * so it can be read concurrently by {@link HistogramReader}s in the same or another process.
+ * <p>
+ * Recording is allocation free. Bucket counts and the header fields are updated with ordered stores so readers see
+ * whole values without the writer paying for a full fence. A header for the histogram already in the buffer is
+ * recovered when a recorder is constructed over it.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe and there should be only one recorder for a buffer.
+ *
+ * @see HistogramDescriptor
+ */
+public class HistogramRecorder
+{
+    private final int subBucketBits;
+    private final int bucketCount;
+    private final AtomicBuffer buffer;
+    private long totalCount;
+    private long minValue;
+    private long maxValue;
+
+    /**
+     * Construct a recorder over a buffer and initialise the header if not already initialised.
+     *
+     * @param buffer                in which the histogram is stored.
+     * @param subBucketBits         which determines the precision of the histogram.
+     * @param highestTrackableValue which can be counted without being clamped to the last bucket.
+     * @throws IllegalArgumentException if subBucketBits is out of range or highestTrackableValue is negative.
+     * @throws IllegalStateException    if the buffer is too small or initialised with a different layout.
+     */
+    public HistogramRecorder(final AtomicBuffer buffer, final int subBucketBits, final long highestTrackableValue)
+    {
+        checkSubBucketBits(subBucketBits);
+        if (highestTrackableValue < 0)
+        {
+            throw new IllegalArgumentException(
+                "highestTrackableValue must not be negative: highestTrackableValue=" + highestTrackableValue);
+        }
+
+        buffer.verifyAlignment();
+
+        final int requiredLength = bufferLength(subBucketBits, highestTrackableValue);
+        if (buffer.capacity() < requiredLength)
+        {
+            throw new IllegalStateException(
+                "buffer too small: capacity=" + buffer.capacity() + " requiredLength=" + requiredLength);
+        }
+
+        this.buffer = buffer;
+        this.subBucketBits = subBucketBits;
+        this.bucketCount = HistogramDescriptor.bucketCount(subBucketBits, highestTrackableValue);
+
+        final int existingBucketCount = buffer.getIntVolatile(BUCKET_COUNT_OFFSET);
+        if (0 == existingBucketCount)
+        {
+            minValue = NULL_MIN_VALUE;
+            maxValue = NULL_MAX_VALUE;
+            buffer.putInt(SUB_BUCKET_BITS_OFFSET, subBucketBits);
+            buffer.putLong(TOTAL_COUNT_OFFSET, 0);
+            buffer.putLong(MIN_VALUE_OFFSET, minValue);
+            buffer.putLong(MAX_VALUE_OFFSET, maxValue);
+            buffer.putIntOrdered(BUCKET_COUNT_OFFSET, bucketCount);
+        }
+        else
+        {
+            final int existingSubBucketBits = buffer.getInt(SUB_BUCKET_BITS_OFFSET);
+            if (existingSubBucketBits != subBucketBits || existingBucketCount != bucketCount)
+            {
+                throw new IllegalStateException(
+                    "buffer initialised with different layout: subBucketBits=" + existingSubBucketBits +
+                    " bucketCount=" + existingBucketCount);
+            }
+
+            totalCount = buffer.getLongVolatile(TOTAL_COUNT_OFFSET);
+            minValue = buffer.getLongVolatile(MIN_VALUE_OFFSET);
+            maxValue = buffer.getLongVolatile(MAX_VALUE_OFFSET);
+        }
+    }
+
+    /**
+     * The number of sub bucket bits which determines the precision of the histogram.
+     *
+     * @return the number of sub bucket bits.
+     */
+    public int subBucketBits()
+    {
+        return subBucketBits;
+    }
+
+    /**
+     * The number of buckets in the histogram.
+     *
+     * @return the number of buckets in the histogram.
+     */
+    public int bucketCount()
+    {
+        return bucketCount;
+    }
+
+    /**
+     * The total count of values recorded.
+     *
+     * @return the total count of values recorded.
+     */
+    public long totalCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * The buffer in which the histogram is stored.
+     *
+     * @return the buffer in which the histogram is stored.
+     */
+    public AtomicBuffer buffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param value to be recorded which must not be negative.
+     * @throws IllegalArgumentException if the value is negative.
+     */
+    public void recordValue(final long value)
+    {
+        recordValue(value, 1);
+    }
+
+    /**
+     * Record a value a number of times.
+     *
+     * @param value to be recorded which must not be negative.
+     * @param count of times the value is to be recorded.
+     * @throws IllegalArgumentException if the value is negative.
+     */
+    public void recordValue(final long value, final long count)
+    {
+        if (value < 0)
+        {
+            throw new IllegalArgumentException("value must not be negative: value=" + value);
+        }
+
+        addToBucket(Math.min(bucketIndex(value, subBucketBits), bucketCount - 1), count);
+        updateTotals(count, value, value);
+    }
+
+    /**
+     * Add the counts of another histogram, such as one recorded by another thread or process, to this histogram.
+     * Buckets beyond the range of this histogram are added to the last bucket.
+     * <p>
+     * Adding to an empty histogram over a private buffer takes a snapshot of the other histogram.
+     *
+     * @param reader for the histogram to be added.
+     * @throws IllegalArgumentException if the histograms do not have the same number of sub bucket bits.
+     */
+    public void add(final HistogramReader reader)
+    {
+        if (reader.subBucketBits() != subBucketBits)
+        {
+            throw new IllegalArgumentException(
+                "subBucketBits mismatch: expected=" + subBucketBits + " actual=" + reader.subBucketBits());
+        }
+
+        final int lastBucketIndex = bucketCount - 1;
+        long addedCount = 0;
+
+        for (int i = 0, count = reader.bucketCount(); i < count; i++)
+        {
+            final long bucketCount = reader.count(i);
+            if (bucketCount > 0)
+            {
+                addToBucket(Math.min(i, lastBucketIndex), bucketCount);
+                addedCount += bucketCount;
+            }
+        }
+
+        if (addedCount > 0)
+        {
+            updateTotals(addedCount, reader.minValue(), reader.maxValue());
+        }
+    }
+
+    /**
+     * Reset the histogram to be empty.
+     * <p>
+     * Readers may see a mix of old and reset counts while a reset is in progress.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < bucketCount; i++)
+        {
+            buffer.putLongOrdered(countOffset(i), 0);
+        }
+
+        totalCount = 0;
+        minValue = NULL_MIN_VALUE;
+        maxValue = NULL_MAX_VALUE;
+        buffer.putLongOrdered(TOTAL_COUNT_OFFSET, totalCount);
+        buffer.putLongOrdered(MIN_VALUE_OFFSET, minValue);
+        buffer.putLongOrdered(MAX_VALUE_OFFSET, maxValue);
+    }
+
+    private void addToBucket(final int bucketIndex, final long count)
+    {
+        final int offset = countOffset(bucketIndex);
+        buffer.putLongOrdered(offset, buffer.getLong(offset) + count);
+    }
+
+    private void updateTotals(final long count, final long lowValue, final long highValue)
+    {
+        totalCount += count;
+        buffer.putLongOrdered(TOTAL_COUNT_OFFSET, totalCount);
+
+        if (lowValue < minValue)
+        {
+            minValue = lowValue;
+            buffer.putLongOrdered(MIN_VALUE_OFFSET, lowValue);
+        }
+
+        if (highValue > maxValue)
+        {
+            maxValue = highValue;
+            buffer.putLongOrdered(MAX_VALUE_OFFSET, highValue);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.log;
+
+import org.agrona.BitUtil;
+
+import java.io.File;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+
+/**
+ * Layout description for a segmented log which is stored in a directory as a metadata file and a sequence of
+ * segment files of a fixed power of 2 length named by their index.
+ * <p>
+ * The metadata file contains the position up to which records are complete, the start position of the first
+ * retained segment, and the segment length. Each record within a segment is framed as follows and aligned to
+ * {@link #ALIGNMENT} with a padding record filling the end of a segment when the next record does not fit.
+ * <pre>
+ *   0                   1                   2                   3
+ *   0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ *  +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ *  |                            Length                             |
+ *  +---------------------------------------------------------------+
+ *  |                             Type                              |
+ *  +---------------------------------------------------------------+
+ *  |                       Encoded Message                        ...
+ * ...                                                              |
+ *  +---------------------------------------------------------------+
+ * </pre>
+ */
+public class SegmentedLogDescriptor
+{
+    /**
+     * Name of the metadata file within the log directory.
+     */
+    public static final String METADATA_FILE_NAME = "log.meta";
+
+    /**
+     * Suffix for the segment files within the log directory.
+     */
+    public static final String SEGMENT_FILE_SUFFIX = ".log";
+
+    /**
+     * Message type id for padding at the end of a segment.
+     */
+    public static final int PADDING_MSG_TYPE_ID = -1;
+
+    /**
+     * Header length made up of fields for length and type.
+     */
+    public static final int HEADER_LENGTH = SIZE_OF_INT * 2;
+
+    /**
+     * Alignment as a multiple of bytes for each record.
+     */
+    public static final int ALIGNMENT = HEADER_LENGTH;
+
+    /**
+     * Offset within the metadata for where the position up to which records are complete is stored.
+     */
+    public static final int POSITION_OFFSET;
+
+    /**
+     * Offset within the metadata for where the start position of the first retained segment is stored.
+     */
+    public static final int START_POSITION_OFFSET;
+
+    /**
+     * Offset within the metadata for where the segment length is stored.
+     */
+    public static final int SEGMENT_LENGTH_OFFSET;
+
+    /**
+     * Total length of the metadata in bytes.
+     */
+    public static final int METADATA_LENGTH;
+
+    static
+    {
+        int offset = 0;
+        offset += (BitUtil.CACHE_LINE_LENGTH * 2);
+        POSITION_OFFSET = offset;
+
+        offset += (BitUtil.CACHE_LINE_LENGTH * 2);
+        START_POSITION_OFFSET = offset;
+
+        offset += (BitUtil.CACHE_LINE_LENGTH * 2);
+        SEGMENT_LENGTH_OFFSET = offset;
+
+        offset += (BitUtil.CACHE_LINE_LENGTH * 2);
+        METADATA_LENGTH = offset;
+    }
+
+    /**
+     * The offset from the beginning of a record at which the message length field begins.
+     *
+     * @param recordOffset beginning index of the record.
+     * @return offset from the beginning of a record at which the length field begins.
+     */
+    public static int lengthOffset(final int recordOffset)
+    {
+        return recordOffset;
+    }
+
+    /**
+     * The offset from the beginning of a record at which the message type field begins.
+     *
+     * @param recordOffset beginning index of the record.
+     * @return offset from the beginning of a record at which the type field begins.
+     */
+    public static int typeOffset(final int recordOffset)
+    {
+        return recordOffset + SIZE_OF_INT;
+    }
+
+    /**
+     * The offset from the beginning of a record at which the encoded message begins.
+     *
+     * @param recordOffset beginning index of the record.
+     * @return offset from the beginning of a record at which the encoded message begins.
+     */
+    public static int encodedMsgOffset(final int recordOffset)
+    {
+        return recordOffset + HEADER_LENGTH;
+    }
+
+    /**
+     * The file for a segment of the log.
+     *
+     * @param directory    of the log.
+     * @param segmentIndex of the segment.
+     * @return the file for the segment.
+     */
+    public static File segmentFile(final File directory, final long segmentIndex)
+    {
+        return new File(directory, segmentIndex + SEGMENT_FILE_SUFFIX);
+    }
+
+    /**
+     * Check the segment length is a power of 2 which can hold at least a record header.
+     *
+     * @param segmentLength to be checked.
+     * @throws IllegalStateException if the segment length is incorrect.
+     */
+    public static void checkSegmentLength(final int segmentLength)
+    {
+        if (!BitUtil.isPowerOfTwo(segmentLength) || segmentLength < HEADER_LENGTH)
+        {
+            final String msg = "Segment length must be a positive power of 2: segmentLength=" + segmentLength;
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    /**
+     * Check the the message type is greater than zero.
+     *
+     * @param msgTypeId to be checked.
+     * @throws IllegalArgumentException if the id is not in the valid range.
+     */
+    public static void checkTypeId(final int msgTypeId)
+    {
+        if (msgTypeId < 1)
+        {
+            final String msg = "Message type id must be greater than zero, msgTypeId=" + msgTypeId;
+            throw new IllegalArgumentException(msg);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.log;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+
+import static org.agrona.BitUtil.align;
+import static org.agrona.concurrent.log.SegmentedLogDescriptor.*;
+
+/**
+ * Reader which tails a segmented log written by a {@link SegmentedLogWriter} in this or another process without
+ * taking locks. Records are read directly from the mapped segment up to the position published by the writer.
+ * <p>
+ * If segments are deleted for retention before the reader gets to them then the reader skips forward to the
+ * start position of the first retained segment.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe. Each reader thread should have its own instance.
+ */
+public class SegmentedLogReader implements AutoCloseable
+{
+    private final int segmentLength;
+    private final int positionBitsToShift;
+    private final File directory;
+    private final MappedByteBuffer metadataMappedBuffer;
+    private final UnsafeBuffer metadataBuffer;
+    private final UnsafeBuffer segmentBuffer = new UnsafeBuffer();
+    private MappedByteBuffer segmentMappedBuffer;
+    private long segmentIndex = -1;
+    private long position;
+
+    /**
+     * Open an existing log for reading from the start of the first retained segment.
+     *
+     * @param directory in which the log files are stored.
+     */
+    public SegmentedLogReader(final File directory)
+    {
+        this(directory, -1);
+    }
+
+    /**
+     * Open an existing log for reading from a given position, which may be the position after a record previously
+     * read. A position before the start of the first retained segment will begin at that segment.
+     *
+     * @param directory in which the log files are stored.
+     * @param position  from which to begin reading or -1 for the start of the first retained segment.
+     * @throws IllegalArgumentException if the position is not aligned to a record.
+     */
+    public SegmentedLogReader(final File directory, final long position)
+    {
+        if (position > 0 && (position & (ALIGNMENT - 1)) != 0)
+        {
+            throw new IllegalArgumentException("Position is not aligned to a record: " + position);
+        }
+
+        this.directory = directory;
+        final File metadataFile = new File(directory, METADATA_FILE_NAME);
+        metadataMappedBuffer = IoUtil.mapExistingFile(metadataFile, "segmented log metadata");
+        metadataBuffer = new UnsafeBuffer(metadataMappedBuffer);
+        segmentLength = metadataBuffer.getInt(SEGMENT_LENGTH_OFFSET);
+        positionBitsToShift = Integer.numberOfTrailingZeros(segmentLength);
+        this.position = Math.max(position, metadataBuffer.getLongVolatile(START_POSITION_OFFSET));
+    }
+
+    /**
+     * Position after the last record read.
+     *
+     * @return position after the last record read.
+     */
+    public long position()
+    {
+        return position;
+    }
+
+    /**
+     * Position up to which records have been published by the writer.
+     *
+     * @return position up to which records have been published by the writer.
+     */
+    public long publishedPosition()
+    {
+        return metadataBuffer.getLongVolatile(POSITION_OFFSET);
+    }
+
+    /**
+     * Read as many records as have been published.
+     *
+     * @param handler to be called for processing each message in turn.
+     * @return the number of messages that have been processed.
+     */
+    public int poll(final MessageHandler handler)
+    {
+        return poll(handler, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read up to a limit of records which have been published.
+     * <p>
+     * A record length of zero or less, such as from a zero-filled gap left by a crash before a record was written,
+     * is treated as the end of committed data so the reader stops at it and {@link #position()} does not advance.
+     *
+     * @param handler           to be called for processing each message in turn.
+     * @param messageCountLimit the number of messages will be read in a single invocation.
+     * @return the number of messages that have been processed.
+     * @throws IllegalStateException if a record length is too short for a header or extends beyond its segment.
+     */
+    public int poll(final MessageHandler handler, final int messageCountLimit)
+    {
+        final long limit = metadataBuffer.getLongVolatile(POSITION_OFFSET);
+        long position = this.position;
+        int messagesRead = 0;
+
+        try
+        {
+            while (position < limit && messagesRead < messageCountLimit)
+            {
+                final long index = position >>> positionBitsToShift;
+                if (index != segmentIndex)
+                {
+                    final long startPosition = metadataBuffer.getLongVolatile(START_POSITION_OFFSET);
+                    if (position < startPosition)
+                    {
+                        position = startPosition;
+                        continue;
+                    }
+
+                    mapSegment(index);
+                }
+
+                final UnsafeBuffer buffer = this.segmentBuffer;
+                final int recordIndex = (int)position & (segmentLength - 1);
+                final int recordLength = buffer.getInt(lengthOffset(recordIndex));
+                if (recordLength <= 0)
+                {
+                    break;
+                }
+
+                if (recordLength < HEADER_LENGTH || recordLength > (segmentLength - recordIndex))
+                {
+                    throw new IllegalStateException(
+                        "Invalid record length " + recordLength + " at position " + position);
+                }
+
+                final int msgTypeId = buffer.getInt(typeOffset(recordIndex));
+
+                position += align(recordLength, ALIGNMENT);
+
+                if (PADDING_MSG_TYPE_ID != msgTypeId)
+                {
+                    ++messagesRead;
+                    handler.onMessage(msgTypeId, buffer, encodedMsgOffset(recordIndex), recordLength - HEADER_LENGTH);
+                }
+            }
+        }
+        finally
+        {
+            this.position = position;
+        }
+
+        return messagesRead;
+    }
+
+    /**
+     * Unmap the log files.
+     */
+    public void close()
+    {
+        IoUtil.unmap(segmentMappedBuffer);
+        IoUtil.unmap(metadataMappedBuffer);
+    }
+
+    private void mapSegment(final long index)
+    {
+        IoUtil.unmap(segmentMappedBuffer);
+        segmentMappedBuffer = null;
+        segmentIndex = -1;
+
+        segmentMappedBuffer = IoUtil.mapExistingFile(segmentFile(directory, index), "log segment");
+        segmentBuffer.wrap(segmentMappedBuffer);
+        segmentIndex = index;
+    }
+}
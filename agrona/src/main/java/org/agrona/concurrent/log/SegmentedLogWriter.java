@@ -0,0 +1,276 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.log;
+
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.agrona.BitUtil.align;
+import static org.agrona.concurrent.log.SegmentedLogDescriptor.*;
+
+/**
+ * Single writer which appends records to a memory-mapped segmented log as described in
+ * {@link SegmentedLogDescriptor} for {@link SegmentedLogReader}s in this or other processes to tail.
+ * <p>
+ * Each record is copied into the active segment and then the position is published with an ordered store so
+ * readers never see a partial record. The next segment is mapped and zero filled on an {@link Executor} while the
+ * active one is being written so rolling over to it does not stall the writer. Old segments can be deleted with
+ * {@link #deleteSegmentsBefore(long)}.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe and only one writer should be open on a log directory.
+ */
+public class SegmentedLogWriter implements AutoCloseable
+{
+    private final int segmentLength;
+    private final int positionBitsToShift;
+    private final File directory;
+    private final Executor executor;
+    private final MappedByteBuffer metadataMappedBuffer;
+    private final UnsafeBuffer metadataBuffer;
+    private final UnsafeBuffer segmentBuffer = new UnsafeBuffer();
+    private MappedByteBuffer segmentMappedBuffer;
+    private CompletableFuture<MappedByteBuffer> nextSegment;
+    private long segmentIndex;
+    private int segmentOffset;
+
+    /**
+     * Open a log for writing which preallocates segments on a new daemon thread each time one is required.
+     *
+     * @param directory     in which the log files are stored.
+     * @param segmentLength of each segment file which must be a power of 2.
+     * @throws IllegalStateException if the segment length is not a power of 2 or differs from an existing log.
+     */
+    public SegmentedLogWriter(final File directory, final int segmentLength)
+    {
+        this(
+            directory,
+            segmentLength,
+            (runnable) ->
+            {
+                final Thread thread = new Thread(runnable, "segmented-log-preallocator");
+                thread.setDaemon(true);
+                thread.start();
+            });
+    }
+
+    /**
+     * Open a log for writing, creating it if it does not exist or continuing from the published position if it does.
+     *
+     * @param directory     in which the log files are stored.
+     * @param segmentLength of each segment file which must be a power of 2.
+     * @param executor      on which the next segment is preallocated.
+     * @throws IllegalStateException if the segment length is not a power of 2 or differs from an existing log.
+     */
+    public SegmentedLogWriter(final File directory, final int segmentLength, final Executor executor)
+    {
+        checkSegmentLength(segmentLength);
+
+        this.directory = directory;
+        this.segmentLength = segmentLength;
+        this.positionBitsToShift = Integer.numberOfTrailingZeros(segmentLength);
+        this.executor = executor;
+
+        IoUtil.ensureDirectoryExists(directory, "segmented log");
+        final File metadataFile = new File(directory, METADATA_FILE_NAME);
+        if (metadataFile.exists())
+        {
+            metadataMappedBuffer = IoUtil.mapExistingFile(metadataFile, "segmented log metadata");
+            metadataBuffer = new UnsafeBuffer(metadataMappedBuffer);
+
+            final int existingSegmentLength = metadataBuffer.getInt(SEGMENT_LENGTH_OFFSET);
+            if (existingSegmentLength != segmentLength)
+            {
+                IoUtil.unmap(metadataMappedBuffer);
+                throw new IllegalStateException(
+                    "Log segment length is " + existingSegmentLength + ", segmentLength=" + segmentLength);
+            }
+        }
+        else
+        {
+            metadataMappedBuffer = IoUtil.mapNewFile(metadataFile, METADATA_LENGTH);
+            metadataBuffer = new UnsafeBuffer(metadataMappedBuffer);
+            metadataBuffer.putInt(SEGMENT_LENGTH_OFFSET, segmentLength);
+        }
+
+        final long position = metadataBuffer.getLongVolatile(POSITION_OFFSET);
+        segmentIndex = position >>> positionBitsToShift;
+        segmentOffset = (int)position & (segmentLength - 1);
+        segmentMappedBuffer = mapSegment(segmentIndex);
+        segmentBuffer.wrap(segmentMappedBuffer);
+        preallocateNextSegment();
+    }
+
+    /**
+     * Length of each segment file.
+     *
+     * @return length of each segment file.
+     */
+    public int segmentLength()
+    {
+        return segmentLength;
+    }
+
+    /**
+     * Position up to which records have been published.
+     *
+     * @return position up to which records have been published.
+     */
+    public long position()
+    {
+        return (segmentIndex << positionBitsToShift) + segmentOffset;
+    }
+
+    /**
+     * Start position of the first segment retained in the log.
+     *
+     * @return start position of the first segment retained in the log.
+     */
+    public long startPosition()
+    {
+        return metadataBuffer.getLongVolatile(START_POSITION_OFFSET);
+    }
+
+    /**
+     * Append a record to the log and publish it to readers.
+     *
+     * @param msgTypeId type of the message encoding.
+     * @param srcBuffer containing the encoded binary message.
+     * @param srcIndex  at which the encoded message begins.
+     * @param length    of the encoded message in bytes.
+     * @return the position of the log after the record.
+     * @throws IllegalArgumentException if the msgTypeId is not valid or the record will not fit in a segment.
+     */
+    public long append(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        checkTypeId(msgTypeId);
+
+        final int recordLength = length + HEADER_LENGTH;
+        final int alignedRecordLength = align(recordLength, ALIGNMENT);
+        if (alignedRecordLength > segmentLength)
+        {
+            throw new IllegalArgumentException(
+                "Encoded message exceeds segmentLength of " + segmentLength + ", length=" + length);
+        }
+
+        final int toSegmentEndLength = segmentLength - segmentOffset;
+        if (alignedRecordLength > toSegmentEndLength)
+        {
+            if (toSegmentEndLength > 0)
+            {
+                segmentBuffer.putInt(lengthOffset(segmentOffset), toSegmentEndLength);
+                segmentBuffer.putInt(typeOffset(segmentOffset), PADDING_MSG_TYPE_ID);
+            }
+
+            rollSegment();
+        }
+
+        final UnsafeBuffer buffer = this.segmentBuffer;
+        final int recordIndex = segmentOffset;
+        buffer.putInt(lengthOffset(recordIndex), recordLength);
+        buffer.putInt(typeOffset(recordIndex), msgTypeId);
+        buffer.putBytes(encodedMsgOffset(recordIndex), srcBuffer, srcIndex, length);
+
+        segmentOffset = recordIndex + alignedRecordLength;
+        final long position = position();
+        metadataBuffer.putLongOrdered(POSITION_OFFSET, position);
+
+        return position;
+    }
+
+    /**
+     * Delete the segments which lie entirely before a position. The active segment is never deleted.
+     * <p>
+     * The start position is published before the files are deleted so readers which have fallen behind skip
+     * forward to it. A reader which is part way through mapping a segment as it is deleted will fail, so retention
+     * should leave a margin for slow readers.
+     *
+     * @param position before which whole segments can be deleted.
+     * @return the number of segments deleted.
+     */
+    public int deleteSegmentsBefore(final long position)
+    {
+        final long startIndex = startPosition() >>> positionBitsToShift;
+        final long newStartIndex = Math.min(position >>> positionBitsToShift, segmentIndex);
+        if (newStartIndex <= startIndex)
+        {
+            return 0;
+        }
+
+        metadataBuffer.putLongOrdered(START_POSITION_OFFSET, newStartIndex << positionBitsToShift);
+
+        int deleted = 0;
+        for (long i = startIndex; i < newStartIndex; i++)
+        {
+            if (segmentFile(directory, i).delete())
+            {
+                deleted++;
+            }
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Force the contents of the active segment and the metadata to be written to the storage device.
+     */
+    public void force()
+    {
+        segmentMappedBuffer.force();
+        metadataMappedBuffer.force();
+    }
+
+    /**
+     * Unmap the log files, waiting for any preallocation in progress to complete.
+     */
+    public void close()
+    {
+        IoUtil.unmap(segmentMappedBuffer);
+        IoUtil.unmap(nextSegment.join());
+        IoUtil.unmap(metadataMappedBuffer);
+    }
+
+    private void rollSegment()
+    {
+        IoUtil.unmap(segmentMappedBuffer);
+
+        segmentMappedBuffer = nextSegment.join();
+        segmentBuffer.wrap(segmentMappedBuffer);
+        segmentIndex++;
+        segmentOffset = 0;
+
+        preallocateNextSegment();
+    }
+
+    private void preallocateNextSegment()
+    {
+        final long nextIndex = segmentIndex + 1;
+        nextSegment = CompletableFuture.supplyAsync(() -> mapSegment(nextIndex), executor);
+    }
+
+    private MappedByteBuffer mapSegment(final long index)
+    {
+        final File file = segmentFile(directory, index);
+
+        return file.exists() ?
+            IoUtil.mapExistingFile(file, "log segment") : IoUtil.mapNewFile(file, segmentLength);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.ringbuffer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.OccupancyRecorder;
+
+/**
+ * Wrapper for a {@link RingBuffer} which records its occupancy in bytes and the time sampled messages spend in it with
+ * an {@link OccupancyRecorder}.
+ * <p>
+ * Positions are measured by {@link RingBuffer#producerPosition()} and {@link RingBuffer#consumerPosition()} of the
+ * delegate so the depth and high-water mark include record headers and padding.
+ */
+public class InstrumentedRingBuffer implements RingBuffer
+{
+    private final RingBuffer delegate;
+    private final OccupancyRecorder recorder;
+
+    /**
+     * Wrap a {@link RingBuffer} to record its occupancy.
+     *
+     * @param delegate to which operations are delegated.
+     * @param recorder to which occupancy and sojourn times are recorded.
+     */
+    public InstrumentedRingBuffer(final RingBuffer delegate, final OccupancyRecorder recorder)
+    {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    /**
+     * The {@link RingBuffer} to which operations are delegated.
+     *
+     * @return the {@link RingBuffer} to which operations are delegated.
+     */
+    public RingBuffer delegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * The {@link OccupancyRecorder} to which occupancy and sojourn times are recorded.
+     *
+     * @return the {@link OccupancyRecorder} to which occupancy and sojourn times are recorded.
+     */
+    public OccupancyRecorder recorder()
+    {
+        return recorder;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int capacity()
+    {
+        return delegate.capacity();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean write(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        if (recorder.isSampleDue())
+        {
+            final long timestampNs = recorder.nanoTime();
+            final boolean written = delegate.write(msgTypeId, srcBuffer, srcIndex, length);
+            if (written)
+            {
+                onSample(timestampNs);
+            }
+
+            return written;
+        }
+
+        return delegate.write(msgTypeId, srcBuffer, srcIndex, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean writeBatch(
+        final int msgTypeId,
+        final DirectBuffer srcBuffer,
+        final int srcIndex,
+        final int[] lengths,
+        final int lengthsOffset,
+        final int count)
+    {
+        if (recorder.isSampleDue())
+        {
+            final long timestampNs = recorder.nanoTime();
+            final boolean written = delegate.writeBatch(
+                msgTypeId, srcBuffer, srcIndex, lengths, lengthsOffset, count);
+            if (written)
+            {
+                onSample(timestampNs);
+            }
+
+            return written;
+        }
+
+        return delegate.writeBatch(msgTypeId, srcBuffer, srcIndex, lengths, lengthsOffset, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int read(final MessageHandler handler)
+    {
+        return onConsumed(delegate.read(handler));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int read(final MessageHandler handler, final int messageCountLimit)
+    {
+        return onConsumed(delegate.read(handler, messageCountLimit));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int maxMsgLength()
+    {
+        return delegate.maxMsgLength();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long nextCorrelationId()
+    {
+        return delegate.nextCorrelationId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public AtomicBuffer buffer()
+    {
+        return delegate.buffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void consumerHeartbeatTime(final long time)
+    {
+        delegate.consumerHeartbeatTime(time);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long consumerHeartbeatTime()
+    {
+        return delegate.consumerHeartbeatTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long producerPosition()
+    {
+        return delegate.producerPosition();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long consumerPosition()
+    {
+        return delegate.consumerPosition();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size()
+    {
+        return delegate.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean unblock()
+    {
+        return delegate.unblock();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void enableConsumerWakeup(final Thread consumerThread)
+    {
+        delegate.enableConsumerWakeup(consumerThread);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean prepareConsumerPark()
+    {
+        return delegate.prepareConsumerPark();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void completeConsumerPark()
+    {
+        delegate.completeConsumerPark();
+    }
+
+    private void onSample(final long timestampNs)
+    {
+        final long producerPosition = delegate.producerPosition();
+        if (recorder.onSample(timestampNs, producerPosition, producerPosition - delegate.consumerPosition()) &&
+            delegate.consumerPosition() >= producerPosition)
+        {
+            recorder.discardSample(producerPosition);
+        }
+    }
+
+    private int onConsumed(final int count)
+    {
+        if (count > 0)
+        {
+            recorder.onConsumed(delegate.consumerPosition());
+        }
+
+        return count;
+    }
+}
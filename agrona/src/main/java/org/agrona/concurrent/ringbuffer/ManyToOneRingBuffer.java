@@ -20,6 +20,8 @@ import org.agrona.UnsafeAccess;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.MessageHandler;
 
+import java.util.concurrent.locks.LockSupport;
+
 import static org.agrona.BitUtil.align;
 import static org.agrona.concurrent.ringbuffer.RecordDescriptor.*;
 import static org.agrona.concurrent.ringbuffer.RingBufferDescriptor.*;
@@ -46,7 +48,9 @@ public class ManyToOneRingBuffer implements RingBuffer
     private final int headPositionIndex;
     private final int correlationIdCounterIndex;
     private final int consumerHeartbeatIndex;
+    private final int consumerWakeupIndex;
     private final AtomicBuffer buffer;
+    private volatile Thread consumerThread;
 
     /**
      * Construct a new {@link RingBuffer} based on an underlying {@link AtomicBuffer}.
@@ -71,6 +75,7 @@ public class ManyToOneRingBuffer implements RingBuffer
         headPositionIndex = capacity + HEAD_POSITION_OFFSET;
         correlationIdCounterIndex = capacity + CORRELATION_COUNTER_OFFSET;
         consumerHeartbeatIndex = capacity + CONSUMER_HEARTBEAT_OFFSET;
+        consumerWakeupIndex = capacity + CONSUMER_WAKEUP_OFFSET;
     }
 
     /**
@@ -103,6 +108,7 @@ public class ManyToOneRingBuffer implements RingBuffer
 
             buffer.putBytes(encodedMsgOffset(recordIndex), srcBuffer, srcIndex, length);
             buffer.putIntOrdered(lengthOffset(recordIndex), recordLength);
+            signalConsumer(buffer);
 
             isSuccessful = true;
         }
@@ -110,6 +116,73 @@ public class ManyToOneRingBuffer implements RingBuffer
         return isSuccessful;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public boolean writeBatch(
+        final int msgTypeId,
+        final DirectBuffer srcBuffer,
+        final int srcIndex,
+        final int[] lengths,
+        final int lengthsOffset,
+        final int count)
+    {
+        checkTypeId(msgTypeId);
+        checkBatch(lengths, lengthsOffset, count);
+
+        final AtomicBuffer buffer = this.buffer;
+        final int tailIndex = claimBatchCapacity(buffer, lengths, lengthsOffset, count);
+        if (INSUFFICIENT_CAPACITY == tailIndex)
+        {
+            return false;
+        }
+
+        final int capacity = this.capacity;
+        final int limit = lengthsOffset + count;
+        int recordIndex = tailIndex;
+        for (int i = lengthsOffset; i < limit; i++)
+        {
+            final int recordLength = lengths[i] + HEADER_LENGTH;
+            final int alignedRecordLength = align(recordLength, ALIGNMENT);
+            final int toBufferEndLength = capacity - recordIndex;
+
+            if (alignedRecordLength > toBufferEndLength)
+            {
+                buffer.putLongOrdered(recordIndex, makeHeader(toBufferEndLength, PADDING_MSG_TYPE_ID));
+                recordIndex = 0;
+            }
+
+            buffer.putLongOrdered(recordIndex, makeHeader(-recordLength, msgTypeId));
+            recordIndex = (recordIndex + alignedRecordLength) & (capacity - 1);
+        }
+
+        UnsafeAccess.UNSAFE.storeFence();
+
+        recordIndex = tailIndex;
+        int msgIndex = srcIndex;
+        for (int i = lengthsOffset; i < limit; i++)
+        {
+            final int length = lengths[i];
+            final int recordLength = length + HEADER_LENGTH;
+            final int alignedRecordLength = align(recordLength, ALIGNMENT);
+
+            if (alignedRecordLength > (capacity - recordIndex))
+            {
+                recordIndex = 0;
+            }
+
+            buffer.putBytes(encodedMsgOffset(recordIndex), srcBuffer, msgIndex, length);
+            buffer.putIntOrdered(lengthOffset(recordIndex), recordLength);
+
+            recordIndex = (recordIndex + alignedRecordLength) & (capacity - 1);
+            msgIndex += length;
+        }
+
+        signalConsumer(buffer);
+
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -246,6 +319,40 @@ public class ManyToOneRingBuffer implements RingBuffer
         return (int)(tail - headAfter);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void enableConsumerWakeup(final Thread consumerThread)
+    {
+        this.consumerThread = consumerThread;
+        buffer.putIntVolatile(consumerWakeupIndex, CONSUMER_ACTIVE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean prepareConsumerPark()
+    {
+        final AtomicBuffer buffer = this.buffer;
+        buffer.putIntVolatile(consumerWakeupIndex, CONSUMER_PARKING);
+
+        if (buffer.getLongVolatile(tailPositionIndex) != buffer.getLong(headPositionIndex))
+        {
+            buffer.putIntOrdered(consumerWakeupIndex, CONSUMER_ACTIVE);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void completeConsumerPark()
+    {
+        buffer.putIntOrdered(consumerWakeupIndex, CONSUMER_ACTIVE);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -315,6 +422,15 @@ public class ManyToOneRingBuffer implements RingBuffer
         return allZeros;
     }
 
+    private void signalConsumer(final AtomicBuffer buffer)
+    {
+        if (CONSUMER_PARKING == buffer.getIntVolatile(consumerWakeupIndex) &&
+            buffer.compareAndSetInt(consumerWakeupIndex, CONSUMER_PARKING, CONSUMER_ACTIVE))
+        {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
     private void checkMsgLength(final int length)
     {
         if (length > maxMsgLength)
@@ -324,6 +440,81 @@ public class ManyToOneRingBuffer implements RingBuffer
         }
     }
 
+    private void checkBatch(final int[] lengths, final int lengthsOffset, final int count)
+    {
+        long batchLength = 0;
+        for (int i = lengthsOffset, limit = lengthsOffset + count; i < limit; i++)
+        {
+            final int length = lengths[i];
+            checkMsgLength(length);
+            batchLength += align(length + HEADER_LENGTH, ALIGNMENT);
+        }
+
+        if (batchLength > capacity)
+        {
+            throw new IllegalArgumentException(
+                "Encoded batch exceeds capacity of " + capacity + ", batchLength=" + batchLength);
+        }
+    }
+
+    private long batchLength(final int tailIndex, final int[] lengths, final int lengthsOffset, final int count)
+    {
+        final int capacity = this.capacity;
+        int recordIndex = tailIndex;
+        long batchLength = 0;
+
+        for (int i = lengthsOffset, limit = lengthsOffset + count; i < limit; i++)
+        {
+            final int alignedRecordLength = align(lengths[i] + HEADER_LENGTH, ALIGNMENT);
+            final int toBufferEndLength = capacity - recordIndex;
+
+            if (alignedRecordLength > toBufferEndLength)
+            {
+                batchLength += toBufferEndLength;
+                recordIndex = 0;
+            }
+
+            batchLength += alignedRecordLength;
+            recordIndex = (recordIndex + alignedRecordLength) & (capacity - 1);
+        }
+
+        return batchLength;
+    }
+
+    private int claimBatchCapacity(
+        final AtomicBuffer buffer, final int[] lengths, final int lengthsOffset, final int count)
+    {
+        final int capacity = this.capacity;
+        final int tailPositionIndex = this.tailPositionIndex;
+        final int headCachePositionIndex = this.headCachePositionIndex;
+        final int mask = capacity - 1;
+
+        long head = buffer.getLongVolatile(headCachePositionIndex);
+
+        long tail;
+        long batchLength;
+        do
+        {
+            tail = buffer.getLongVolatile(tailPositionIndex);
+            batchLength = batchLength((int)tail & mask, lengths, lengthsOffset, count);
+
+            if (batchLength > (capacity - (int)(tail - head)))
+            {
+                head = buffer.getLongVolatile(headPositionIndex);
+
+                if (batchLength > (capacity - (int)(tail - head)))
+                {
+                    return INSUFFICIENT_CAPACITY;
+                }
+
+                buffer.putLongOrdered(headCachePositionIndex, head);
+            }
+        }
+        while (!buffer.compareAndSetLong(tailPositionIndex, tail, tail + batchLength));
+
+        return (int)tail & mask;
+    }
+
     private int claimCapacity(final AtomicBuffer buffer, final int requiredCapacity)
     {
         final int capacity = this.capacity;
@@ -16,9 +16,12 @@
 package org.agrona.concurrent.ringbuffer;
 
 import org.agrona.DirectBuffer;
+import org.agrona.UnsafeAccess;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.MessageHandler;
 
+import java.util.concurrent.locks.LockSupport;
+
 import static org.agrona.BitUtil.align;
 import static org.agrona.concurrent.ringbuffer.RecordDescriptor.*;
 import static org.agrona.concurrent.ringbuffer.RingBufferDescriptor.*;
@@ -43,7 +46,10 @@ public class OneToOneRingBuffer implements RingBuffer
     private final int headPositionIndex;
     private final int correlationIdCounterIndex;
     private final int consumerHeartbeatIndex;
+    private final int consumerWakeupIndex;
+    private final boolean consumerWakeupSupported;
     private final AtomicBuffer buffer;
+    private volatile Thread consumerThread;
 
     /**
      * Construct a new {@link RingBuffer} based on an underlying {@link AtomicBuffer}.
@@ -55,8 +61,26 @@ public class OneToOneRingBuffer implements RingBuffer
      *                               plus {@link RingBufferDescriptor#TRAILER_LENGTH} in capacity.
      */
     public OneToOneRingBuffer(final AtomicBuffer buffer)
+    {
+        this(buffer, false);
+    }
+
+    /**
+     * Construct a new {@link RingBuffer} based on an underlying {@link AtomicBuffer} which optionally supports
+     * {@link org.agrona.concurrent.ConsumerWakeup}.
+     * <p>
+     * Supporting consumer wake-up costs the producer a full fence after each write so that the consumer cannot miss
+     * a message it is about to park on. Without it the producer cost is unchanged.
+     *
+     * @param buffer                  via which events will be exchanged.
+     * @param consumerWakeupSupported true if the consumer may enable wake-up.
+     * @throws IllegalStateException if the buffer capacity is not a power of 2
+     *                               plus {@link RingBufferDescriptor#TRAILER_LENGTH} in capacity.
+     */
+    public OneToOneRingBuffer(final AtomicBuffer buffer, final boolean consumerWakeupSupported)
     {
         this.buffer = buffer;
+        this.consumerWakeupSupported = consumerWakeupSupported;
         checkCapacity(buffer.capacity());
         capacity = buffer.capacity() - TRAILER_LENGTH;
 
@@ -68,6 +92,7 @@ public class OneToOneRingBuffer implements RingBuffer
         headPositionIndex = capacity + HEAD_POSITION_OFFSET;
         correlationIdCounterIndex = capacity + CORRELATION_COUNTER_OFFSET;
         consumerHeartbeatIndex = capacity + CONSUMER_HEARTBEAT_OFFSET;
+        consumerWakeupIndex = capacity + CONSUMER_WAKEUP_OFFSET;
     }
 
     /**
@@ -145,6 +170,75 @@ public class OneToOneRingBuffer implements RingBuffer
         buffer.putLong(recordIndex + alignedRecordLength, 0L);
         buffer.putLongOrdered(recordIndex, makeHeader(recordLength, msgTypeId));
         buffer.putLongOrdered(tailPositionIndex, tail + alignedRecordLength + padding);
+        checkConsumerWakeup(buffer);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean writeBatch(
+        final int msgTypeId,
+        final DirectBuffer srcBuffer,
+        final int srcIndex,
+        final int[] lengths,
+        final int lengthsOffset,
+        final int count)
+    {
+        checkTypeId(msgTypeId);
+        checkBatch(lengths, lengthsOffset, count);
+
+        final AtomicBuffer buffer = this.buffer;
+        final int capacity = this.capacity;
+        final int tailPositionIndex = this.tailPositionIndex;
+        final int headCachePositionIndex = this.headCachePositionIndex;
+        final int mask = capacity - 1;
+
+        long head = buffer.getLong(headCachePositionIndex);
+        final long tail = buffer.getLong(tailPositionIndex);
+        final int tailIndex = (int)tail & mask;
+        final long batchLength = batchLength(tailIndex, lengths, lengthsOffset, count);
+        final long requiredCapacity = batchLength + HEADER_LENGTH;
+
+        if (requiredCapacity > (capacity - (int)(tail - head)))
+        {
+            head = buffer.getLongVolatile(headPositionIndex);
+
+            if (requiredCapacity > (capacity - (int)(tail - head)))
+            {
+                return false;
+            }
+
+            buffer.putLong(headCachePositionIndex, head);
+        }
+
+        int recordIndex = tailIndex;
+        int msgIndex = srcIndex;
+        for (int i = lengthsOffset, limit = lengthsOffset + count; i < limit; i++)
+        {
+            final int length = lengths[i];
+            final int recordLength = length + HEADER_LENGTH;
+            final int alignedRecordLength = align(recordLength, ALIGNMENT);
+            final int toBufferEndLength = capacity - recordIndex;
+
+            if ((alignedRecordLength + HEADER_LENGTH) > toBufferEndLength)
+            {
+                buffer.putLong(0, 0L);
+                buffer.putLongOrdered(recordIndex, makeHeader(toBufferEndLength, PADDING_MSG_TYPE_ID));
+                recordIndex = 0;
+            }
+
+            buffer.putBytes(encodedMsgOffset(recordIndex), srcBuffer, msgIndex, length);
+            buffer.putLong(recordIndex + alignedRecordLength, 0L);
+            buffer.putLongOrdered(recordIndex, makeHeader(recordLength, msgTypeId));
+
+            recordIndex += alignedRecordLength;
+            msgIndex += length;
+        }
+
+        buffer.putLongOrdered(tailPositionIndex, tail + batchLength);
+        checkConsumerWakeup(buffer);
 
         return true;
     }
@@ -285,6 +379,50 @@ public class OneToOneRingBuffer implements RingBuffer
         return (int)(tail - headAfter);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void enableConsumerWakeup(final Thread consumerThread)
+    {
+        if (!consumerWakeupSupported)
+        {
+            throw new UnsupportedOperationException("consumer wake-up not supported on construction");
+        }
+
+        this.consumerThread = consumerThread;
+        buffer.putIntVolatile(consumerWakeupIndex, CONSUMER_ACTIVE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean prepareConsumerPark()
+    {
+        if (!consumerWakeupSupported)
+        {
+            return false;
+        }
+
+        final AtomicBuffer buffer = this.buffer;
+        buffer.putIntVolatile(consumerWakeupIndex, CONSUMER_PARKING);
+
+        if (buffer.getLongVolatile(tailPositionIndex) != buffer.getLong(headPositionIndex))
+        {
+            buffer.putIntOrdered(consumerWakeupIndex, CONSUMER_ACTIVE);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void completeConsumerPark()
+    {
+        buffer.putIntOrdered(consumerWakeupIndex, CONSUMER_ACTIVE);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -293,6 +431,27 @@ public class OneToOneRingBuffer implements RingBuffer
         return false;
     }
 
+    private void checkConsumerWakeup(final AtomicBuffer buffer)
+    {
+        if (consumerWakeupSupported)
+        {
+            UnsafeAccess.UNSAFE.fullFence(); // order the tail store before the read of the consumer wake-up state
+            if (WAKEUP_DISABLED != buffer.getIntVolatile(consumerWakeupIndex))
+            {
+                signalConsumer(buffer);
+            }
+        }
+    }
+
+    private void signalConsumer(final AtomicBuffer buffer)
+    {
+        if (CONSUMER_PARKING == buffer.getIntVolatile(consumerWakeupIndex) &&
+            buffer.compareAndSetInt(consumerWakeupIndex, CONSUMER_PARKING, CONSUMER_ACTIVE))
+        {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
     private void checkMsgLength(final int length)
     {
         if (length > maxMsgLength)
@@ -301,4 +460,45 @@ public class OneToOneRingBuffer implements RingBuffer
                 "Encoded message exceeds maxMsgLength of " + maxMsgLength + ", length=" + length);
         }
     }
+
+    private void checkBatch(final int[] lengths, final int lengthsOffset, final int count)
+    {
+        long batchLength = 0;
+        for (int i = lengthsOffset, limit = lengthsOffset + count; i < limit; i++)
+        {
+            final int length = lengths[i];
+            checkMsgLength(length);
+            batchLength += align(length + HEADER_LENGTH, ALIGNMENT);
+        }
+
+        if (batchLength > (capacity - HEADER_LENGTH))
+        {
+            throw new IllegalArgumentException(
+                "Encoded batch exceeds capacity of " + capacity + ", batchLength=" + batchLength);
+        }
+    }
+
+    private long batchLength(final int tailIndex, final int[] lengths, final int lengthsOffset, final int count)
+    {
+        final int capacity = this.capacity;
+        int recordIndex = tailIndex;
+        long batchLength = 0;
+
+        for (int i = lengthsOffset, limit = lengthsOffset + count; i < limit; i++)
+        {
+            final int alignedRecordLength = align(lengths[i] + HEADER_LENGTH, ALIGNMENT);
+            final int toBufferEndLength = capacity - recordIndex;
+
+            if ((alignedRecordLength + HEADER_LENGTH) > toBufferEndLength)
+            {
+                batchLength += toBufferEndLength;
+                recordIndex = 0;
+            }
+
+            batchLength += alignedRecordLength;
+            recordIndex += alignedRecordLength;
+        }
+
+        return batchLength;
+    }
 }
@@ -17,13 +17,14 @@ package org.agrona.concurrent.ringbuffer;
 
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.ConsumerWakeup;
 import org.agrona.concurrent.MessageHandler;
 
 /**
  * Ring-buffer for the concurrent exchanging of binary encoded messages from producer(s) to consumer(s)
  * in a FIFO manner.
  */
-public interface RingBuffer
+public interface RingBuffer extends ConsumerWakeup
 {
     /**
      * Get the capacity of the ring-buffer in bytes for exchange.
@@ -44,6 +45,52 @@ public interface RingBuffer
      */
     boolean write(int msgTypeId, DirectBuffer srcBuffer, int srcIndex, int length);
 
+    /**
+     * Non-blocking write of a batch of messages of the same type to an underlying ring-buffer. The messages are
+     * encoded back to back in the source buffer beginning at srcIndex with the length of each given in turn.
+     * <p>
+     * Capacity for the whole batch is claimed in a single operation and then each record is committed in order so
+     * the consumer can process the earlier messages of a batch while the later ones are still being written.
+     * Either all messages in the batch are written or none are.
+     * <p>
+     * The default implementation writes each message in turn with
+     * {@link #write(int, DirectBuffer, int, int)} so it does not claim capacity for the whole batch and can write
+     * the earlier messages of a batch before returning false. Implementations should override it to provide the
+     * all or nothing guarantee.
+     *
+     * @param msgTypeId     type of the message encoding.
+     * @param srcBuffer     containing the encoded binary messages.
+     * @param srcIndex      at which the first encoded message begins.
+     * @param lengths       of the encoded messages in bytes.
+     * @param lengthsOffset in the lengths array at which the batch begins.
+     * @param count         of messages in the batch.
+     * @return true if the batch was written to the ring-buffer, or false if insufficient space exists.
+     * @throws IllegalArgumentException if a length is greater than {@link RingBuffer#maxMsgLength()} or the
+     *                                  batch is greater than the {@link RingBuffer#capacity()}.
+     */
+    default boolean writeBatch(
+        final int msgTypeId,
+        final DirectBuffer srcBuffer,
+        final int srcIndex,
+        final int[] lengths,
+        final int lengthsOffset,
+        final int count)
+    {
+        int msgIndex = srcIndex;
+        for (int i = lengthsOffset, limit = lengthsOffset + count; i < limit; i++)
+        {
+            final int length = lengths[i];
+            if (!write(msgTypeId, srcBuffer, msgIndex, length))
+            {
+                return false;
+            }
+
+            msgIndex += length;
+        }
+
+        return true;
+    }
+
     /**
      * Read as many messages as are available to the end of the ring buffer.
      * <p>
@@ -143,4 +190,34 @@ public interface RingBuffer
      * @return true of an unblocking action was taken otherwise false.
      */
     boolean unblock();
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default implementation does not support consumer wake-up.
+     *
+     * @throws UnsupportedOperationException if the implementation does not support consumer wake-up.
+     */
+    default void enableConsumerWakeup(final Thread consumerThread)
+    {
+        throw new UnsupportedOperationException("consumer wake-up is not supported by " + getClass().getName());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default implementation does not support consumer wake-up so the consumer will not be signalled and
+     * should not park.
+     */
+    default boolean prepareConsumerPark()
+    {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    default void completeConsumerPark()
+    {
+    }
 }
@@ -49,6 +49,14 @@ public class RingBufferDescriptor
      */
     public static final int CONSUMER_HEARTBEAT_OFFSET;
 
+    /**
+     * Offset within the trailer for where the consumer wake-up state is stored. This shares the padded region of the
+     * consumer heartbeat, which is also written by the consumer, so the trailer length is unchanged.
+     *
+     * @see org.agrona.concurrent.ConsumerWakeup
+     */
+    public static final int CONSUMER_WAKEUP_OFFSET;
+
     /**
      * Total length of the trailer in bytes.
      */
@@ -72,6 +80,8 @@ public class RingBufferDescriptor
         offset += (BitUtil.CACHE_LINE_LENGTH * 2);
         CONSUMER_HEARTBEAT_OFFSET = offset;
 
+        CONSUMER_WAKEUP_OFFSET = offset + BitUtil.SIZE_OF_LONG;
+
         offset += (BitUtil.CACHE_LINE_LENGTH * 2);
         TRAILER_LENGTH = offset;
     }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.ringbuffer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.MessageFragmentAssembler;
+
+import static org.agrona.concurrent.MessageFragmentAssembler.*;
+import static org.agrona.concurrent.ringbuffer.RecordDescriptor.checkTypeId;
+
+/**
+ * Writes messages to a {@link RingBuffer} splitting those greater than {@link RingBuffer#maxMsgLength()} into
+ * fragments which can be reassembled by a {@link MessageFragmentAssembler} on the consumer side.
+ * <p>
+ * Messages which fit are written directly to the ring buffer. The fragments of a large message are written in a
+ * single {@link RingBuffer#writeBatch(int, DirectBuffer, int, int[], int, int)} so they are contiguous even when
+ * there are many producers, and the message cannot be larger than the ring buffer can hold as one batch.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe. Each producer thread should have its own instance.
+ */
+public class RingBufferFragmenter
+{
+    private final RingBuffer ringBuffer;
+    private final int maxMsgLength;
+    private final int maxPayloadLength;
+    private final ExpandableArrayBuffer scratchBuffer = new ExpandableArrayBuffer();
+    private int[] lengths = new int[8];
+    private int sequence;
+
+    /**
+     * Construct a fragmenter for writing to a given ring buffer.
+     *
+     * @param ringBuffer to which messages will be written.
+     */
+    public RingBufferFragmenter(final RingBuffer ringBuffer)
+    {
+        this.ringBuffer = ringBuffer;
+        this.maxMsgLength = ringBuffer.maxMsgLength();
+        this.maxPayloadLength = maxMsgLength - FRAGMENT_HEADER_LENGTH;
+    }
+
+    /**
+     * The ring buffer to which messages are written.
+     *
+     * @return the ring buffer to which messages are written.
+     */
+    public RingBuffer ringBuffer()
+    {
+        return ringBuffer;
+    }
+
+    /**
+     * Non-blocking write of a message to the ring buffer which will be fragmented if necessary.
+     *
+     * @param msgTypeId type of the message encoding.
+     * @param srcBuffer containing the encoded binary message.
+     * @param srcIndex  at which the encoded message begins.
+     * @param length    of the encoded message in bytes.
+     * @return true if written to the ring-buffer, or false if insufficient space exists.
+     * @throws IllegalArgumentException if the fragmented message is greater than the {@link RingBuffer#capacity()}.
+     */
+    public boolean write(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        if (length <= maxMsgLength)
+        {
+            return ringBuffer.write(msgTypeId, srcBuffer, srcIndex, length);
+        }
+
+        return writeFragmented(msgTypeId, srcBuffer, srcIndex, length);
+    }
+
+    private boolean writeFragmented(
+        final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        checkTypeId(msgTypeId);
+
+        final int fragmentCount = (length + maxPayloadLength - 1) / maxPayloadLength;
+        if (fragmentCount > lengths.length)
+        {
+            lengths = new int[fragmentCount];
+        }
+
+        final ExpandableArrayBuffer scratchBuffer = this.scratchBuffer;
+        final int sequence = ++this.sequence;
+        int offset = 0;
+        int scratchIndex = 0;
+        for (int i = 0; i < fragmentCount; i++)
+        {
+            final int payloadLength = Math.min(length - offset, maxPayloadLength);
+            int flags = 0;
+            if (0 == offset)
+            {
+                flags |= BEGIN_FLAG;
+            }
+            if (offset + payloadLength == length)
+            {
+                flags |= END_FLAG;
+            }
+
+            scratchBuffer.putInt(scratchIndex + FLAGS_OFFSET, flags);
+            scratchBuffer.putInt(scratchIndex + MSG_TYPE_ID_OFFSET, msgTypeId);
+            scratchBuffer.putInt(scratchIndex + SEQUENCE_OFFSET, sequence);
+            scratchBuffer.putInt(scratchIndex + MESSAGE_INDEX_OFFSET, offset);
+            scratchBuffer.putBytes(
+                scratchIndex + FRAGMENT_HEADER_LENGTH, srcBuffer, srcIndex + offset, payloadLength);
+
+            lengths[i] = FRAGMENT_HEADER_LENGTH + payloadLength;
+            scratchIndex += FRAGMENT_HEADER_LENGTH + payloadLength;
+            offset += payloadLength;
+        }
+
+        return ringBuffer.writeBatch(FRAGMENT_MSG_TYPE_ID, scratchBuffer, 0, lengths, 0, fragmentCount);
+    }
+}
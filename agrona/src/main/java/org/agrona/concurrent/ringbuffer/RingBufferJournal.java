@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.ringbuffer;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.log.SegmentedLogDescriptor;
+import org.agrona.concurrent.log.SegmentedLogReader;
+import org.agrona.concurrent.log.SegmentedLogWriter;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.Executor;
+
+/**
+ * Append-only journal of the messages consumed from a {@link RingBuffer} so they can be replayed after a restart.
+ * <p>
+ * Messages are appended to a {@link SegmentedLogWriter} as they are read from the ring buffer and before being passed
+ * to the handler, so the journal shares the on-disk format and recovery rules of the segmented log described in
+ * {@link SegmentedLogDescriptor} and can also be tailed by a {@link SegmentedLogReader}.
+ * <p>
+ * After each batch has been handled the consumer position is stored in a memory-mapped journal metadata file
+ * alongside the log. On restart messages which were journaled but may not have been fully handled can be replayed
+ * from {@link #consumerPosition()}, or the whole journal can be replayed from 0 to rebuild state. Mapped memory is
+ * written back by the OS should the process crash, {@link #force()} can be called to survive loss of the machine.
+ * <p>
+ * <b>Note:</b> This class is not threadsafe and is intended to be used by the single consumer of the ring buffer.
+ */
+public class RingBufferJournal implements AutoCloseable
+{
+    /**
+     * Name of the file in which the consumer position is stored.
+     */
+    public static final String METADATA_FILE_NAME = "journal.meta";
+
+    /**
+     * Offset in the metadata file at which the consumer position is stored.
+     */
+    public static final int CONSUMER_POSITION_OFFSET = 0;
+
+    /**
+     * Length of the metadata file.
+     */
+    public static final int METADATA_LENGTH = BitUtil.CACHE_LINE_LENGTH;
+
+    private final File directory;
+    private final SegmentedLogWriter logWriter;
+    private final MappedByteBuffer metadataMappedBuffer;
+    private final UnsafeBuffer metadataBuffer;
+    private final MessageHandler journalingHandler = this::onMessage;
+    private MessageHandler delegate;
+
+    /**
+     * Open a journal in a directory, creating it if it does not exist or continuing from the end of the journal if
+     * it does. Segments are preallocated on a new daemon thread each time one is required.
+     *
+     * @param directory     in which the journal files are stored.
+     * @param segmentLength of each segment file which must be a power of 2.
+     * @throws IllegalStateException if the segment length is not a power of 2 or differs from an existing journal.
+     */
+    public RingBufferJournal(final File directory, final int segmentLength)
+    {
+        this(directory, new SegmentedLogWriter(directory, segmentLength));
+    }
+
+    /**
+     * Open a journal in a directory, creating it if it does not exist or continuing from the end of the journal if
+     * it does.
+     *
+     * @param directory     in which the journal files are stored.
+     * @param segmentLength of each segment file which must be a power of 2.
+     * @param executor      on which the next segment is preallocated.
+     * @throws IllegalStateException if the segment length is not a power of 2 or differs from an existing journal.
+     */
+    public RingBufferJournal(final File directory, final int segmentLength, final Executor executor)
+    {
+        this(directory, new SegmentedLogWriter(directory, segmentLength, executor));
+    }
+
+    private RingBufferJournal(final File directory, final SegmentedLogWriter logWriter)
+    {
+        this.directory = directory;
+        this.logWriter = logWriter;
+
+        final File metadataFile = new File(directory, METADATA_FILE_NAME);
+        metadataMappedBuffer = metadataFile.exists() ?
+            IoUtil.mapExistingFile(metadataFile, "journal metadata") :
+            IoUtil.mapNewFile(metadataFile, METADATA_LENGTH);
+        metadataBuffer = new UnsafeBuffer(metadataMappedBuffer);
+    }
+
+    /**
+     * Length of each segment file.
+     *
+     * @return length of each segment file.
+     */
+    public int segmentLength()
+    {
+        return logWriter.segmentLength();
+    }
+
+    /**
+     * Position of the end of the journal at which the next message will be appended.
+     *
+     * @return position of the end of the journal at which the next message will be appended.
+     */
+    public long position()
+    {
+        return logWriter.position();
+    }
+
+    /**
+     * Position in the journal up to which messages have been handled by {@link #consume(RingBuffer, MessageHandler)}.
+     *
+     * @return position in the journal up to which messages have been handled.
+     */
+    public long consumerPosition()
+    {
+        return metadataBuffer.getLongVolatile(CONSUMER_POSITION_OFFSET);
+    }
+
+    /**
+     * Read as many messages as are available from a ring buffer, journaling each before it is passed to the handler.
+     *
+     * @param ringBuffer to read messages from.
+     * @param handler    to be called for processing each message in turn.
+     * @return the number of messages that have been processed.
+     */
+    public int consume(final RingBuffer ringBuffer, final MessageHandler handler)
+    {
+        return consume(ringBuffer, handler, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read up to a limit of messages from a ring buffer, journaling each before it is passed to the handler.
+     *
+     * @param ringBuffer        to read messages from.
+     * @param handler           to be called for processing each message in turn.
+     * @param messageCountLimit the number of messages will be read in a single invocation.
+     * @return the number of messages that have been processed.
+     */
+    public int consume(final RingBuffer ringBuffer, final MessageHandler handler, final int messageCountLimit)
+    {
+        delegate = handler;
+        final int messagesRead = ringBuffer.read(journalingHandler, messageCountLimit);
+
+        if (messagesRead > 0)
+        {
+            metadataBuffer.putLongOrdered(CONSUMER_POSITION_OFFSET, logWriter.position());
+        }
+
+        return messagesRead;
+    }
+
+    /**
+     * Append a message directly to the journal without it having been read from a ring buffer.
+     *
+     * @param msgTypeId type of the message encoding.
+     * @param srcBuffer containing the encoded binary message.
+     * @param srcIndex  at which the encoded message begins.
+     * @param length    of the encoded message in bytes.
+     * @throws IllegalArgumentException if the message will not fit in a segment.
+     */
+    public void append(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+    {
+        logWriter.append(msgTypeId, srcBuffer, srcIndex, length);
+    }
+
+    /**
+     * Replay the messages in the journal from a position up to the current end of the journal.
+     * <p>
+     * Replay stops early at a zero-filled gap, such as one left by a crash before a record was written, as the
+     * {@link SegmentedLogReader} treats it as the end of committed data.
+     *
+     * @param fromPosition at which to begin the replay, such as 0 or the {@link #consumerPosition()}.
+     * @param handler      to be called for each message in turn.
+     * @return the number of messages replayed.
+     * @throws IllegalArgumentException if the position is not aligned or beyond the end of the journal.
+     * @throws IllegalStateException    if a record in the journal has an invalid length.
+     */
+    public long replay(final long fromPosition, final MessageHandler handler)
+    {
+        final long endPosition = logWriter.position();
+        if (fromPosition < 0 || fromPosition > endPosition)
+        {
+            throw new IllegalArgumentException(
+                "Invalid replay position " + fromPosition + " for journal position " + endPosition);
+        }
+
+        long messageCount = 0;
+        try (SegmentedLogReader logReader = new SegmentedLogReader(directory, fromPosition))
+        {
+            long position = logReader.position();
+            while (position < endPosition)
+            {
+                messageCount += logReader.poll(handler);
+
+                final long nextPosition = logReader.position();
+                if (nextPosition == position)
+                {
+                    break;
+                }
+
+                position = nextPosition;
+            }
+        }
+
+        return messageCount;
+    }
+
+    /**
+     * Force the contents of the active segment and the metadata to be written to the storage device.
+     */
+    public void force()
+    {
+        logWriter.force();
+        metadataMappedBuffer.force();
+    }
+
+    /**
+     * Close the segmented log and unmap the journal metadata.
+     */
+    public void close()
+    {
+        logWriter.close();
+        IoUtil.unmap(metadataMappedBuffer);
+    }
+
+    private void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length)
+    {
+        logWriter.append(msgTypeId, buffer, index, length);
+        delegate.onMessage(msgTypeId, buffer, index, length);
+    }
+}
@@ -140,6 +140,50 @@ public class AtomicCounter implements AutoCloseable
         return currentValue;
     }
 
+    /**
+     * Set the value of the counter to proposedValue if greater than the current value in a manner that will not lose
+     * updates across threads.
+     *
+     * @param proposedValue for the new max.
+     * @return true if a new max as been set otherwise false.
+     */
+    public boolean proposeMax(final long proposedValue)
+    {
+        boolean updated = false;
+
+        long currentValue;
+        while (proposedValue > (currentValue = UnsafeAccess.UNSAFE.getLongVolatile(buffer, addressOffset)))
+        {
+            if (UnsafeAccess.UNSAFE.compareAndSwapLong(buffer, addressOffset, currentValue, proposedValue))
+            {
+                updated = true;
+                break;
+            }
+        }
+
+        return updated;
+    }
+
+    /**
+     * Set the value of the counter to proposedValue if greater than the current value with ordered store semantics.
+     * This is not safe across threads.
+     *
+     * @param proposedValue for the new max.
+     * @return true if a new max as been set otherwise false.
+     */
+    public boolean proposeMaxOrdered(final long proposedValue)
+    {
+        boolean updated = false;
+
+        if (UnsafeAccess.UNSAFE.getLong(buffer, addressOffset) < proposedValue)
+        {
+            UnsafeAccess.UNSAFE.putOrderedLong(buffer, addressOffset, proposedValue);
+            updated = true;
+        }
+
+        return updated;
+    }
+
     /**
      * Get the latest value for the counter.
      *
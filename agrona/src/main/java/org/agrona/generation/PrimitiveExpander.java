@@ -29,6 +29,7 @@ public final class PrimitiveExpander
 {
     private static final String SOURCE_DIRECTORY = "src/main/java/";
     private static final String COLLECTIONS = "org/agrona/collections";
+    private static final String CONCURRENT = "org/agrona/concurrent";
     private static final String SUFFIX = ".java";
     private static final String GENERATED_DIRECTORY = "build/generated-src";
 
@@ -47,6 +48,10 @@ public final class PrimitiveExpander
         expandPrimitiveSpecialisedClass(COLLECTIONS, "Int2ObjectCache");
         expandPrimitiveSpecialisedClass(COLLECTIONS, "Int2ObjectHashMap");
         expandPrimitiveSpecialisedClass(COLLECTIONS, "Object2IntHashMap");
+        expandPrimitiveSpecialisedClass(CONCURRENT, "AbstractConcurrentIntArrayQueue");
+        expandPrimitiveSpecialisedClass(CONCURRENT, "OneToOneConcurrentIntArrayQueue");
+        expandPrimitiveSpecialisedClass(CONCURRENT, "ManyToOneConcurrentIntArrayQueue");
+        expandPrimitiveSpecialisedClass(CONCURRENT, "ManyToManyConcurrentIntArrayQueue");
     }
 
     private static void expandPrimitiveSpecialisedClass(final String packageName, final String className)
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.concurrent.status.CountersReader.COUNTER_LENGTH;
+import static org.agrona.concurrent.status.CountersReader.METADATA_LENGTH;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class AccountingIdleStrategyTest
+{
+    private static final int NUMBER_OF_COUNTERS = 5;
+
+    private final CountersManager countersManager = new CountersManager(
+        new UnsafeBuffer(new byte[NUMBER_OF_COUNTERS * METADATA_LENGTH]),
+        new UnsafeBuffer(new byte[NUMBER_OF_COUNTERS * COUNTER_LENGTH]));
+
+    private long nanoTime = 0;
+    private long nextIdleDurationNs = 0;
+    private final IdleStrategy delegate = new IdleStrategy()
+    {
+        public void idle(final int workCount)
+        {
+            if (workCount <= 0)
+            {
+                idle();
+            }
+        }
+
+        public void idle()
+        {
+            nanoTime += nextIdleDurationNs;
+        }
+
+        public void reset()
+        {
+        }
+    };
+
+    private final AccountingIdleStrategy idleStrategy =
+        new AccountingIdleStrategy(delegate, () -> nanoTime, countersManager, "agent");
+
+    @After
+    public void after()
+    {
+        idleStrategy.close();
+    }
+
+    @Test
+    public void shouldAllocateLabelledCounters()
+    {
+        final List<String> labels = new ArrayList<>();
+        countersManager.forEach((id, label) -> labels.add(label));
+
+        assertThat(labels.get(idleStrategy.spins().id()), is("agent idle spins"));
+        assertThat(labels.get(idleStrategy.yields().id()), is("agent idle yields"));
+        assertThat(labels.get(idleStrategy.parks().id()), is("agent idle parks"));
+        assertThat(labels.get(idleStrategy.idleTimeNs().id()), is("agent idle time ns"));
+        assertThat(labels.get(idleStrategy.utilisationPpm().id()), is("agent utilisation ppm"));
+        assertThat(idleStrategy.utilisationPpm().get(), is(AccountingIdleStrategy.FULL_UTILISATION_PPM));
+    }
+
+    @Test
+    public void shouldClassifyIdleCallsByDuration()
+    {
+        idleFor(100);
+        idleFor(AccountingIdleStrategy.DEFAULT_SPIN_THRESHOLD_NS);
+        idleFor(AccountingIdleStrategy.DEFAULT_PARK_THRESHOLD_NS - 1);
+        idleFor(AccountingIdleStrategy.DEFAULT_PARK_THRESHOLD_NS);
+        idleFor(1_000_000);
+
+        assertThat(idleStrategy.spins().get(), is(1L));
+        assertThat(idleStrategy.yields().get(), is(2L));
+        assertThat(idleStrategy.parks().get(), is(2L));
+        assertThat(idleStrategy.idleTimeNs().get(), is(1_040_349L));
+    }
+
+    @Test
+    public void shouldReportUtilisationEachInterval()
+    {
+        nanoTime += 250_000_000;
+        idleStrategy.idle(1);
+        idleFor(250_000_000);
+        nanoTime += 500_000_000;
+        idleStrategy.idle(1);
+
+        assertThat(idleStrategy.utilisationPpm().get(), is(750_000L));
+
+        idleFor(AccountingIdleStrategy.DEFAULT_REPORT_INTERVAL_NS);
+        assertThat(idleStrategy.utilisationPpm().get(), is(0L));
+    }
+
+    @Test
+    public void shouldDelegateReset()
+    {
+        final IdleStrategy mockDelegate = mock(IdleStrategy.class);
+        new AccountingIdleStrategy(
+            mockDelegate,
+            () -> nanoTime,
+            AccountingIdleStrategy.DEFAULT_SPIN_THRESHOLD_NS,
+            AccountingIdleStrategy.DEFAULT_PARK_THRESHOLD_NS,
+            AccountingIdleStrategy.DEFAULT_REPORT_INTERVAL_NS,
+            idleStrategy.spins(),
+            idleStrategy.yields(),
+            idleStrategy.parks(),
+            idleStrategy.idleTimeNs(),
+            idleStrategy.utilisationPpm()).reset();
+
+        verify(mockDelegate).reset();
+    }
+
+    private void idleFor(final long durationNs)
+    {
+        nextIdleDurationNs = durationNs;
+        idleStrategy.idle(0);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.concurrent.status.CountersReader;
+import org.agrona.concurrent.status.UnsafeBufferStatusIndicator;
+import org.junit.Test;
+
+import static org.agrona.concurrent.AdaptiveIdleStrategy.*;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveIdleStrategyTest
+{
+    private static final long MIN_SPINS = 2;
+    private static final long MAX_SPINS = 16;
+    private static final long MIN_YIELDS = 1;
+    private static final long MAX_YIELDS = 4;
+
+    private final UnsafeBufferStatusIndicator phaseIndicator =
+        new UnsafeBufferStatusIndicator(new UnsafeBuffer(new byte[CountersReader.COUNTER_LENGTH]), 0);
+    private final AdaptiveIdleStrategy idleStrategy =
+        new AdaptiveIdleStrategy(MIN_SPINS, MAX_SPINS, MIN_YIELDS, MAX_YIELDS, 1, 1, phaseIndicator);
+
+    @Test
+    public void shouldExposePhaseAsItBacksOff()
+    {
+        assertThat(idleStrategy.phase(), is(NOT_IDLE));
+
+        idleStrategy.idle(0);
+        assertPhase(SPINNING);
+
+        idleFor(MAX_SPINS);
+        assertPhase(YIELDING);
+
+        idleFor(MAX_YIELDS + 1);
+        assertPhase(PARKING);
+
+        idleStrategy.idle(1);
+        assertPhase(NOT_IDLE);
+    }
+
+    @Test
+    public void shouldShrinkLimitsWhenWorkArrivesAfterSeveralParks()
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            idleUntilParkedFor(3);
+            idleStrategy.idle(1);
+        }
+
+        assertThat(idleStrategy.spinLimit(), is(MIN_SPINS));
+        assertThat(idleStrategy.yieldLimit(), is(MIN_YIELDS));
+    }
+
+    @Test
+    public void shouldGrowSpinLimitWhenWorkArrivesWhileYielding()
+    {
+        idleUntilParkedFor(3);
+        idleStrategy.idle(1);
+        idleUntilParkedFor(3);
+        idleStrategy.idle(1);
+        assertThat(idleStrategy.spinLimit(), is(MAX_SPINS / 4));
+
+        idleFor(MAX_SPINS / 4 + 2);
+        assertThat(idleStrategy.phase(), is(YIELDING));
+        idleStrategy.idle(1);
+        assertThat(idleStrategy.spinLimit(), is(MAX_SPINS / 2));
+    }
+
+    @Test
+    public void shouldGrowYieldLimitWhenWorkArrivesOnFirstPark()
+    {
+        idleUntilParkedFor(3);
+        idleStrategy.idle(1);
+        assertThat(idleStrategy.yieldLimit(), is(MAX_YIELDS / 2));
+
+        idleUntilParkedFor(1);
+        idleStrategy.idle(1);
+        assertThat(idleStrategy.yieldLimit(), is(MAX_YIELDS));
+        assertThat(idleStrategy.spinLimit(), is(MAX_SPINS / 2));
+    }
+
+    @Test
+    public void shouldRecoverLimitsWhenLoadIncreasesAfterQuietPeriod()
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            idleUntilParkedFor(3);
+            idleStrategy.idle(1);
+        }
+
+        assertThat(idleStrategy.spinLimit(), is(MIN_SPINS));
+        assertThat(idleStrategy.yieldLimit(), is(MIN_YIELDS));
+
+        for (int i = 0; i < 10; i++)
+        {
+            idleUntilParkedFor(1);
+            idleStrategy.idle(1);
+        }
+
+        assertThat(idleStrategy.yieldLimit(), is(MAX_YIELDS));
+
+        for (int i = 0; i < 10; i++)
+        {
+            idleFor(idleStrategy.spinLimit() + 2);
+            assertThat(idleStrategy.phase(), is(YIELDING));
+            idleStrategy.idle(1);
+        }
+
+        assertThat(idleStrategy.spinLimit(), is(MAX_SPINS));
+        assertThat(idleStrategy.yieldLimit(), is(MAX_YIELDS));
+    }
+
+    @Test
+    public void shouldKeepLimitsWhenWorkArrivesWhileSpinning()
+    {
+        idleFor(MAX_SPINS / 2);
+        assertThat(idleStrategy.phase(), is(SPINNING));
+        idleStrategy.idle(1);
+
+        assertThat(idleStrategy.spinLimit(), is(MAX_SPINS));
+        assertThat(idleStrategy.yieldLimit(), is(MAX_YIELDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidBounds()
+    {
+        new AdaptiveIdleStrategy(MAX_SPINS, MIN_SPINS, MIN_YIELDS, MAX_YIELDS, 1, 1);
+    }
+
+    private void idleFor(final long count)
+    {
+        for (long i = 0; i < count; i++)
+        {
+            idleStrategy.idle(0);
+        }
+    }
+
+    private void idleUntilParkedFor(final int parks)
+    {
+        while (idleStrategy.phase() != PARKING)
+        {
+            idleStrategy.idle(0);
+        }
+
+        idleFor(parks);
+    }
+
+    private void assertPhase(final int phase)
+    {
+        assertThat(idleStrategy.phase(), is(phase));
+        assertThat(phaseIndicator.getVolatile(), is((long)phase));
+    }
+}
@@ -179,4 +179,64 @@ public class AgentInvokerTest
         verify(mockErrorHandler, never()).onError(any());
         verify(mockAtomicCounter, never()).increment();
     }
+
+    @Test
+    public void shouldInvokeUntilNoWorkWithinDuration() throws Exception
+    {
+        final long[] nanoTime = { 0 };
+        final AgentInvoker invoker =
+            new AgentInvoker(mockErrorHandler, mockAtomicCounter, mockAgent, () -> nanoTime[0], null);
+        when(mockAgent.doWork()).thenReturn(2, 3, 0, 5);
+
+        invoker.start();
+        assertThat(invoker.invoke(1000), is(5));
+        verify(mockAgent, times(3)).doWork();
+    }
+
+    @Test
+    public void shouldStopInvokingWhenDurationExceeded() throws Exception
+    {
+        final long[] nanoTime = { 0 };
+        final AgentInvoker invoker =
+            new AgentInvoker(mockErrorHandler, mockAtomicCounter, mockAgent, () -> nanoTime[0], null);
+        when(mockAgent.doWork()).then(
+            (invocation) ->
+            {
+                nanoTime[0] += 400;
+                return 1;
+            });
+
+        invoker.start();
+        assertThat(invoker.invoke(1000), is(3));
+        verify(mockAgent, times(3)).doWork();
+
+        assertThat(invoker.invoke(0), is(1));
+        verify(mockAgent, times(4)).doWork();
+    }
+
+    @Test
+    public void shouldStopInvokingWithDurationWhenAgentTerminates() throws Exception
+    {
+        final AgentTerminationException expectedException = new AgentTerminationException();
+        when(mockAgent.doWork()).thenReturn(1).thenThrow(expectedException);
+
+        invoker.start();
+        assertThat(invoker.invoke(Long.MAX_VALUE / 2), is(1));
+        assertTrue(invoker.isClosed());
+        verify(mockAgent, times(2)).doWork();
+        verify(mockErrorHandler).onError(expectedException);
+    }
+
+    @Test
+    public void shouldExposeWorkLimitHint()
+    {
+        assertThat(invoker.workLimit(), is(Integer.MAX_VALUE));
+        assertThat(invoker.workLimit(10).workLimit(), is(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveWorkLimit()
+    {
+        invoker.workLimit(0);
+    }
 }
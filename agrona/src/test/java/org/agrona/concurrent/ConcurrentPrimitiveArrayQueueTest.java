@@ -0,0 +1,197 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.collections.MutableLong;
+import org.junit.Test;
+import org.junit.experimental.theories.DataPoint;
+import org.junit.experimental.theories.Theories;
+import org.junit.experimental.theories.Theory;
+import org.junit.runner.RunWith;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Theories.class)
+public class ConcurrentPrimitiveArrayQueueTest
+{
+    private static final int QUEUE_CAPACITY = 8;
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = -1;
+
+    interface LongFixture
+    {
+        AbstractConcurrentLongArrayQueue newInstance();
+    }
+
+    interface IntFixture
+    {
+        AbstractConcurrentIntArrayQueue newInstance();
+    }
+
+    @DataPoint
+    public static final LongFixture ONE_TO_ONE_LONG_QUEUE =
+        () -> new OneToOneConcurrentLongArrayQueue(QUEUE_CAPACITY, NULL_LONG);
+
+    @DataPoint
+    public static final LongFixture MANY_TO_ONE_LONG_QUEUE =
+        () -> new ManyToOneConcurrentLongArrayQueue(QUEUE_CAPACITY, NULL_LONG);
+
+    @DataPoint
+    public static final LongFixture MANY_TO_MANY_LONG_QUEUE =
+        () -> new ManyToManyConcurrentLongArrayQueue(QUEUE_CAPACITY, NULL_LONG);
+
+    @DataPoint
+    public static final IntFixture ONE_TO_ONE_INT_QUEUE =
+        () -> new OneToOneConcurrentIntArrayQueue(QUEUE_CAPACITY, NULL_INT);
+
+    @DataPoint
+    public static final IntFixture MANY_TO_ONE_INT_QUEUE =
+        () -> new ManyToOneConcurrentIntArrayQueue(QUEUE_CAPACITY, NULL_INT);
+
+    @DataPoint
+    public static final IntFixture MANY_TO_MANY_INT_QUEUE =
+        () -> new ManyToManyConcurrentIntArrayQueue(QUEUE_CAPACITY, NULL_INT);
+
+    @Theory
+    public void shouldReturnNullValueWhenEmpty(final LongFixture fixture)
+    {
+        final AbstractConcurrentLongArrayQueue queue = fixture.newInstance();
+
+        assertTrue(queue.isEmpty());
+        assertThat(queue.pollLong(), is(NULL_LONG));
+        assertThat(queue.peekLong(), is(NULL_LONG));
+    }
+
+    @Theory
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenNullValueOffered(final LongFixture fixture)
+    {
+        fixture.newInstance().offerLong(NULL_LONG);
+    }
+
+    @Theory
+    public void shouldOfferAndPollInFifoOrderUntilFull(final LongFixture fixture)
+    {
+        final AbstractConcurrentLongArrayQueue queue = fixture.newInstance();
+
+        for (long i = 0; i < QUEUE_CAPACITY; i++)
+        {
+            assertTrue(queue.offerLong(i));
+        }
+
+        assertFalse(queue.offerLong(QUEUE_CAPACITY));
+        assertThat(queue.size(), is(QUEUE_CAPACITY));
+        assertThat(queue.peekLong(), is(0L));
+
+        for (long i = 0; i < QUEUE_CAPACITY; i++)
+        {
+            assertThat(queue.pollLong(), is(i));
+        }
+
+        assertThat(queue.pollLong(), is(NULL_LONG));
+        assertThat(queue.removedCount(), is((long)QUEUE_CAPACITY));
+    }
+
+    @Theory
+    public void shouldDrainUpToLimit(final LongFixture fixture)
+    {
+        final AbstractConcurrentLongArrayQueue queue = fixture.newInstance();
+        for (long i = 1; i <= 5; i++)
+        {
+            queue.offerLong(i * 10);
+        }
+
+        final MutableLong sum = new MutableLong();
+        assertThat(queue.drain((value) -> sum.set(sum.get() + value), 3), is(3));
+        assertThat(sum.get(), is(60L));
+
+        assertThat(queue.drain((value) -> sum.set(sum.get() + value)), is(2));
+        assertThat(sum.get(), is(150L));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Theory
+    public void shouldOfferPollAndDrainInts(final IntFixture fixture)
+    {
+        final AbstractConcurrentIntArrayQueue queue = fixture.newInstance();
+
+        assertThat(queue.pollInt(), is(NULL_INT));
+
+        for (int i = 0; i < QUEUE_CAPACITY; i++)
+        {
+            assertTrue(queue.offerInt(i));
+        }
+
+        assertFalse(queue.offerInt(QUEUE_CAPACITY));
+        assertThat(queue.pollInt(), is(0));
+
+        final int[] count = new int[1];
+        assertThat(queue.drain((value) -> assertThat(value, is(++count[0]))), is(QUEUE_CAPACITY - 1));
+        assertThat(queue.pollInt(), is(NULL_INT));
+    }
+
+    @Theory
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenNullIntOffered(final IntFixture fixture)
+    {
+        fixture.newInstance().offerInt(NULL_INT);
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldTransferConcurrentlyFromManyProducers() throws Exception
+    {
+        final ManyToOneConcurrentLongArrayQueue queue = new ManyToOneConcurrentLongArrayQueue(1024, NULL_LONG);
+        final int itemsPerProducer = 100_000;
+        final Thread[] producers = new Thread[2];
+        for (int t = 0; t < producers.length; t++)
+        {
+            producers[t] = new Thread(
+                () ->
+                {
+                    for (long i = 1; i <= itemsPerProducer; i++)
+                    {
+                        while (!queue.offerLong(i))
+                        {
+                            Thread.yield();
+                        }
+                    }
+                });
+            producers[t].start();
+        }
+
+        long sum = 0;
+        int received = 0;
+        while (received < producers.length * itemsPerProducer)
+        {
+            final long value = queue.pollLong();
+            if (NULL_LONG != value)
+            {
+                sum += value;
+                received++;
+            }
+        }
+
+        for (final Thread producer : producers)
+        {
+            producer.join();
+        }
+
+        assertThat(sum, is((long)producers.length * itemsPerProducer * (itemsPerProducer + 1) / 2));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ConsumerWakeupIdleStrategyTest
+{
+    private static final int MSG_TYPE_ID = 7;
+    private static final long MAX_PARK_PERIOD_NS = TimeUnit.HOURS.toNanos(1);
+
+    private final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[64]);
+
+    @Test(timeout = 10_000)
+    public void shouldWakeParkedConsumerOfManyToOneQueue() throws Exception
+    {
+        final ManyToOneConcurrentArrayQueue<Integer> queue = new ManyToOneConcurrentArrayQueue<>(16);
+
+        shouldWakeParkedConsumer(queue, () -> null != queue.poll() ? 1 : 0, () -> queue.offer(7));
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldWakeParkedConsumerOfOneToOneRingBuffer() throws Exception
+    {
+        final RingBuffer ringBuffer = new OneToOneRingBuffer(newRingBufferBuffer(), true);
+
+        shouldWakeParkedConsumer(
+            ringBuffer,
+            () -> ringBuffer.read((msgTypeId, buffer, index, length) -> {}),
+            () -> ringBuffer.write(MSG_TYPE_ID, srcBuffer, 0, 8));
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldWakeParkedConsumerOfManyToOneRingBuffer() throws Exception
+    {
+        final RingBuffer ringBuffer = new ManyToOneRingBuffer(newRingBufferBuffer());
+
+        shouldWakeParkedConsumer(
+            ringBuffer,
+            () -> ringBuffer.read((msgTypeId, buffer, index, length) -> {}),
+            () -> ringBuffer.write(MSG_TYPE_ID, srcBuffer, 0, 8));
+    }
+
+    @Test
+    public void shouldNotPrepareToParkWhenWorkIsAvailable()
+    {
+        final ManyToOneConcurrentArrayQueue<Integer> queue = new ManyToOneConcurrentArrayQueue<>(16);
+        final RingBuffer ringBuffer = new ManyToOneRingBuffer(newRingBufferBuffer());
+
+        queue.enableConsumerWakeup(Thread.currentThread());
+        ringBuffer.enableConsumerWakeup(Thread.currentThread());
+
+        assertTrue(queue.prepareConsumerPark());
+        assertTrue(ringBuffer.prepareConsumerPark());
+        queue.completeConsumerPark();
+        ringBuffer.completeConsumerPark();
+
+        queue.offer(7);
+        ringBuffer.write(MSG_TYPE_ID, srcBuffer, 0, 8);
+
+        assertFalse(queue.prepareConsumerPark());
+        assertFalse(ringBuffer.prepareConsumerPark());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotEnableWakeupOnOneToOneRingBufferConstructedWithoutIt()
+    {
+        new OneToOneRingBuffer(newRingBufferBuffer()).enableConsumerWakeup(Thread.currentThread());
+    }
+
+    @Test
+    public void shouldNotParkOnOneToOneRingBufferConstructedWithoutWakeup()
+    {
+        assertFalse(new OneToOneRingBuffer(newRingBufferBuffer()).prepareConsumerPark());
+    }
+
+    private static void shouldWakeParkedConsumer(
+        final ConsumerWakeup wakeup, final IntSupplier consumer, final Runnable producer) throws Exception
+    {
+        final IdleStrategy idleStrategy = new ConsumerWakeupIdleStrategy(1, 1, MAX_PARK_PERIOD_NS, wakeup);
+        final int[] received = new int[1];
+        final Thread consumerThread = new Thread(
+            () ->
+            {
+                while (0 == received[0])
+                {
+                    final int workCount = consumer.getAsInt();
+                    received[0] += workCount;
+                    idleStrategy.idle(workCount);
+                }
+            });
+
+        consumerThread.start();
+
+        while (Thread.State.TIMED_WAITING != consumerThread.getState())
+        {
+            Thread.yield();
+        }
+
+        producer.run();
+        consumerThread.join();
+
+        assertThat(received[0], is(1));
+    }
+
+    private static UnsafeBuffer newRingBufferBuffer()
+    {
+        return new UnsafeBuffer(ByteBuffer.allocateDirect(1024 + RingBufferDescriptor.TRAILER_LENGTH));
+    }
+}
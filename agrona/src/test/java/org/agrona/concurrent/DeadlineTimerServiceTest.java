@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.concurrent.DeadlineTimerService.NULL_DEADLINE;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineTimerServiceTest
+{
+    private final DeadlineTimerService timerService = new DeadlineTimerService();
+    private final List<Long> expiredDeadlines = new ArrayList<>();
+    private final DeadlineTimerService.ExpiryHandler handler =
+        (timerId, deadlineNs) -> expiredDeadlines.add(deadlineNs);
+
+    @Test
+    public void shouldExpireTimersInDeadlineOrder()
+    {
+        final long[] deadlines = { 50, 10, 40, 20, 30, 60 };
+        for (final long deadline : deadlines)
+        {
+            timerService.scheduleTimer(deadline, handler);
+        }
+
+        assertThat(timerService.timerCount(), is(deadlines.length));
+        assertThat(timerService.nextDeadline(), is(10L));
+
+        assertThat(timerService.poll(5), is(0));
+        assertThat(timerService.poll(40), is(4));
+        assertThat(expiredDeadlines, contains(10L, 20L, 30L, 40L));
+        assertThat(timerService.cachedNanoClock().nanoTime(), is(40L));
+        assertThat(timerService.timerCount(), is(2));
+        assertThat(timerService.nextDeadline(), is(50L));
+    }
+
+    @Test
+    public void shouldCancelTimer()
+    {
+        final long timerIdOne = timerService.scheduleTimer(10, handler);
+        final long timerIdTwo = timerService.scheduleTimer(20, handler);
+        final long timerIdThree = timerService.scheduleTimer(30, handler);
+
+        assertTrue(timerService.cancelTimer(timerIdTwo));
+        assertFalse(timerService.cancelTimer(timerIdTwo));
+        assertThat(timerService.deadline(timerIdTwo), is(NULL_DEADLINE));
+        assertThat(timerService.deadline(timerIdThree), is(30L));
+
+        assertThat(timerService.poll(100), is(2));
+        assertThat(expiredDeadlines, contains(10L, 30L));
+        assertFalse(timerService.cancelTimer(timerIdOne));
+        assertFalse(timerService.cancelTimer(DeadlineTimerService.NULL_TIMER_ID));
+    }
+
+    @Test
+    public void shouldNotMatchStaleTimerIdWhenSlotIsReused()
+    {
+        final long staleTimerId = timerService.scheduleTimer(10, handler);
+        timerService.poll(10);
+
+        final long timerId = timerService.scheduleTimer(20, handler);
+        assertThat((int)timerId, is((int)staleTimerId));
+        assertFalse(timerService.cancelTimer(staleTimerId));
+        assertThat(timerService.deadline(timerId), is(20L));
+    }
+
+    @Test
+    public void shouldGrowBeyondInitialCapacity()
+    {
+        final int count = 100;
+        for (int i = count; i > 0; i--)
+        {
+            timerService.scheduleTimer(i, handler);
+        }
+
+        assertThat(timerService.poll(count), is(count));
+        for (int i = 0; i < count; i++)
+        {
+            assertThat(expiredDeadlines.get(i), is(i + 1L));
+        }
+    }
+
+    @Test
+    public void shouldNotExpireTimersScheduledDuringPoll()
+    {
+        final long[] rescheduleCount = { 0 };
+        final DeadlineTimerService.ExpiryHandler reschedulingHandler = new DeadlineTimerService.ExpiryHandler()
+        {
+            public void onTimerExpiry(final long timerId, final long deadlineNs)
+            {
+                rescheduleCount[0]++;
+                timerService.scheduleTimer(deadlineNs, this);
+            }
+        };
+
+        timerService.scheduleTimer(0, reschedulingHandler);
+
+        assertThat(timerService.poll(0), is(1));
+        assertThat(timerService.poll(0), is(1));
+        assertThat(rescheduleCount[0], is(2L));
+    }
+
+    @Test
+    public void shouldIncludeExpiredTimersInInvokerWorkCount()
+    {
+        final long[] nanoTime = { 0 };
+        final Agent agent = new Agent()
+        {
+            public int doWork()
+            {
+                return 1;
+            }
+
+            public String roleName()
+            {
+                return "timers";
+            }
+        };
+
+        final AgentInvoker invoker =
+            new AgentInvoker(Throwable::printStackTrace, null, agent, () -> nanoTime[0], timerService);
+        invoker.start();
+
+        timerService.scheduleTimer(10, handler);
+        timerService.scheduleTimer(10, handler);
+
+        assertThat(invoker.invoke(), is(1));
+        nanoTime[0] = 10;
+        assertThat(invoker.invoke(), is(3));
+        assertThat(timerService.cachedNanoClock().nanoTime(), is(10L));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldFireTimersFromRunnerDutyCycle() throws Exception
+    {
+        final Agent agent = new Agent()
+        {
+            public void onStart()
+            {
+                timerService.scheduleTimer(
+                    0,
+                    (timerId, deadlineNs) ->
+                    {
+                        throw new AgentTerminationException();
+                    });
+            }
+
+            public int doWork()
+            {
+                return 0;
+            }
+
+            public String roleName()
+            {
+                return "timers";
+            }
+        };
+
+        final List<Throwable> errors = new ArrayList<>();
+        final AgentRunner runner = new AgentRunner(
+            new NoOpIdleStrategy(), errors::add, null, agent, new SystemNanoClock(), null, timerService);
+
+        runner.run();
+
+        assertTrue(runner.isClosed());
+        assertThat(errors.size(), is(1));
+        assertThat(timerService.timerCount(), is(0));
+    }
+}
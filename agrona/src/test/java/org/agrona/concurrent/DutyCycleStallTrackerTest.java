@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.concurrent.DutyCycleStallTracker.histogramBucketIndex;
+import static org.agrona.concurrent.status.CountersReader.COUNTER_LENGTH;
+import static org.agrona.concurrent.status.CountersReader.METADATA_LENGTH;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class DutyCycleStallTrackerTest
+{
+    private static final int NUMBER_OF_COUNTERS = 8;
+    private static final int BUCKET_COUNT = 4;
+    private static final long THRESHOLD_NS = 5000;
+
+    private final CountersManager countersManager = new CountersManager(
+        new UnsafeBuffer(new byte[NUMBER_OF_COUNTERS * METADATA_LENGTH]),
+        new UnsafeBuffer(new byte[NUMBER_OF_COUNTERS * COUNTER_LENGTH]));
+
+    private final DutyCycleStallTracker tracker =
+        new DutyCycleStallTracker(countersManager, "agent", THRESHOLD_NS, BUCKET_COUNT);
+
+    @After
+    public void after()
+    {
+        tracker.close();
+    }
+
+    @Test
+    public void shouldAllocateLabelledCounters()
+    {
+        final List<String> labels = new ArrayList<>();
+        countersManager.forEach((id, label) -> labels.add(label));
+
+        assertThat(labels.size(), is(2 + BUCKET_COUNT));
+        assertThat(labels.get(tracker.maxCycleTime().id()), is("agent max cycle time ns"));
+        assertThat(
+            labels.get(tracker.cycleTimeThresholdExceededCount().id()),
+            is("agent cycle time threshold exceeded count"));
+        assertThat(labels.get(tracker.histogramBuckets()[0].id()), is("agent cycle time ns < 1024"));
+        assertThat(labels.get(tracker.histogramBuckets()[2].id()), is("agent cycle time ns < 4096"));
+        assertThat(labels.get(tracker.histogramBuckets()[3].id()), is("agent cycle time ns >= 4096"));
+    }
+
+    @Test
+    public void shouldSelectPowerOfTwoHistogramBuckets()
+    {
+        assertThat(histogramBucketIndex(0, BUCKET_COUNT), is(0));
+        assertThat(histogramBucketIndex(1023, BUCKET_COUNT), is(0));
+        assertThat(histogramBucketIndex(1024, BUCKET_COUNT), is(1));
+        assertThat(histogramBucketIndex(2047, BUCKET_COUNT), is(1));
+        assertThat(histogramBucketIndex(2048, BUCKET_COUNT), is(2));
+        assertThat(histogramBucketIndex(4096, BUCKET_COUNT), is(3));
+        assertThat(histogramBucketIndex(Long.MAX_VALUE, BUCKET_COUNT), is(3));
+    }
+
+    @Test
+    public void shouldRecordCycleTimesFromSuccessiveUpdates()
+    {
+        tracker.update(1000);
+        tracker.measureAndUpdate(1500);
+        tracker.measureAndUpdate(3000);
+        tracker.measureAndUpdate(10_000);
+        tracker.measureAndUpdate(10_100);
+
+        assertThat(tracker.maxCycleTimeNs(), is(7000L));
+        assertThat(tracker.maxCycleTime().get(), is(7000L));
+        assertThat(tracker.cycleTimeThresholdExceededCount().get(), is(1L));
+        assertThat(tracker.histogramBuckets()[0].get(), is(2L));
+        assertThat(tracker.histogramBuckets()[1].get(), is(1L));
+        assertThat(tracker.histogramBuckets()[2].get(), is(0L));
+        assertThat(tracker.histogramBuckets()[3].get(), is(1L));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldTrackDutyCyclesOfAgentRunner() throws Exception
+    {
+        final long[] nanoTime = { 0 };
+        final Agent agent = new Agent()
+        {
+            int cycles = 0;
+
+            public int doWork()
+            {
+                nanoTime[0] += ++cycles == 3 ? 10_000 : 100;
+                if (cycles == 5)
+                {
+                    throw new AgentTerminationException();
+                }
+
+                return 1;
+            }
+
+            public String roleName()
+            {
+                return "test";
+            }
+        };
+
+        final AgentRunner runner = new AgentRunner(
+            new NoOpIdleStrategy(), mock(ErrorHandler.class), null, agent, () -> nanoTime[0], tracker);
+
+        runner.run();
+
+        assertThat(runner.dutyCycleTracker(), is(tracker));
+        assertThat(tracker.maxCycleTime().get(), is(10_000L));
+        assertThat(tracker.cycleTimeThresholdExceededCount().get(), is(1L));
+        assertThat(tracker.histogramBuckets()[0].get(), is(3L));
+    }
+}
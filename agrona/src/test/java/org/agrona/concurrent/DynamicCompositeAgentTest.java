@@ -158,4 +158,76 @@ public class DynamicCompositeAgentTest
 
         assertTrue(compositeAgent.tryRemove(mockAgentTwo));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldCallWeightedAgentWhileItDoesWork() throws Exception
+    {
+        final Agent mockAgent = mock(Agent.class);
+        when(mockAgent.doWork()).thenReturn(1, 1, 0, 1);
+
+        final DynamicCompositeAgent compositeAgent = new DynamicCompositeAgent(ROLE_NAME);
+        final AgentInvoker invoker = new AgentInvoker(Throwable::printStackTrace, null, compositeAgent);
+        invoker.start();
+
+        assertTrue(compositeAgent.tryAdd(mockAgent, 4, DynamicCompositeAgent.Priority.NORMAL));
+        assertThat(invoker.invoke(), is(2));
+        verify(mockAgent, times(3)).doWork();
+    }
+
+    @Test
+    public void shouldSkipIdleAgentsWithBackoff() throws Exception
+    {
+        final Agent mockAgent = mock(Agent.class);
+        final DynamicCompositeAgent compositeAgent = new DynamicCompositeAgent(ROLE_NAME, 4, 0);
+        final AgentInvoker invoker = new AgentInvoker(Throwable::printStackTrace, null, compositeAgent);
+        invoker.start();
+
+        assertTrue(compositeAgent.tryAdd(mockAgent));
+        invokeTimes(invoker, 1 + 2 + 3 + 5 + 5);
+        verify(mockAgent, times(5)).doWork();
+
+        when(mockAgent.doWork()).thenReturn(1);
+        invokeTimes(invoker, 5);
+        verify(mockAgent, times(6)).doWork();
+
+        invokeTimes(invoker, 3);
+        verify(mockAgent, times(9)).doWork();
+    }
+
+    @Test
+    public void shouldDeferLowPriorityLaneWhileOtherLanesDoWork() throws Exception
+    {
+        final Agent hotAgent = mock(Agent.class);
+        final Agent housekeepingAgent = mock(Agent.class);
+        when(hotAgent.doWork()).thenReturn(1);
+
+        final DynamicCompositeAgent compositeAgent = new DynamicCompositeAgent(ROLE_NAME, 0, 2);
+        final AgentInvoker invoker = new AgentInvoker(Throwable::printStackTrace, null, compositeAgent);
+        invoker.start();
+
+        assertTrue(compositeAgent.tryAdd(hotAgent, 1, DynamicCompositeAgent.Priority.HIGH));
+        invoker.invoke();
+        assertTrue(compositeAgent.tryAdd(housekeepingAgent, 1, DynamicCompositeAgent.Priority.LOW));
+        invokeTimes(invoker, 6);
+
+        verify(hotAgent, times(7)).doWork();
+        verify(housekeepingAgent, times(2)).doWork();
+
+        when(hotAgent.doWork()).thenReturn(0);
+        invokeTimes(invoker, 2);
+        verify(housekeepingAgent, times(4)).doWork();
+
+        assertTrue(compositeAgent.tryRemove(housekeepingAgent));
+        invoker.invoke();
+        verify(housekeepingAgent).onClose();
+        verify(housekeepingAgent, times(4)).doWork();
+    }
+
+    private static void invokeTimes(final AgentInvoker invoker, final int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            invoker.invoke();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ManyToOneConcurrentChunkedArrayQueueTest
+{
+    private static final int CHUNK_SIZE = 4;
+
+    private final ManyToOneConcurrentChunkedArrayQueue<Integer> queue =
+        new ManyToOneConcurrentChunkedArrayQueue<>(CHUNK_SIZE);
+
+    @Test
+    public void shouldBeEmpty()
+    {
+        assertTrue(queue.isEmpty());
+        assertThat(queue.size(), is(0));
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    public void shouldExchangeInFifoOrderAcrossChunks()
+    {
+        final int numItems = CHUNK_SIZE * 5 + 1;
+
+        for (int i = 0; i < numItems; i++)
+        {
+            assertTrue(queue.offer(i));
+        }
+
+        assertFalse(queue.isEmpty());
+        assertThat(queue.size(), is(numItems));
+        assertThat(queue.peek(), is(0));
+
+        for (int i = 0; i < numItems; i++)
+        {
+            assertThat(queue.poll(), is(i));
+        }
+
+        assertTrue(queue.isEmpty());
+        assertThat(queue.addedCount(), is((long)numItems));
+        assertThat(queue.removedCount(), is((long)numItems));
+    }
+
+    @Test
+    public void shouldExchangeInFifoOrderInterleavedWithRecycledChunks()
+    {
+        for (int i = 0; i < CHUNK_SIZE * 20; i++)
+        {
+            queue.offer(i);
+            queue.offer(-i);
+            assertThat(queue.poll(), is(i));
+            assertThat(queue.poll(), is(-i));
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void shouldDrainUpToLimit()
+    {
+        for (int i = 0; i < CHUNK_SIZE * 3; i++)
+        {
+            queue.offer(i);
+        }
+
+        final List<Integer> drained = new ArrayList<>();
+        assertThat(queue.drain(drained::add, CHUNK_SIZE + 1), is(CHUNK_SIZE + 1));
+        assertThat(drained.get(CHUNK_SIZE), is(CHUNK_SIZE));
+
+        assertThat(queue.drain(drained::add), is(CHUNK_SIZE * 2 - 1));
+        assertThat(drained.size(), is(CHUNK_SIZE * 3));
+        assertThat(drained.get(CHUNK_SIZE * 3 - 1), is(CHUNK_SIZE * 3 - 1));
+    }
+
+    @Test
+    public void shouldContainElementsAcrossChunks()
+    {
+        for (int i = 0; i < CHUNK_SIZE * 3; i++)
+        {
+            queue.offer(i);
+        }
+
+        for (int i = 0; i < CHUNK_SIZE + 1; i++)
+        {
+            queue.poll();
+        }
+
+        assertFalse(queue.contains(0));
+        assertFalse(queue.contains(CHUNK_SIZE));
+        assertFalse(queue.contains(null));
+        assertTrue(queue.contains(CHUNK_SIZE + 1));
+        assertTrue(queue.contains(CHUNK_SIZE * 3 - 1));
+        assertFalse(queue.contains(CHUNK_SIZE * 3));
+
+        assertTrue(queue.containsAll(Arrays.asList(CHUNK_SIZE + 1, CHUNK_SIZE * 2, CHUNK_SIZE * 3 - 1)));
+        assertFalse(queue.containsAll(Arrays.asList(CHUNK_SIZE * 2, 0)));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldTransferConcurrentlyInProducerOrder() throws Exception
+    {
+        final int itemsPerProducer = 100_000;
+        final int numThreads = 3;
+        final Thread[] producers = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++)
+        {
+            final int producerId = t;
+            producers[t] = new Thread(
+                () ->
+                {
+                    for (int i = 0; i < itemsPerProducer; i++)
+                    {
+                        queue.offer(producerId * itemsPerProducer + i);
+                    }
+                });
+            producers[t].start();
+        }
+
+        final int[] nextExpected = new int[numThreads];
+        for (int i = 0; i < numThreads * itemsPerProducer; i++)
+        {
+            Integer item;
+            while (null == (item = queue.poll()))
+            {
+                Thread.yield();
+            }
+
+            final int producerId = item / itemsPerProducer;
+            assertThat(item % itemsPerProducer, is(nextExpected[producerId]++));
+        }
+
+        for (final Thread producer : producers)
+        {
+            producer.join();
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.concurrent.broadcast.BroadcastBufferDescriptor;
+import org.agrona.concurrent.broadcast.BroadcastFragmenter;
+import org.agrona.concurrent.broadcast.BroadcastReceiver;
+import org.agrona.concurrent.broadcast.BroadcastTransmitter;
+import org.agrona.concurrent.broadcast.CopyBroadcastReceiver;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.agrona.concurrent.ringbuffer.RingBufferFragmenter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.concurrent.MessageFragmentAssembler.*;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class MessageFragmentAssemblerTest
+{
+    private static final int MSG_TYPE_ID = 7;
+    private static final int CAPACITY = 1024;
+
+    private final List<byte[]> messages = new ArrayList<>();
+    private final List<Integer> msgTypeIds = new ArrayList<>();
+    private final MessageFragmentAssembler assembler = new MessageFragmentAssembler(
+        (msgTypeId, buffer, index, length) ->
+        {
+            final byte[] bytes = new byte[length];
+            buffer.getBytes(index, bytes);
+            messages.add(bytes);
+            msgTypeIds.add(msgTypeId);
+        });
+
+    @Test
+    public void shouldReassembleLargeMessageFromRingBuffer()
+    {
+        final ManyToOneRingBuffer ringBuffer = new ManyToOneRingBuffer(
+            new UnsafeBuffer(new byte[CAPACITY + RingBufferDescriptor.TRAILER_LENGTH]));
+        final RingBufferFragmenter fragmenter = new RingBufferFragmenter(ringBuffer);
+        final UnsafeBuffer small = message(16, 1);
+        final UnsafeBuffer large = message(ringBuffer.maxMsgLength() * 3 + 5, 2);
+
+        assertTrue(fragmenter.write(MSG_TYPE_ID, small, 0, small.capacity()));
+        assertTrue(fragmenter.write(MSG_TYPE_ID + 1, large, 0, large.capacity()));
+
+        ringBuffer.read(assembler);
+
+        assertThat(messages.size(), is(2));
+        assertThat(msgTypeIds.get(0), is(MSG_TYPE_ID));
+        assertThat(messages.get(0), is(small.byteArray()));
+        assertThat(msgTypeIds.get(1), is(MSG_TYPE_ID + 1));
+        assertThat(messages.get(1), is(large.byteArray()));
+    }
+
+    @Test
+    public void shouldRejectFragmentedMessageWhenInsufficientSpace()
+    {
+        final ManyToOneRingBuffer ringBuffer = new ManyToOneRingBuffer(
+            new UnsafeBuffer(new byte[CAPACITY + RingBufferDescriptor.TRAILER_LENGTH]));
+        final RingBufferFragmenter fragmenter = new RingBufferFragmenter(ringBuffer);
+        final UnsafeBuffer large = message(CAPACITY / 2, 3);
+
+        assertTrue(fragmenter.write(MSG_TYPE_ID, large, 0, large.capacity()));
+        assertFalse(fragmenter.write(MSG_TYPE_ID, large, 0, large.capacity()));
+    }
+
+    @Test
+    public void shouldReassembleLargeMessageFromBroadcastBuffer()
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[CAPACITY + BroadcastBufferDescriptor.TRAILER_LENGTH]);
+        final BroadcastFragmenter fragmenter = new BroadcastFragmenter(new BroadcastTransmitter(buffer));
+        final CopyBroadcastReceiver receiver = new CopyBroadcastReceiver(new BroadcastReceiver(buffer));
+        final UnsafeBuffer large = message(CAPACITY / 2, 4);
+
+        fragmenter.transmit(MSG_TYPE_ID, large, 0, large.capacity());
+
+        while (receiver.receive(assembler) > 0)
+        {
+            // drain
+        }
+
+        assertThat(messages.size(), is(1));
+        assertThat(messages.get(0), is(large.byteArray()));
+    }
+
+    @Test
+    public void shouldDropFragmentWithoutBegin()
+    {
+        final UnsafeBuffer fragment = new UnsafeBuffer(new byte[FRAGMENT_HEADER_LENGTH + 8]);
+        fragment.putInt(FLAGS_OFFSET, END_FLAG);
+        fragment.putInt(MSG_TYPE_ID_OFFSET, MSG_TYPE_ID);
+
+        assembler.onMessage(FRAGMENT_MSG_TYPE_ID, fragment, 0, fragment.capacity());
+
+        assertThat(messages.size(), is(0));
+
+        fragment.putInt(FLAGS_OFFSET, BEGIN_FLAG | END_FLAG);
+        assembler.onMessage(FRAGMENT_MSG_TYPE_ID, fragment, 0, fragment.capacity());
+
+        assertThat(messages.size(), is(1));
+        assertThat(messages.get(0).length, is(8));
+    }
+
+    @Test
+    public void shouldDiscardPartialMessageWhenReceiverIsLappedMidMessage()
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[CAPACITY + BroadcastBufferDescriptor.TRAILER_LENGTH]);
+        final BroadcastTransmitter transmitter = new BroadcastTransmitter(buffer);
+        final BroadcastFragmenter fragmenter = new BroadcastFragmenter(transmitter);
+        final long[] lossCount = new long[1];
+        final CopyBroadcastReceiver receiver = new CopyBroadcastReceiver(
+            new BroadcastReceiver(buffer), 2048, (count) -> lossCount[0] += count);
+        final int maxPayloadLength = transmitter.maxMsgLength() - FRAGMENT_HEADER_LENGTH;
+        final UnsafeBuffer first = message(maxPayloadLength * 3, 5);
+        final UnsafeBuffer lapping = message(CAPACITY * 2, 6);
+        final UnsafeBuffer last = message(maxPayloadLength * 2, 7);
+
+        fragmenter.transmit(MSG_TYPE_ID, first, 0, first.capacity());
+        assertThat(receiver.receive(assembler), is(1));
+        assertThat(receiver.receive(assembler), is(1));
+
+        fragmenter.transmit(MSG_TYPE_ID + 1, lapping, 0, lapping.capacity());
+        while (receiver.receive(assembler) > 0)
+        {
+            // drain
+        }
+
+        assertThat(lossCount[0] > 0, is(true));
+        assertThat(messages.size(), is(0));
+
+        fragmenter.transmit(MSG_TYPE_ID + 2, last, 0, last.capacity());
+        while (receiver.receive(assembler) > 0)
+        {
+            // drain
+        }
+
+        assertThat(messages.size(), is(1));
+        assertThat(msgTypeIds.get(0), is(MSG_TYPE_ID + 2));
+        assertThat(messages.get(0), is(last.byteArray()));
+    }
+
+    @Test
+    public void shouldDiscardPartialMessageOnFragmentOfDifferentMessage()
+    {
+        final UnsafeBuffer fragment = new UnsafeBuffer(new byte[FRAGMENT_HEADER_LENGTH + 8]);
+        fragment.putInt(MSG_TYPE_ID_OFFSET, MSG_TYPE_ID);
+
+        fragment.putInt(FLAGS_OFFSET, BEGIN_FLAG);
+        fragment.putInt(SEQUENCE_OFFSET, 1);
+        fragment.putInt(MESSAGE_INDEX_OFFSET, 0);
+        assembler.onMessage(FRAGMENT_MSG_TYPE_ID, fragment, 0, fragment.capacity());
+
+        fragment.putInt(FLAGS_OFFSET, END_FLAG);
+        fragment.putInt(SEQUENCE_OFFSET, 2);
+        fragment.putInt(MESSAGE_INDEX_OFFSET, 8);
+        assembler.onMessage(FRAGMENT_MSG_TYPE_ID, fragment, 0, fragment.capacity());
+        assertThat(messages.size(), is(0));
+
+        fragment.putInt(FLAGS_OFFSET, BEGIN_FLAG);
+        fragment.putInt(SEQUENCE_OFFSET, 3);
+        fragment.putInt(MESSAGE_INDEX_OFFSET, 0);
+        assembler.onMessage(FRAGMENT_MSG_TYPE_ID, fragment, 0, fragment.capacity());
+
+        fragment.putInt(FLAGS_OFFSET, END_FLAG);
+        fragment.putInt(MESSAGE_INDEX_OFFSET, 16);
+        assembler.onMessage(FRAGMENT_MSG_TYPE_ID, fragment, 0, fragment.capacity());
+        assertThat(messages.size(), is(0));
+
+        fragment.putInt(MESSAGE_INDEX_OFFSET, 8);
+        assembler.onMessage(FRAGMENT_MSG_TYPE_ID, fragment, 0, fragment.capacity());
+        assertThat(messages.size(), is(0));
+    }
+
+    private static UnsafeBuffer message(final int length, final int seed)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[length]);
+        for (int i = 0; i < length; i++)
+        {
+            buffer.putByte(i, (byte)(i * seed));
+        }
+
+        return buffer;
+    }
+}
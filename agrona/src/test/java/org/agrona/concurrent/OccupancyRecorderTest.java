@@ -0,0 +1,196 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.concurrent.ringbuffer.InstrumentedRingBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.concurrent.status.CountersReader.COUNTER_LENGTH;
+import static org.agrona.concurrent.status.CountersReader.METADATA_LENGTH;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class OccupancyRecorderTest
+{
+    private static final int NUMBER_OF_COUNTERS = 4;
+    private static final int SAMPLE_INTERVAL = 2;
+
+    private final CountersManager countersManager = new CountersManager(
+        new UnsafeBuffer(new byte[NUMBER_OF_COUNTERS * METADATA_LENGTH]),
+        new UnsafeBuffer(new byte[NUMBER_OF_COUNTERS * COUNTER_LENGTH]));
+
+    private long nanoTime = 0;
+    private final OccupancyRecorder recorder = new OccupancyRecorder(
+        countersManager, "test", () -> nanoTime, SAMPLE_INTERVAL);
+
+    @After
+    public void after()
+    {
+        recorder.close();
+    }
+
+    @Test
+    public void shouldAllocateLabelledCounters()
+    {
+        final List<String> labels = new ArrayList<>();
+        countersManager.forEach((id, label) -> labels.add(label));
+
+        assertThat(labels.get(recorder.depth().id()), is("test depth"));
+        assertThat(labels.get(recorder.highWaterMark().id()), is("test high-water mark"));
+        assertThat(labels.get(recorder.sojournTimeNs().id()), is("test sojourn time ns"));
+        assertThat(labels.get(recorder.maxSojournTimeNs().id()), is("test max sojourn time ns"));
+    }
+
+    @Test
+    public void shouldRecordDepthAndSojournTimeForSampledElements()
+    {
+        final InstrumentedQueuedPipe<Integer> queue =
+            new InstrumentedQueuedPipe<>(new OneToOneConcurrentArrayQueue<>(16), recorder);
+
+        queue.offer(1);
+        assertThat(recorder.depth().get(), is(0L));
+
+        nanoTime = 100;
+        queue.offer(2);
+        queue.offer(3);
+        queue.offer(4);
+        assertThat(recorder.depth().get(), is(4L));
+        assertThat(recorder.highWaterMark().get(), is(4L));
+
+        nanoTime = 150;
+        assertThat(queue.poll(), is(1));
+        assertThat(recorder.sojournTimeNs().get(), is(0L));
+
+        assertThat(queue.poll(), is(2));
+        assertThat(recorder.sojournTimeNs().get(), is(50L));
+        assertThat(recorder.maxSojournTimeNs().get(), is(50L));
+
+        nanoTime = 200;
+        queue.offer(5);
+        queue.offer(6);
+        assertThat(recorder.depth().get(), is(4L));
+
+        nanoTime = 220;
+        final List<Integer> drained = new ArrayList<>();
+        assertThat(queue.drain(drained::add), is(4));
+        assertThat(recorder.sojournTimeNs().get(), is(20L));
+        assertThat(recorder.maxSojournTimeNs().get(), is(50L));
+        assertThat(recorder.highWaterMark().get(), is(4L));
+    }
+
+    @Test
+    public void shouldDiscardSampleWhenConsumerPassesBeforeSampleIsRecorded()
+    {
+        final boolean[] pollDuringOffer = { false };
+        final List<Integer> consumed = new ArrayList<>();
+        final List<InstrumentedQueuedPipe<Integer>> queueHolder = new ArrayList<>();
+        final OneToOneConcurrentArrayQueue<Integer> delegate = new OneToOneConcurrentArrayQueue<Integer>(16)
+        {
+            public boolean offer(final Integer e)
+            {
+                final boolean offered = super.offer(e);
+                if (pollDuringOffer[0])
+                {
+                    queueHolder.get(0).drain(consumed::add);
+                }
+
+                return offered;
+            }
+        };
+        final InstrumentedQueuedPipe<Integer> queue = new InstrumentedQueuedPipe<>(delegate, recorder);
+        queueHolder.add(queue);
+
+        queue.offer(1);
+        pollDuringOffer[0] = true;
+        nanoTime = 100;
+        queue.offer(2);
+        pollDuringOffer[0] = false;
+        assertThat(consumed, contains(1, 2));
+
+        nanoTime = 1000;
+        queue.offer(3);
+        assertThat(queue.poll(), is(3));
+        assertThat(recorder.sojournTimeNs().get(), is(0L));
+        assertThat(recorder.maxSojournTimeNs().get(), is(0L));
+
+        queue.offer(4);
+        nanoTime = 1100;
+        assertThat(queue.poll(), is(4));
+        assertThat(recorder.sojournTimeNs().get(), is(100L));
+        assertThat(recorder.maxSojournTimeNs().get(), is(100L));
+    }
+
+    @Test
+    public void shouldTimeSampleFromBeforeTheOffer()
+    {
+        final OneToOneConcurrentArrayQueue<Integer> delegate = new OneToOneConcurrentArrayQueue<Integer>(16)
+        {
+            public boolean offer(final Integer e)
+            {
+                nanoTime += 10;
+                return super.offer(e);
+            }
+        };
+        final InstrumentedQueuedPipe<Integer> queue = new InstrumentedQueuedPipe<>(delegate, recorder);
+
+        queue.offer(1);
+        nanoTime = 100;
+        queue.offer(2);
+
+        assertThat(queue.poll(), is(1));
+        assertThat(queue.poll(), is(2));
+        assertThat(recorder.sojournTimeNs().get(), is(10L));
+    }
+
+    @Test
+    public void shouldRecordRingBufferOccupancyInBytes()
+    {
+        final int capacity = 1024;
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[capacity + RingBufferDescriptor.TRAILER_LENGTH]);
+        final InstrumentedRingBuffer ringBuffer = new InstrumentedRingBuffer(new OneToOneRingBuffer(buffer), recorder);
+        final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[64]);
+
+        ringBuffer.write(1, srcBuffer, 0, 8);
+        nanoTime = 1000;
+        ringBuffer.write(1, srcBuffer, 0, 8);
+        assertThat(recorder.depth().get(), is(ringBuffer.producerPosition()));
+
+        nanoTime = 1700;
+        assertThat(ringBuffer.read((msgTypeId, buffer1, index, length) -> {}), is(2));
+        assertThat(recorder.sojournTimeNs().get(), is(700L));
+        assertThat(recorder.maxSojournTimeNs().get(), is(700L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSampleIntervalWhichIsNotPowerOfTwo()
+    {
+        new OccupancyRecorder(
+            recorder.depth(),
+            recorder.highWaterMark(),
+            recorder.sojournTimeNs(),
+            recorder.maxSojournTimeNs(),
+            () -> nanoTime,
+            3);
+    }
+}
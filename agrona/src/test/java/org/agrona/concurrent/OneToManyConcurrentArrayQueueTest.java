@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class OneToManyConcurrentArrayQueueTest
+{
+    private static final int CAPACITY = 64;
+
+    private final OneToManyConcurrentArrayQueue<Integer> queue = new OneToManyConcurrentArrayQueue<>(CAPACITY);
+
+    @Test(timeout = 10000)
+    public void shouldDeliverEachElementToExactlyOneConsumer() throws Exception
+    {
+        final int numItems = 200_000;
+        final int numConsumers = 3;
+        final AtomicIntegerArray deliveries = new AtomicIntegerArray(numItems);
+        final Thread[] consumers = new Thread[numConsumers];
+
+        for (int t = 0; t < numConsumers; t++)
+        {
+            consumers[t] = new Thread(
+                () ->
+                {
+                    while (true)
+                    {
+                        final Integer item = queue.poll();
+                        if (null == item)
+                        {
+                            Thread.yield();
+                        }
+                        else if (item < 0)
+                        {
+                            break;
+                        }
+                        else
+                        {
+                            deliveries.incrementAndGet(item);
+                        }
+                    }
+                });
+            consumers[t].start();
+        }
+
+        for (int i = 0; i < numItems; i++)
+        {
+            while (!queue.offer(i))
+            {
+                Thread.yield();
+            }
+        }
+
+        for (int t = 0; t < numConsumers; t++)
+        {
+            while (!queue.offer(-1))
+            {
+                Thread.yield();
+            }
+        }
+
+        for (final Thread consumer : consumers)
+        {
+            consumer.join();
+        }
+
+        assertTrue(queue.isEmpty());
+        for (int i = 0; i < numItems; i++)
+        {
+            assertThat(deliveries.get(i), is(1));
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -48,6 +49,9 @@ public class QueuedPipeTest
     @DataPoint
     public static final Fixture MANY_TO_ONE_QUEUE = () -> new ManyToOneConcurrentArrayQueue<>(QUEUE_CAPACITY);
 
+    @DataPoint
+    public static final Fixture ONE_TO_MANY_QUEUE = () -> new OneToManyConcurrentArrayQueue<>(QUEUE_CAPACITY);
+
     @DataPoint
     public static final Fixture MANY_TO_MANY_QUEUE = () -> new ManyToManyConcurrentArrayQueue<>(QUEUE_CAPACITY);
 
@@ -296,6 +300,167 @@ public class QueuedPipeTest
         assertThat(queue.size(), is(queue.capacity() - count));
     }
 
+    @Theory
+    public void shouldOfferBatchAndPollInOrder(final Fixture fixture)
+    {
+        final AbstractConcurrentArrayQueue<Integer> queue = arrayQueue(fixture);
+        final Integer[] items = { 0, 1, 2, 3, 4, 5 };
+
+        assertTrue(queue.offer(-1));
+        assertThat(queue.poll(), is(-1));
+
+        assertTrue(queue.offerBatch(items, 1, 5));
+        assertThat(queue.size(), is(5));
+
+        for (int i = 1; i <= 5; i++)
+        {
+            assertThat(queue.poll(), is(i));
+        }
+    }
+
+    @Theory
+    public void shouldRejectBatchWhenInsufficientCapacity(final Fixture fixture)
+    {
+        final AbstractConcurrentArrayQueue<Integer> queue = arrayQueue(fixture);
+        final Integer[] items = { 0, 1, 2, 3, 4, 5 };
+
+        assertTrue(queue.offerBatch(items, 0, 5));
+        Assert.assertFalse(queue.offerBatch(items, 0, QUEUE_CAPACITY - 4));
+        assertThat(queue.size(), is(5));
+    }
+
+    @Theory
+    @Test(expected = NullPointerException.class)
+    public void shouldThrowExceptionWhenBatchContainsNull(final Fixture fixture)
+    {
+        final AbstractConcurrentArrayQueue<Integer> queue = arrayQueue(fixture);
+
+        queue.offerBatch(new Integer[]{ 1, null }, 0, 2);
+    }
+
+    @Theory
+    public void shouldFillUpToRemainingCapacity(final Fixture fixture)
+    {
+        final AbstractConcurrentArrayQueue<Integer> queue = arrayQueue(fixture);
+        final int[] next = { 0 };
+
+        assertThat(queue.fill(() -> next[0]++, 3), is(3));
+        assertThat(queue.fill(() -> next[0]++, QUEUE_CAPACITY), is(QUEUE_CAPACITY - 3));
+        assertThat(queue.fill(() -> next[0]++, 1), is(0));
+
+        for (int i = 0; i < QUEUE_CAPACITY; i++)
+        {
+            assertThat(queue.poll(), is(i));
+        }
+    }
+
+    @Theory
+    public void shouldEndFillEarlyWhenSupplierReturnsNull(final Fixture fixture)
+    {
+        final AbstractConcurrentArrayQueue<Integer> queue = arrayQueue(fixture);
+        final int[] next = { 0 };
+
+        assertThat(queue.fill(() -> next[0] < 2 ? next[0]++ : null, 5), is(2));
+        assertThat(queue.size(), is(2));
+
+        assertThat(queue.fill(() -> next[0]++, QUEUE_CAPACITY), is(QUEUE_CAPACITY - 2));
+
+        for (int i = 0; i < QUEUE_CAPACITY; i++)
+        {
+            assertThat(queue.poll(), is(i));
+        }
+        Assert.assertNull(queue.poll());
+    }
+
+    @Theory
+    public void shouldPublishFilledElementsWhenSupplierThrows(final Fixture fixture)
+    {
+        final AbstractConcurrentArrayQueue<Integer> queue = arrayQueue(fixture);
+        final int[] next = { 0 };
+        final IllegalStateException failure = new IllegalStateException("supplier failed");
+
+        try
+        {
+            queue.fill(
+                () ->
+                {
+                    if (next[0] == 3)
+                    {
+                        throw failure;
+                    }
+
+                    return next[0]++;
+                },
+                6);
+
+            Assert.fail("expected supplier exception to propagate");
+        }
+        catch (final IllegalStateException ex)
+        {
+            assertThat(ex, is(failure));
+        }
+
+        assertThat(queue.size(), is(3));
+        assertThat(queue.poll(), is(0));
+        assertThat(queue.poll(), is(1));
+        assertThat(queue.poll(), is(2));
+        Assert.assertNull(queue.poll());
+
+        assertTrue(queue.offer(7));
+        assertThat(queue.poll(), is(7));
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void shouldSkipUnfilledSlotsWhenManyToOneProducerClaimsAfterThem()
+    {
+        shouldSkipUnfilledSlotsWhenAnotherProducerClaimsAfterThem(MANY_TO_ONE_QUEUE);
+    }
+
+    @Test
+    public void shouldSkipUnfilledSlotsWhenManyToManyProducerClaimsAfterThem()
+    {
+        shouldSkipUnfilledSlotsWhenAnotherProducerClaimsAfterThem(MANY_TO_MANY_QUEUE);
+    }
+
+    private static void shouldSkipUnfilledSlotsWhenAnotherProducerClaimsAfterThem(final Fixture fixture)
+    {
+        final AbstractConcurrentArrayQueue<Integer> queue = arrayQueue(fixture);
+        final int[] next = { 0 };
+
+        final int filled = queue.fill(
+            () ->
+            {
+                if (next[0] == 2)
+                {
+                    assertTrue(queue.offer(42));
+                    return null;
+                }
+
+                return next[0]++;
+            },
+            4);
+
+        assertThat(filled, is(2));
+
+        final Collection<Integer> target = new ArrayList<>();
+        assertThat(queue.drainTo(target, QUEUE_CAPACITY), is(3));
+        assertThat(target, contains(0, 1, 42));
+        Assert.assertNull(queue.poll());
+
+        assertThat(queue.fill(() -> next[0]++, QUEUE_CAPACITY), is(QUEUE_CAPACITY));
+        for (int i = 0; i < QUEUE_CAPACITY; i++)
+        {
+            assertThat(queue.poll(), is(i + 2));
+        }
+        Assert.assertNull(queue.poll());
+    }
+
+    private static AbstractConcurrentArrayQueue<Integer> arrayQueue(final Fixture fixture)
+    {
+        return (AbstractConcurrentArrayQueue<Integer>)fixture.newInstance();
+    }
+
     private void fillQueue(final QueuedPipe<Integer> queue)
     {
         for (int i = 0, size = queue.capacity(); i < size; i++)
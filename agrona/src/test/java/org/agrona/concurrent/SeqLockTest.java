@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SeqLockTest
+{
+    private static final int DATA_LENGTH = 24;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(128));
+    private final SeqLock seqLock = new SeqLock(buffer, 64, SeqLock.DATA_OFFSET + DATA_LENGTH);
+    private final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[DATA_LENGTH]);
+    private final UnsafeBuffer dstBuffer = new UnsafeBuffer(new byte[DATA_LENGTH]);
+
+    @Test
+    public void shouldWriteAndReadSnapshot()
+    {
+        srcBuffer.putLong(0, 101L);
+        srcBuffer.putLong(8, 202L);
+
+        seqLock.write(srcBuffer, 0, DATA_LENGTH);
+
+        assertThat(seqLock.read(dstBuffer, 0, DATA_LENGTH), is(2L));
+        assertThat(dstBuffer.getLong(0), is(101L));
+        assertThat(dstBuffer.getLong(8), is(202L));
+    }
+
+    @Test
+    public void shouldFailTryReadWhileWriteInProgress()
+    {
+        seqLock.beginWrite();
+        buffer.putLong(seqLock.dataIndex(), 7L);
+
+        assertThat(seqLock.version(), is(1L));
+        assertThat(seqLock.tryRead(dstBuffer, 0, DATA_LENGTH), is(-1L));
+
+        seqLock.endWrite();
+
+        assertThat(seqLock.tryRead(dstBuffer, 0, DATA_LENGTH), is(2L));
+        assertThat(dstBuffer.getLong(0), is(7L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWriteLongerThanData()
+    {
+        seqLock.write(new UnsafeBuffer(new byte[DATA_LENGTH + 1]), 0, DATA_LENGTH + 1);
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldNeverReadTornSnapshot() throws Exception
+    {
+        final int updates = 100_000;
+        final Thread writer = new Thread(
+            () ->
+            {
+                final AtomicBuffer buffer = seqLock.buffer();
+                final int index = seqLock.dataIndex();
+                for (long i = 1; i <= updates; i++)
+                {
+                    seqLock.beginWrite();
+                    buffer.putLong(index, i);
+                    buffer.putLong(index + 8, i);
+                    buffer.putLong(index + 16, i);
+                    seqLock.endWrite();
+                }
+            });
+        writer.start();
+
+        long value = 0;
+        while (value < updates)
+        {
+            seqLock.read(dstBuffer, 0, DATA_LENGTH);
+            value = dstBuffer.getLong(0);
+
+            assertThat(dstBuffer.getLong(8), is(value));
+            assertThat(dstBuffer.getLong(16), is(value));
+        }
+
+        writer.join();
+    }
+}
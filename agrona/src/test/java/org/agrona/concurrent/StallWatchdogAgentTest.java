@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.concurrent.errors.DistinctErrorLog;
+import org.agrona.concurrent.errors.ErrorLogReader;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+import org.agrona.concurrent.status.StatusIndicator;
+import org.agrona.concurrent.status.UnsafeBufferStatusIndicator;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.agrona.concurrent.status.CountersReader.COUNTER_LENGTH;
+import static org.agrona.concurrent.status.CountersReader.METADATA_LENGTH;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class StallWatchdogAgentTest
+{
+    private static final long STALL_THRESHOLD_NS = 1_000_000;
+
+    private final CountersManager countersManager = new CountersManager(
+        new UnsafeBuffer(new byte[4 * METADATA_LENGTH]), new UnsafeBuffer(new byte[4 * COUNTER_LENGTH]));
+    private final UnsafeBuffer errorBuffer = new UnsafeBuffer(new byte[64 * 1024]);
+    private final DistinctErrorLog errorLog = new DistinctErrorLog(errorBuffer, System::currentTimeMillis);
+    private final AtomicCounter heartbeat = countersManager.newCounter("heartbeat");
+    private final AtomicCounter stallCounter = countersManager.newCounter("stalled");
+    private final StatusIndicator stallIndicator = new UnsafeBufferStatusIndicator(
+        countersManager.valuesBuffer(), stallCounter.id());
+    private final CountDownLatch blockLatch = new CountDownLatch(1);
+    private final Thread blockedThread = new Thread(
+        () ->
+        {
+            try
+            {
+                blockLatch.await();
+            }
+            catch (final InterruptedException ignore)
+            {
+            }
+        },
+        "blocked-agent");
+    private long nowNs = 0;
+
+    private final StallWatchdogAgent watchdog = new StallWatchdogAgent(
+        countersManager, errorLog, () -> nowNs, STALL_THRESHOLD_NS);
+
+    @After
+    public void after() throws Exception
+    {
+        blockLatch.countDown();
+        if (blockedThread.isAlive())
+        {
+            blockedThread.join();
+        }
+    }
+
+    @Test
+    public void shouldNotReportStallWhileCounterAdvances()
+    {
+        watchdog.watch(heartbeat.id(), Thread.currentThread(), stallIndicator);
+
+        for (int i = 0; i < 10; i++)
+        {
+            heartbeat.increment();
+            assertThat(watchdog.doWork(), is(0));
+            nowNs += STALL_THRESHOLD_NS;
+        }
+
+        assertThat(watchdog.isStalled(heartbeat.id()), is(false));
+        assertThat(stallIndicator.getVolatile(), is(StallWatchdogAgent.NOT_STALLED));
+        assertThat(ErrorLogReader.read(errorBuffer, (count, first, last, text) -> {}), is(0));
+    }
+
+    @Test
+    public void shouldRecordStackTraceAndIndicateStallThenClearOnProgress()
+    {
+        blockedThread.start();
+        while (blockedThread.getState() != Thread.State.WAITING)
+        {
+            Thread.yield();
+        }
+
+        watchdog.watch(heartbeat.id(), blockedThread, stallIndicator);
+
+        assertThat(watchdog.doWork(), is(0));
+        nowNs += STALL_THRESHOLD_NS - 1;
+        assertThat(watchdog.doWork(), is(0));
+        assertThat(watchdog.isStalled(heartbeat.id()), is(false));
+
+        nowNs += 1;
+        assertThat(watchdog.doWork(), is(1));
+        assertThat(watchdog.isStalled(heartbeat.id()), is(true));
+        assertThat(stallIndicator.getVolatile(), is(StallWatchdogAgent.STALLED));
+
+        nowNs += STALL_THRESHOLD_NS;
+        assertThat(watchdog.doWork(), is(0));
+
+        final List<String> errors = new ArrayList<>();
+        assertThat(ErrorLogReader.read(errorBuffer, (count, first, last, text) -> errors.add(text)), is(1));
+        assertThat(errors.get(0), containsString(AgentStallException.class.getName()));
+        assertThat(errors.get(0), containsString("thread=blocked-agent"));
+        assertThat(errors.get(0), containsString("CountDownLatch.await"));
+
+        heartbeat.increment();
+        assertThat(watchdog.doWork(), is(1));
+        assertThat(watchdog.isStalled(heartbeat.id()), is(false));
+        assertThat(stallIndicator.getVolatile(), is(StallWatchdogAgent.NOT_STALLED));
+    }
+
+    @Test
+    public void shouldOnlyCheckOncePerInterval()
+    {
+        final StallWatchdogAgent watchdog = new StallWatchdogAgent(
+            countersManager, errorLog, () -> nowNs, STALL_THRESHOLD_NS, STALL_THRESHOLD_NS * 2);
+        watchdog.watch(heartbeat.id(), Thread.currentThread(), null);
+
+        assertThat(watchdog.doWork(), is(0));
+        nowNs += STALL_THRESHOLD_NS;
+        assertThat(watchdog.doWork(), is(0));
+        assertThat(watchdog.isStalled(heartbeat.id()), is(false));
+
+        nowNs += STALL_THRESHOLD_NS;
+        assertThat(watchdog.doWork(), is(1));
+        assertThat(watchdog.isStalled(heartbeat.id()), is(true));
+    }
+
+    @Test
+    public void shouldNotWatchSameCounterTwiceAndShouldUnwatch()
+    {
+        assertThat(watchdog.watch(heartbeat.id(), Thread.currentThread(), null), is(true));
+        assertThat(watchdog.watch(heartbeat.id(), Thread.currentThread(), null), is(false));
+        assertThat(watchdog.watchCount(), is(1));
+
+        assertThat(watchdog.unwatch(heartbeat.id()), is(true));
+        assertThat(watchdog.unwatch(heartbeat.id()), is(false));
+        assertThat(watchdog.watchCount(), is(0));
+    }
+
+    @Test
+    public void shouldIncrementHeartbeatOnEachDutyCycle()
+    {
+        final HeartbeatDutyCycleTracker tracker = new HeartbeatDutyCycleTracker(heartbeat);
+
+        tracker.update(0);
+        tracker.measureAndUpdate(10);
+        tracker.measureAndUpdate(30);
+
+        assertThat(heartbeat.get(), is(2L));
+        assertThat(tracker.maxCycleTimeNs(), is(20L));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadFactoryTest
+{
+    @Test
+    public void shouldCreateVirtualThreadsOnlyWhenSupported() throws Exception
+    {
+        final Thread thread = new VirtualThreadFactory().newThread(() -> {});
+
+        assertThat(isVirtual(thread), is(VirtualThreadFactory.isSupported()));
+    }
+
+    @Test
+    public void shouldUseFallbackFactoryWhenNotSupported()
+    {
+        final Thread fallbackThread = new Thread(() -> {});
+        final Thread thread = new VirtualThreadFactory((runnable) -> fallbackThread).newThread(() -> {});
+
+        assertThat(thread == fallbackThread, is(!VirtualThreadFactory.isSupported()));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldRunAgentWithParkingIdleStrategy() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final Agent agent = new Agent()
+        {
+            public int doWork()
+            {
+                latch.countDown();
+                return 0;
+            }
+
+            public String roleName()
+            {
+                return "parking-agent";
+            }
+        };
+
+        final AgentRunner runner = new AgentRunner(
+            new ParkingIdleStrategy(1000, 1_000_000), Throwable::printStackTrace, null, agent);
+        final Thread thread = AgentRunner.startOnVirtualThread(runner);
+
+        latch.await();
+        runner.close();
+
+        assertThat(thread.getName(), is("parking-agent"));
+        assertTrue(runner.isClosed());
+    }
+
+    @Test
+    public void shouldBackOffParkPeriodUntilReset()
+    {
+        final ParkingIdleStrategy idleStrategy = new ParkingIdleStrategy(1, 4);
+
+        idleStrategy.idle(0);
+        assertThat(idleStrategy.parkPeriodNs(), is(2L));
+        idleStrategy.idle(0);
+        idleStrategy.idle(0);
+        assertThat(idleStrategy.parkPeriodNs(), is(4L));
+
+        idleStrategy.idle(1);
+        assertThat(idleStrategy.parkPeriodNs(), is(1L));
+    }
+
+    private static boolean isVirtual(final Thread thread) throws Exception
+    {
+        try
+        {
+            return (Boolean)Thread.class.getMethod("isVirtual").invoke(thread);
+        }
+        catch (final NoSuchMethodException ignore)
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent;
+
+import org.agrona.ErrorHandler;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class WorkStealingAgentSchedulerTest
+{
+    private static final int MAX_AGENTS = 16;
+
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private WorkStealingAgentScheduler scheduler;
+
+    @After
+    public void after()
+    {
+        if (null != scheduler)
+        {
+            scheduler.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldRunManyAgentsOnFewerThreads()
+    {
+        scheduler = newScheduler(2, 5);
+        final CountingAgent[] agents = new CountingAgent[MAX_AGENTS];
+        for (int i = 0; i < agents.length; i++)
+        {
+            agents[i] = new CountingAgent(i % 2);
+            assertTrue(scheduler.add(agents[i]));
+        }
+
+        scheduler.start();
+
+        for (final CountingAgent agent : agents)
+        {
+            awaitDutyCycles(agent, 100);
+        }
+
+        scheduler.close();
+
+        for (final CountingAgent agent : agents)
+        {
+            assertThat(agent.startCount.get(), is(1));
+            assertThat(agent.closeCount.get(), is(1));
+            assertTrue(agent.wasRunOnSchedulerThread);
+        }
+
+        verify(errorHandler, never()).onError(any());
+    }
+
+    @Test
+    public void shouldRejectAgentsBeyondMax()
+    {
+        scheduler = newScheduler(1, 5);
+        for (int i = 0; i < MAX_AGENTS; i++)
+        {
+            assertTrue(scheduler.add(new CountingAgent(1)));
+        }
+
+        assertFalse(scheduler.add(new CountingAgent(1)));
+        assertThat(scheduler.agentCount(), is(MAX_AGENTS));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldRemoveAgentAndCloseItOnSchedulerThread()
+    {
+        scheduler = newScheduler(2, 5);
+        final CountingAgent agent = new CountingAgent(0);
+        scheduler.add(agent);
+        scheduler.start();
+
+        awaitDutyCycles(agent, 10);
+        assertTrue(scheduler.remove(agent));
+        assertFalse(scheduler.remove(agent));
+        assertThat(scheduler.agentCount(), is(0));
+
+        while (0 == agent.closeCount.get())
+        {
+            Thread.yield();
+        }
+
+        assertTrue(agent.wasClosedOnSchedulerThread);
+        scheduler.close();
+        assertThat(agent.closeCount.get(), is(1));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldRemoveAgentWhichTerminates()
+    {
+        scheduler = newScheduler(1, 5);
+        final AgentTerminationException exception = new AgentTerminationException();
+        final CountingAgent agent = new CountingAgent(1)
+        {
+            public int doWork()
+            {
+                super.doWork();
+                throw exception;
+            }
+        };
+
+        scheduler.add(agent);
+        scheduler.start();
+
+        while (0 == agent.closeCount.get())
+        {
+            Thread.yield();
+        }
+
+        assertThat(scheduler.agentCount(), is(0));
+        verify(errorHandler).onError(exception);
+    }
+
+    @Test(timeout = 10000)
+    public void shouldStealFromWorkerHoldingAllAgentsWithoutDroppingAny()
+    {
+        final int parkThreshold = 5;
+        scheduler = newScheduler(2, parkThreshold);
+        final StealableAgent[] agents = new StealableAgent[MAX_AGENTS];
+        for (int i = 0; i < agents.length; i++)
+        {
+            agents[i] = new StealableAgent();
+            assertTrue(scheduler.add(agents[i]));
+        }
+
+        final CountDownLatch secondThreadLatch = new CountDownLatch(1);
+        final AtomicInteger threadCount = new AtomicInteger();
+        scheduler.start(
+            (runnable) ->
+            {
+                if (0 == threadCount.getAndIncrement())
+                {
+                    return new Thread(runnable);
+                }
+
+                return new Thread(
+                    () ->
+                    {
+                        try
+                        {
+                            secondThreadLatch.await();
+                        }
+                        catch (final InterruptedException ignore)
+                        {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+
+                        runnable.run();
+                    });
+            });
+
+        awaitAgentsWithDutyCycles(agents, MAX_AGENTS - 1, parkThreshold + 1);
+
+        for (final StealableAgent agent : agents)
+        {
+            agent.isBusy = true;
+        }
+
+        awaitAgentsWithDutyCycles(agents, MAX_AGENTS - 1, parkThreshold + 100);
+        secondThreadLatch.countDown();
+
+        while (countRunOnSecondThread(agents) < 2)
+        {
+            Thread.yield();
+        }
+
+        for (final StealableAgent agent : agents)
+        {
+            awaitDutyCycles(agent, agent.dutyCycles.get() + 100);
+        }
+
+        scheduler.close();
+
+        for (final StealableAgent agent : agents)
+        {
+            assertThat(agent.startCount.get(), is(1));
+            assertThat(agent.closeCount.get(), is(1));
+        }
+
+        verify(errorHandler, never()).onError(any());
+    }
+
+    private WorkStealingAgentScheduler newScheduler(final int threadCount, final int parkThreshold)
+    {
+        return new WorkStealingAgentScheduler(
+            "test", threadCount, MAX_AGENTS, parkThreshold, YieldingIdleStrategy::new, errorHandler, null);
+    }
+
+    private static void awaitDutyCycles(final CountingAgent agent, final int dutyCycles)
+    {
+        while (agent.dutyCycles.get() < dutyCycles)
+        {
+            Thread.yield();
+        }
+    }
+
+    private static void awaitAgentsWithDutyCycles(
+        final CountingAgent[] agents, final int agentCount, final int dutyCycles)
+    {
+        while (true)
+        {
+            int count = 0;
+            for (final CountingAgent agent : agents)
+            {
+                if (agent.dutyCycles.get() >= dutyCycles)
+                {
+                    count++;
+                }
+            }
+
+            if (count >= agentCount)
+            {
+                return;
+            }
+
+            Thread.yield();
+        }
+    }
+
+    private static int countRunOnSecondThread(final StealableAgent[] agents)
+    {
+        int count = 0;
+        for (final StealableAgent agent : agents)
+        {
+            if (agent.wasRunOnSecondThread)
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Agent which only does work on the first scheduler thread so the first thread adopts all of them when they
+     * become busy and the second thread, finding no work, has to steal them.
+     */
+    static class StealableAgent extends CountingAgent
+    {
+        volatile boolean isBusy = false;
+        volatile boolean wasRunOnSecondThread = false;
+
+        StealableAgent()
+        {
+            super(0);
+        }
+
+        public int doWork()
+        {
+            super.doWork();
+
+            if ("test-1".equals(Thread.currentThread().getName()))
+            {
+                wasRunOnSecondThread = true;
+                return 0;
+            }
+
+            return isBusy ? 1 : 0;
+        }
+    }
+
+    static class CountingAgent implements Agent
+    {
+        final int workCount;
+        final AtomicInteger startCount = new AtomicInteger();
+        final AtomicInteger closeCount = new AtomicInteger();
+        final AtomicInteger dutyCycles = new AtomicInteger();
+        volatile boolean wasRunOnSchedulerThread = true;
+        volatile boolean wasClosedOnSchedulerThread = false;
+
+        CountingAgent(final int workCount)
+        {
+            this.workCount = workCount;
+        }
+
+        public void onStart()
+        {
+            startCount.incrementAndGet();
+        }
+
+        public int doWork()
+        {
+            if (!Thread.currentThread().getName().startsWith("test-"))
+            {
+                wasRunOnSchedulerThread = false;
+            }
+
+            dutyCycles.incrementAndGet();
+
+            return workCount;
+        }
+
+        public void onClose()
+        {
+            wasClosedOnSchedulerThread = Thread.currentThread().getName().startsWith("test-");
+            closeCount.incrementAndGet();
+        }
+
+        public String roleName()
+        {
+            return "counting";
+        }
+    }
+}
@@ -19,9 +19,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicLongPosition;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.agrona.BitUtil.align;
 import static org.agrona.concurrent.broadcast.RecordDescriptor.*;
@@ -198,4 +201,48 @@ public class BroadcastTransmitterTest
         inOrder.verify(buffer).putLong(LATEST_COUNTER_INDEX, tail);
         inOrder.verify(buffer).putLongOrdered(TAIL_COUNTER_INDEX, tail + recordLengthAligned);
     }
+
+    @Test
+    public void shouldApplyBackPressureFromSlowestReceiver()
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[TOTAL_BUFFER_LENGTH]);
+        final BroadcastTransmitter transmitter = new BroadcastTransmitter(buffer);
+        final AtomicLongPosition fastPosition = new AtomicLongPosition();
+        final AtomicLongPosition slowPosition = new AtomicLongPosition();
+        final BroadcastReceiver fastReceiver = new BroadcastReceiver(buffer, fastPosition);
+        final BroadcastReceiver slowReceiver = new BroadcastReceiver(buffer, slowPosition);
+        transmitter.addReceiverPosition(fastPosition);
+        transmitter.addReceiverPosition(slowPosition);
+
+        final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[1024]);
+        final int length = 56;
+        final int recordLengthAligned = align(length + HEADER_LENGTH, RECORD_ALIGNMENT);
+
+        int sent = 0;
+        while (transmitter.offer(MSG_TYPE_ID, srcBuffer, 0, length))
+        {
+            srcBuffer.putInt(0, ++sent);
+        }
+        assertThat(sent, is((CAPACITY / recordLengthAligned) - 1));
+
+        while (fastReceiver.receiveNext())
+        {
+            assertTrue(fastReceiver.validate());
+        }
+        assertFalse(transmitter.offer(MSG_TYPE_ID, srcBuffer, 0, length));
+
+        int received = 0;
+        while (slowReceiver.receiveNext())
+        {
+            assertThat(slowReceiver.buffer().getInt(slowReceiver.offset()), is(received++));
+            assertTrue(slowReceiver.validate());
+        }
+        assertThat(received, is(sent));
+        assertTrue(transmitter.offer(MSG_TYPE_ID, srcBuffer, 0, length));
+
+        transmitter.removeReceiverPosition(slowPosition);
+        transmitter.removeReceiverPosition(fastPosition);
+        assertThat(slowReceiver.lappedCount(), is(0L));
+        assertThat(fastReceiver.lappedCount(), is(0L));
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.broadcast;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentBroadcastTransmitterTest
+{
+    private static final int MSG_TYPE_ID = 7;
+    private static final int PRODUCER_COUNT = 4;
+    private static final int REPETITIONS = 10_000;
+    private static final int CAPACITY = 1024 * 1024;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(
+        ByteBuffer.allocateDirect(CAPACITY + BroadcastBufferDescriptor.TRAILER_LENGTH));
+    private final ConcurrentBroadcastTransmitter transmitter = new ConcurrentBroadcastTransmitter(buffer);
+
+    @Test
+    public void shouldTransmitAcrossBufferWrapInOrder()
+    {
+        final UnsafeBuffer smallBuffer = new UnsafeBuffer(
+            ByteBuffer.allocateDirect(256 + BroadcastBufferDescriptor.TRAILER_LENGTH));
+        final ConcurrentBroadcastTransmitter smallTransmitter = new ConcurrentBroadcastTransmitter(smallBuffer);
+        final BroadcastReceiver receiver = new BroadcastReceiver(smallBuffer);
+        final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[24]);
+
+        for (int i = 0; i < 20; i++)
+        {
+            srcBuffer.putInt(0, i);
+            smallTransmitter.transmit(MSG_TYPE_ID, srcBuffer, 0, srcBuffer.capacity());
+
+            assertTrue(receiver.receiveNext());
+            assertTrue(receiver.validate());
+            assertThat(receiver.typeId(), is(MSG_TYPE_ID));
+            assertThat(receiver.buffer().getInt(receiver.offset()), is(i));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldExchangeMessagesFromManyProducers() throws Exception
+    {
+        final BroadcastReceiver receiver = new BroadcastReceiver(buffer);
+        final CyclicBarrier barrier = new CyclicBarrier(PRODUCER_COUNT);
+        final Thread[] producers = new Thread[PRODUCER_COUNT];
+
+        for (int i = 0; i < PRODUCER_COUNT; i++)
+        {
+            final int producerId = i;
+            producers[i] = new Thread(
+                () ->
+                {
+                    final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[8]);
+                    srcBuffer.putInt(0, producerId);
+
+                    try
+                    {
+                        barrier.await();
+                    }
+                    catch (final Exception ex)
+                    {
+                        throw new RuntimeException(ex);
+                    }
+
+                    for (int sequence = 0; sequence < REPETITIONS; sequence++)
+                    {
+                        srcBuffer.putInt(4, sequence);
+                        transmitter.transmit(MSG_TYPE_ID, srcBuffer, 0, srcBuffer.capacity());
+                    }
+                });
+            producers[i].start();
+        }
+
+        for (final Thread producer : producers)
+        {
+            producer.join();
+        }
+
+        final int[] nextSequence = new int[PRODUCER_COUNT];
+        int count = 0;
+        while (receiver.receiveNext())
+        {
+            assertTrue(receiver.validate());
+            final int producerId = receiver.buffer().getInt(receiver.offset());
+            final int sequence = receiver.buffer().getInt(receiver.offset() + 4);
+
+            assertThat(sequence, is(nextSequence[producerId]++));
+            count++;
+        }
+
+        assertThat(count, is(PRODUCER_COUNT * REPETITIONS));
+        assertThat(receiver.lappedCount(), is(0L));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.broadcast;
+
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CopyBroadcastReceiverTest
+{
+    private static final int MSG_TYPE_ID = 7;
+    private static final int CAPACITY = 1024;
+    private static final int TOTAL_BUFFER_LENGTH = CAPACITY + BroadcastBufferDescriptor.TRAILER_LENGTH;
+    private static final int MESSAGE_LENGTH = 56;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[TOTAL_BUFFER_LENGTH]);
+    private final BroadcastTransmitter transmitter = new BroadcastTransmitter(buffer);
+    private final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[MESSAGE_LENGTH]);
+    private final List<Integer> received = new ArrayList<>();
+    private final MessageHandler handler = (msgTypeId, buffer, index, length) -> received.add(buffer.getInt(index));
+
+    @Test
+    public void shouldReceiveMessagesInOrder()
+    {
+        final CopyBroadcastReceiver receiver = new CopyBroadcastReceiver(new BroadcastReceiver(buffer));
+
+        transmit(0, 3);
+
+        while (receiver.receive(handler) > 0)
+        {
+            // drain
+        }
+
+        assertThat(received.size(), is(3));
+        assertThat(received.get(2), is(2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowWhenLappedWithoutLossHandler()
+    {
+        final CopyBroadcastReceiver receiver = new CopyBroadcastReceiver(new BroadcastReceiver(buffer));
+
+        transmit(0, 1);
+        receiver.receive(handler);
+        transmit(1, 32);
+
+        receiver.receive(handler);
+    }
+
+    @Test
+    public void shouldRecoverAndReportLossWhenLapped()
+    {
+        final long[] lossCount = new long[1];
+        final CopyBroadcastReceiver receiver = new CopyBroadcastReceiver(
+            new BroadcastReceiver(buffer),
+            CopyBroadcastReceiver.SCRATCH_BUFFER_LENGTH,
+            (lappedCount) -> lossCount[0] += lappedCount);
+
+        transmit(0, 1);
+        assertThat(receiver.receive(handler), is(1));
+
+        transmit(1, 32);
+        assertThat(receiver.receive(handler), is(1));
+        assertThat(lossCount[0], is(1L));
+        assertThat(received.get(received.size() - 1), is(32));
+
+        transmit(33, 1);
+        assertThat(receiver.receive(handler), is(1));
+        assertThat(received.get(received.size() - 1), is(33));
+        assertThat(lossCount[0], is(1L));
+    }
+
+    @Test
+    public void shouldSkipToLatestWhenRecordOverwrittenBeforeCopy()
+    {
+        final int[] tornLengthIndex = { -1 };
+        final UnsafeBuffer receiverBuffer = new UnsafeBuffer(buffer.byteArray())
+        {
+            public int getInt(final int index)
+            {
+                if (index == tornLengthIndex[0])
+                {
+                    tornLengthIndex[0] = -1;
+                    transmit(2, 32);
+
+                    return 1 << 20;
+                }
+
+                return super.getInt(index);
+            }
+        };
+
+        final long[] lossCount = new long[1];
+        final CopyBroadcastReceiver receiver = new CopyBroadcastReceiver(
+            new BroadcastReceiver(receiverBuffer),
+            CopyBroadcastReceiver.SCRATCH_BUFFER_LENGTH,
+            (lappedCount) -> lossCount[0] += lappedCount);
+
+        transmit(0, 1);
+        assertThat(receiver.receive(handler), is(1));
+
+        transmit(1, 1);
+        tornLengthIndex[0] = RecordDescriptor.lengthOffset(MESSAGE_LENGTH + RecordDescriptor.HEADER_LENGTH);
+        assertThat(receiver.receive(handler), is(0));
+        assertThat(lossCount[0], is(1L));
+
+        assertThat(receiver.receive(handler), is(1));
+        assertThat(received.get(received.size() - 1), is(33));
+        assertThat(lossCount[0], is(1L));
+    }
+
+    private void transmit(final int firstValue, final int count)
+    {
+        for (int i = firstValue; i < firstValue + count; i++)
+        {
+            srcBuffer.putInt(0, i);
+            transmitter.transmit(MSG_TYPE_ID, srcBuffer, 0, MESSAGE_LENGTH);
+        }
+    }
+}
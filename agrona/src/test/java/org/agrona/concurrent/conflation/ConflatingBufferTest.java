@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.conflation;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ConflatingBufferTest
+{
+    private static final int MAX_VALUE_LENGTH = 24;
+    private static final int KEY_CAPACITY = 4;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(
+        ByteBuffer.allocateDirect(ConflatingBufferDescriptor.bufferLength(KEY_CAPACITY, MAX_VALUE_LENGTH)));
+    private final ConflatingBufferWriter writer = new ConflatingBufferWriter(buffer, MAX_VALUE_LENGTH);
+    private final ConflatingBufferReader reader = new ConflatingBufferReader(buffer, MAX_VALUE_LENGTH);
+    private final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[MAX_VALUE_LENGTH]);
+    private final Map<Long, Long> received = new HashMap<>();
+    private final ConflatingBufferReader.ValueHandler handler =
+        (key, buffer, index, length) -> received.put(key, buffer.getLong(index));
+
+    @Test
+    public void shouldDeliverOnlyLatestValuePerKey()
+    {
+        write(100L, 1L);
+        write(200L, 2L);
+        write(100L, 3L);
+
+        assertThat(reader.poll(handler), is(2));
+        assertThat(received.get(100L), is(3L));
+        assertThat(received.get(200L), is(2L));
+        assertThat(writer.keyCount(), is(2));
+    }
+
+    @Test
+    public void shouldDeliverOnlyChangedKeysSinceLastPoll()
+    {
+        write(100L, 1L);
+        write(200L, 2L);
+        assertThat(reader.poll(handler), is(2));
+        assertThat(reader.poll(handler), is(0));
+
+        received.clear();
+        write(200L, 4L);
+        write(300L, 5L);
+
+        assertThat(reader.poll(handler), is(2));
+        assertThat(received.size(), is(2));
+        assertThat(received.get(200L), is(4L));
+        assertThat(received.get(300L), is(5L));
+    }
+
+    @Test
+    public void shouldRecoverKeysWhenWriterRecreated()
+    {
+        write(100L, 1L);
+
+        final ConflatingBufferWriter newWriter = new ConflatingBufferWriter(buffer, MAX_VALUE_LENGTH);
+        srcBuffer.putLong(0, 7L);
+        newWriter.write(100L, srcBuffer, 0, 8);
+
+        assertThat(newWriter.keyCount(), is(1));
+        assertThat(reader.poll(handler), is(1));
+        assertThat(received.get(100L), is(7L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowWhenKeyCapacityExceeded()
+    {
+        for (long key = 0; key <= KEY_CAPACITY; key++)
+        {
+            write(key, key);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowWhenValueTooLong()
+    {
+        writer.write(1L, new UnsafeBuffer(new byte[MAX_VALUE_LENGTH + 1]), 0, MAX_VALUE_LENGTH + 1);
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldNeverDeliverTornValue() throws Exception
+    {
+        final int updates = 100_000;
+        final Thread writerThread = new Thread(
+            () ->
+            {
+                final UnsafeBuffer src = new UnsafeBuffer(new byte[MAX_VALUE_LENGTH]);
+                for (long i = 1; i <= updates; i++)
+                {
+                    src.putLong(0, i);
+                    src.putLong(8, i);
+                    src.putLong(16, i);
+                    writer.write(i & 3, src, 0, MAX_VALUE_LENGTH);
+                }
+            });
+        writerThread.start();
+
+        final long[] maxSeen = new long[1];
+        final ConflatingBufferReader.ValueHandler checkingHandler =
+            (key, buffer, index, length) ->
+            {
+                final long value = buffer.getLong(index);
+                assertThat(buffer.getLong(index + 8), is(value));
+                assertThat(buffer.getLong(index + 16), is(value));
+                assertTrue(value > 0);
+                maxSeen[0] = Math.max(maxSeen[0], value);
+            };
+
+        while (writerThread.isAlive())
+        {
+            reader.poll(checkingHandler);
+        }
+
+        writerThread.join();
+        reader.poll(checkingHandler);
+
+        assertThat(maxSeen[0], is((long)updates));
+    }
+
+    private void write(final long key, final long value)
+    {
+        srcBuffer.putLong(0, value);
+        writer.write(key, srcBuffer, 0, 8);
+    }
+}
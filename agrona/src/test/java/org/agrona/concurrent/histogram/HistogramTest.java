@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.histogram;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.concurrent.histogram.HistogramDescriptor.*;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class HistogramTest
+{
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final long HIGHEST_TRACKABLE_VALUE = 3_600_000_000_000L;
+
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(
+        bufferLength(SUB_BUCKET_BITS, HIGHEST_TRACKABLE_VALUE));
+    private final UnsafeBuffer writerBuffer = new UnsafeBuffer(byteBuffer);
+    private final HistogramRecorder recorder = new HistogramRecorder(
+        writerBuffer, SUB_BUCKET_BITS, HIGHEST_TRACKABLE_VALUE);
+    private final HistogramReader reader = new HistogramReader(new UnsafeBuffer(byteBuffer));
+
+    @Test
+    public void shouldMapValuesToContiguousBucketsWithBoundedError()
+    {
+        final int bucketCount = HistogramDescriptor.bucketCount(SUB_BUCKET_BITS, HIGHEST_TRACKABLE_VALUE);
+        long expectedLowestValue = 0;
+
+        for (int i = 0; i < bucketCount; i++)
+        {
+            final long lowestValue = lowestEquivalentValue(i, SUB_BUCKET_BITS);
+            final long highestValue = highestEquivalentValue(i, SUB_BUCKET_BITS);
+
+            assertThat(lowestValue, is(expectedLowestValue));
+            assertThat(bucketIndex(lowestValue, SUB_BUCKET_BITS), is(i));
+            assertThat(bucketIndex(highestValue, SUB_BUCKET_BITS), is(i));
+            assertThat((double)(highestValue - lowestValue), lessThanOrEqualTo(lowestValue / 128.0));
+
+            expectedLowestValue = highestValue + 1;
+        }
+
+        assertThat(bucketIndex(Long.MAX_VALUE, SUB_BUCKET_BITS) > bucketCount, is(true));
+        assertThat(highestEquivalentValue(bucketIndex(Long.MAX_VALUE, SUB_BUCKET_BITS), SUB_BUCKET_BITS),
+            is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldRecordValuesVisibleToReader()
+    {
+        recorder.recordValue(0);
+        recorder.recordValue(100);
+        recorder.recordValue(1_000_000, 2);
+
+        assertThat(reader.subBucketBits(), is(SUB_BUCKET_BITS));
+        assertThat(reader.bucketCount(), is(recorder.bucketCount()));
+        assertThat(reader.totalCount(), is(4L));
+        assertThat(reader.minValue(), is(0L));
+        assertThat(reader.maxValue(), is(1_000_000L));
+        assertThat(reader.count(bucketIndex(100, SUB_BUCKET_BITS)), is(1L));
+        assertThat(reader.count(bucketIndex(1_000_000, SUB_BUCKET_BITS)), is(2L));
+
+        final List<Long> counts = new ArrayList<>();
+        assertThat(reader.forEach((lowestValue, highestValue, count) -> counts.add(count)), is(3));
+        assertThat(counts.toString(), is("[1, 1, 2]"));
+    }
+
+    @Test
+    public void shouldReportValueAtPercentile()
+    {
+        assertThat(reader.valueAtPercentile(50.0), is(0L));
+
+        for (int i = 1; i <= 10_000; i++)
+        {
+            recorder.recordValue(i);
+        }
+
+        assertWithinPrecision(reader.valueAtPercentile(50.0), 5_000);
+        assertWithinPrecision(reader.valueAtPercentile(99.0), 9_900);
+        assertThat(reader.valueAtPercentile(0.0), is(1L));
+        assertThat(reader.valueAtPercentile(100.0), is(10_000L));
+    }
+
+    @Test
+    public void shouldClampValuesAboveHighestTrackableValueToLastBucket()
+    {
+        recorder.recordValue(Long.MAX_VALUE);
+
+        assertThat(reader.count(reader.bucketCount() - 1), is(1L));
+        assertThat(reader.maxValue(), is(Long.MAX_VALUE));
+        assertThat(reader.valueAtPercentile(100.0), is(Long.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeValue()
+    {
+        recorder.recordValue(-1);
+    }
+
+    @Test
+    public void shouldMergeIntoSnapshotAndReset()
+    {
+        recorder.recordValue(7);
+        recorder.recordValue(70_000);
+
+        final UnsafeBuffer snapshotBuffer = new UnsafeBuffer(
+            ByteBuffer.allocateDirect(bufferLength(SUB_BUCKET_BITS, HIGHEST_TRACKABLE_VALUE)));
+        final HistogramRecorder snapshot = new HistogramRecorder(
+            snapshotBuffer, SUB_BUCKET_BITS, HIGHEST_TRACKABLE_VALUE);
+        snapshot.add(reader);
+
+        recorder.reset();
+        recorder.recordValue(3);
+        snapshot.add(reader);
+
+        final HistogramReader snapshotReader = new HistogramReader(snapshotBuffer);
+        assertThat(snapshotReader.totalCount(), is(3L));
+        assertThat(snapshotReader.minValue(), is(3L));
+        assertThat(snapshotReader.maxValue(), is(70_000L));
+        assertThat(snapshotReader.count(bucketIndex(7, SUB_BUCKET_BITS)), is(1L));
+
+        assertThat(reader.totalCount(), is(1L));
+        assertThat(reader.maxValue(), is(3L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotMergeHistogramsWithDifferentPrecision()
+    {
+        final HistogramRecorder other = new HistogramRecorder(
+            new UnsafeBuffer(ByteBuffer.allocateDirect(bufferLength(3, 1000))), 3, 1000);
+
+        other.add(reader);
+    }
+
+    @Test
+    public void shouldRecoverExistingHistogram()
+    {
+        recorder.recordValue(42);
+
+        final HistogramRecorder recovered = new HistogramRecorder(
+            writerBuffer, SUB_BUCKET_BITS, HIGHEST_TRACKABLE_VALUE);
+        recovered.recordValue(43);
+
+        assertThat(recovered.totalCount(), is(2L));
+        assertThat(reader.minValue(), is(42L));
+        assertThat(reader.maxValue(), is(43L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotRecoverHistogramWithDifferentLayout()
+    {
+        new HistogramRecorder(writerBuffer, SUB_BUCKET_BITS - 1, HIGHEST_TRACKABLE_VALUE);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotReadUninitialisedBuffer()
+    {
+        new HistogramReader(new UnsafeBuffer(ByteBuffer.allocateDirect(HEADER_LENGTH)));
+    }
+
+    @Test
+    public void shouldReadConsistentCountsWhileRecording() throws Exception
+    {
+        final int valueCount = 100_000;
+        final Thread writer = new Thread(
+            () ->
+            {
+                for (int i = 0; i < valueCount; i++)
+                {
+                    recorder.recordValue(i);
+                    if ((i & 1023) == 0)
+                    {
+                        Thread.yield();
+                    }
+                }
+            });
+        writer.start();
+
+        long lastTotalCount = 0;
+        while (lastTotalCount < valueCount)
+        {
+            final long totalCount = reader.totalCount();
+            assertThat(lastTotalCount, lessThanOrEqualTo(totalCount));
+
+            final long[] bucketTotal = new long[1];
+            reader.forEach((lowestValue, highestValue, count) -> bucketTotal[0] += count);
+            assertThat(totalCount, lessThanOrEqualTo(bucketTotal[0]));
+
+            lastTotalCount = totalCount;
+            Thread.yield();
+        }
+
+        writer.join();
+        assertThat(reader.valueAtPercentile(100.0), is(valueCount - 1L));
+    }
+
+    private static void assertWithinPrecision(final long actual, final long expected)
+    {
+        assertThat((double)Math.abs(actual - expected), lessThanOrEqualTo(expected / 128.0));
+    }
+}
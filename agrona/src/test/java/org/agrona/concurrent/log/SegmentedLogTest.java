@@ -0,0 +1,187 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.log;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedLogTest
+{
+    private static final int MSG_TYPE_ID = 7;
+    private static final int SEGMENT_LENGTH = 256;
+
+    private final File directory = new File(IoUtil.tmpDirName(), "segmented-log-test");
+    private final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[52]);
+    private final List<Integer> received = new ArrayList<>();
+    private final MessageHandler handler = (msgTypeId, buffer, index, length) -> received.add(buffer.getInt(index));
+
+    @Before
+    public void before()
+    {
+        IoUtil.delete(directory, true);
+    }
+
+    @After
+    public void after()
+    {
+        IoUtil.delete(directory, true);
+    }
+
+    @Test
+    public void shouldTailRecordsAcrossSegments()
+    {
+        try (SegmentedLogWriter writer = new SegmentedLogWriter(directory, SEGMENT_LENGTH, Runnable::run);
+            SegmentedLogReader reader = new SegmentedLogReader(directory))
+        {
+            assertThat(reader.poll(handler), is(0));
+
+            append(writer, 0, 3);
+            assertThat(reader.poll(handler), is(3));
+
+            append(writer, 3, 17);
+            assertThat(reader.poll(handler, 5), is(5));
+            assertThat(reader.poll(handler), is(12));
+            assertThat(reader.position(), is(writer.position()));
+
+            for (int i = 0; i < 20; i++)
+            {
+                assertThat(received.get(i), is(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldContinueFromPublishedPositionAfterReopen()
+    {
+        final long position;
+        try (SegmentedLogWriter writer = new SegmentedLogWriter(directory, SEGMENT_LENGTH))
+        {
+            append(writer, 0, 10);
+            position = writer.position();
+        }
+
+        try (SegmentedLogWriter writer = new SegmentedLogWriter(directory, SEGMENT_LENGTH);
+            SegmentedLogReader reader = new SegmentedLogReader(directory))
+        {
+            assertThat(writer.position(), is(position));
+
+            append(writer, 10, 10);
+            assertThat(reader.poll(handler), is(20));
+            assertThat(received.get(19), is(19));
+        }
+    }
+
+    @Test
+    public void shouldSkipToStartPositionWhenSegmentsDeleted()
+    {
+        try (SegmentedLogWriter writer = new SegmentedLogWriter(directory, SEGMENT_LENGTH, Runnable::run);
+            SegmentedLogReader reader = new SegmentedLogReader(directory))
+        {
+            append(writer, 0, 20);
+
+            final int deleted = writer.deleteSegmentsBefore(SEGMENT_LENGTH * 2);
+            assertThat(deleted, is(2));
+            assertThat(writer.startPosition(), is((long)SEGMENT_LENGTH * 2));
+            assertFalse(SegmentedLogDescriptor.segmentFile(directory, 0).exists());
+            assertTrue(SegmentedLogDescriptor.segmentFile(directory, 2).exists());
+
+            reader.poll(handler);
+            assertThat(received.get(0), is(8));
+            assertThat(received.get(received.size() - 1), is(19));
+        }
+    }
+
+    @Test
+    public void shouldStopAtZeroLengthRecord()
+    {
+        try (SegmentedLogWriter writer = new SegmentedLogWriter(directory, SEGMENT_LENGTH, Runnable::run);
+            SegmentedLogReader reader = new SegmentedLogReader(directory))
+        {
+            append(writer, 0, 3);
+            final long gapPosition = reader.position() + (writer.position() / 3) * 2;
+            zeroSegment(gapPosition);
+
+            assertThat(reader.poll(handler), is(2));
+            assertThat(reader.position(), is(gapPosition));
+            assertThat(reader.poll(handler), is(0));
+            assertThat(reader.position(), is(gapPosition));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectRecordLengthBeyondSegment()
+    {
+        try (SegmentedLogWriter writer = new SegmentedLogWriter(directory, SEGMENT_LENGTH, Runnable::run);
+            SegmentedLogReader reader = new SegmentedLogReader(directory))
+        {
+            append(writer, 0, 1);
+            putRecordLength(0, SEGMENT_LENGTH + SegmentedLogDescriptor.HEADER_LENGTH);
+
+            reader.poll(handler);
+        }
+    }
+
+    private void zeroSegment(final long position)
+    {
+        final MappedByteBuffer segment = IoUtil.mapExistingFile(
+            SegmentedLogDescriptor.segmentFile(directory, 0), "log segment");
+        try
+        {
+            new UnsafeBuffer(segment).setMemory((int)position, SEGMENT_LENGTH - (int)position, (byte)0);
+        }
+        finally
+        {
+            IoUtil.unmap(segment);
+        }
+    }
+
+    private void putRecordLength(final int recordOffset, final int recordLength)
+    {
+        final MappedByteBuffer segment = IoUtil.mapExistingFile(
+            SegmentedLogDescriptor.segmentFile(directory, 0), "log segment");
+        try
+        {
+            new UnsafeBuffer(segment).putInt(SegmentedLogDescriptor.lengthOffset(recordOffset), recordLength);
+        }
+        finally
+        {
+            IoUtil.unmap(segment);
+        }
+    }
+
+    private void append(final SegmentedLogWriter writer, final int from, final int count)
+    {
+        for (int i = from; i < from + count; i++)
+        {
+            srcBuffer.putInt(0, i);
+            writer.append(MSG_TYPE_ID, srcBuffer, 0, srcBuffer.capacity());
+        }
+    }
+}
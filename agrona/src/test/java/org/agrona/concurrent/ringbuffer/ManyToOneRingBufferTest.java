@@ -21,6 +21,8 @@ import org.mockito.InOrder;
 import org.agrona.concurrent.MessageHandler;
 import org.agrona.concurrent.UnsafeBuffer;
 
+import java.util.Arrays;
+
 import static java.lang.Boolean.TRUE;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.*;
@@ -407,4 +409,125 @@ public class ManyToOneRingBufferTest
 
         assertTrue(ringBuffer.write(MSG_TYPE_ID, srcBuffer, 0, messageLength));
     }
+
+    @Test
+    public void shouldWriteBatchToEmptyBuffer()
+    {
+        final int[] lengths = { 8, 20 };
+        final int recordLengthOne = lengths[0] + HEADER_LENGTH;
+        final int alignedRecordLengthOne = align(recordLengthOne, ALIGNMENT);
+        final int recordLengthTwo = lengths[1] + HEADER_LENGTH;
+        final int alignedRecordLengthTwo = align(recordLengthTwo, ALIGNMENT);
+        final long tail = 0L;
+        final long head = 0L;
+
+        when(buffer.getLongVolatile(HEAD_COUNTER_INDEX)).thenReturn(head);
+        when(buffer.getLongVolatile(TAIL_COUNTER_INDEX)).thenReturn(tail);
+        final long newTail = tail + alignedRecordLengthOne + alignedRecordLengthTwo;
+        when(buffer.compareAndSetLong(TAIL_COUNTER_INDEX, tail, newTail)).thenReturn(TRUE);
+
+        final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[1024]);
+        final int srcIndex = 0;
+
+        assertTrue(ringBuffer.writeBatch(MSG_TYPE_ID, srcBuffer, srcIndex, lengths, 0, lengths.length));
+
+        final InOrder inOrder = inOrder(buffer);
+        inOrder.verify(buffer).compareAndSetLong(anyInt(), anyLong(), anyLong());
+        inOrder.verify(buffer).putLongOrdered(0, makeHeader(-recordLengthOne, MSG_TYPE_ID));
+        inOrder.verify(buffer).putLongOrdered(alignedRecordLengthOne, makeHeader(-recordLengthTwo, MSG_TYPE_ID));
+        inOrder.verify(buffer).putBytes(encodedMsgOffset(0), srcBuffer, srcIndex, lengths[0]);
+        inOrder.verify(buffer).putIntOrdered(lengthOffset(0), recordLengthOne);
+        inOrder.verify(buffer)
+            .putBytes(encodedMsgOffset(alignedRecordLengthOne), srcBuffer, srcIndex + lengths[0], lengths[1]);
+        inOrder.verify(buffer).putIntOrdered(lengthOffset(alignedRecordLengthOne), recordLengthTwo);
+    }
+
+    @Test
+    public void shouldRejectBatchWhenInsufficientSpace()
+    {
+        final int[] lengths = { 100, 100 };
+        final long head = 0L;
+        final long tail = head + (CAPACITY - align(lengths[0] + HEADER_LENGTH, ALIGNMENT));
+
+        when(buffer.getLongVolatile(HEAD_COUNTER_INDEX)).thenReturn(head);
+        when(buffer.getLongVolatile(TAIL_COUNTER_INDEX)).thenReturn(tail);
+
+        final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[1024]);
+
+        assertFalse(ringBuffer.writeBatch(MSG_TYPE_ID, srcBuffer, 0, lengths, 0, lengths.length));
+
+        verify(buffer, never()).compareAndSetLong(anyInt(), anyLong(), anyLong());
+        verify(buffer, never()).putBytes(anyInt(), eq(srcBuffer), anyInt(), anyInt());
+        verify(buffer, never()).putIntOrdered(anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldWriteBatchAcrossBufferWrapAndReadInOrder()
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[TOTAL_BUFFER_LENGTH]);
+        final ManyToOneRingBuffer ringBuffer = new ManyToOneRingBuffer(buffer);
+        final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[1024]);
+        final int messageLength = 200;
+
+        for (int i = 0; i < 19; i++)
+        {
+            assertTrue(ringBuffer.write(MSG_TYPE_ID, srcBuffer, 0, messageLength));
+        }
+        assertThat(ringBuffer.read((msgTypeId, buffer1, index, length) -> {}), is(19));
+
+        final int[] lengths = { 4, 8, 200, 12 };
+        int srcIndex = 0;
+        for (final int length : lengths)
+        {
+            for (int i = 0; i < length; i++)
+            {
+                srcBuffer.putByte(srcIndex + i, (byte)length);
+            }
+            srcIndex += length;
+        }
+
+        assertTrue(ringBuffer.writeBatch(MSG_TYPE_ID, srcBuffer, 0, lengths, 0, lengths.length));
+
+        final int[] received = new int[lengths.length];
+        final int[] count = new int[1];
+        final MessageHandler handler =
+            (msgTypeId, buffer1, index, length) ->
+            {
+                assertThat(msgTypeId, is(MSG_TYPE_ID));
+                assertThat(buffer1.getByte(index + length - 1) & 0xFF, is(length));
+                received[count[0]++] = length;
+            };
+
+        while (count[0] < lengths.length)
+        {
+            ringBuffer.read(handler);
+        }
+
+        assertArrayEquals(lengths, received);
+        assertThat(ringBuffer.size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenBatchMessageSizeExceeded()
+    {
+        final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[1024]);
+        final int[] lengths = { 8, ringBuffer.maxMsgLength() + 1 };
+
+        ringBuffer.writeBatch(MSG_TYPE_ID, srcBuffer, 0, lengths, 0, lengths.length);
+    }
+
+    @Test(timeout = 10000, expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenBatchLengthOverflowsInt()
+    {
+        final int capacity = 1 << 30;
+        final UnsafeBuffer largeBuffer = mock(UnsafeBuffer.class);
+        when(largeBuffer.capacity()).thenReturn(capacity + RingBufferDescriptor.TRAILER_LENGTH);
+        final ManyToOneRingBuffer largeRingBuffer = new ManyToOneRingBuffer(largeBuffer);
+
+        final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[1024]);
+        final int[] lengths = new int[16];
+        Arrays.fill(lengths, largeRingBuffer.maxMsgLength());
+
+        largeRingBuffer.writeBatch(MSG_TYPE_ID, srcBuffer, 0, lengths, 0, lengths.length);
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.agrona.concurrent.ringbuffer;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.log.SegmentedLogDescriptor;
+import org.agrona.concurrent.log.SegmentedLogReader;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferJournalTest
+{
+    private static final int MSG_TYPE_ID = 7;
+    private static final int SEGMENT_LENGTH = 256;
+
+    private final File directory = new File(IoUtil.tmpDirName(), "ring-buffer-journal-test");
+    private final ManyToOneRingBuffer ringBuffer = new ManyToOneRingBuffer(
+        new UnsafeBuffer(new byte[4096 + RingBufferDescriptor.TRAILER_LENGTH]));
+    private final UnsafeBuffer srcBuffer = new UnsafeBuffer(new byte[40]);
+    private final List<Integer> received = new ArrayList<>();
+    private final MessageHandler handler = (msgTypeId, buffer, index, length) -> received.add(buffer.getInt(index));
+
+    @After
+    public void after()
+    {
+        IoUtil.delete(directory, true);
+    }
+
+    @Test
+    public void shouldJournalConsumedMessagesAndReplayAfterRestart()
+    {
+        IoUtil.delete(directory, true);
+
+        final long consumerPosition;
+        try (RingBufferJournal journal = new RingBufferJournal(directory, SEGMENT_LENGTH))
+        {
+            write(0, 20);
+
+            assertThat(journal.consume(ringBuffer, handler), is(20));
+            assertThat(received.size(), is(20));
+
+            consumerPosition = journal.consumerPosition();
+            assertThat(consumerPosition, is(journal.position()));
+            assertTrue(consumerPosition > SEGMENT_LENGTH);
+        }
+
+        received.clear();
+        try (RingBufferJournal journal = new RingBufferJournal(directory, SEGMENT_LENGTH))
+        {
+            assertThat(journal.position(), is(consumerPosition));
+            assertThat(journal.consumerPosition(), is(consumerPosition));
+
+            write(20, 5);
+            journal.consume(ringBuffer, handler);
+            received.clear();
+
+            assertThat(journal.replay(0, handler), is(25L));
+            for (int i = 0; i < 25; i++)
+            {
+                assertThat(received.get(i), is(i));
+            }
+
+            received.clear();
+            assertThat(journal.replay(consumerPosition, handler), is(5L));
+            assertThat(received.get(0), is(20));
+        }
+    }
+
+    @Test
+    public void shouldBeReadableAsSegmentedLog()
+    {
+        IoUtil.delete(directory, true);
+
+        try (RingBufferJournal journal = new RingBufferJournal(directory, SEGMENT_LENGTH);
+            SegmentedLogReader logReader = new SegmentedLogReader(directory))
+        {
+            write(0, 10);
+            journal.consume(ringBuffer, (msgTypeId, buffer, index, length) -> {});
+
+            assertThat(logReader.poll(handler), is(10));
+            assertThat(logReader.position(), is(journal.position()));
+            assertThat(received.get(9), is(9));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldStopReplayAtZeroFilledGap()
+    {
+        IoUtil.delete(directory, true);
+
+        final long gapPosition;
+        try (RingBufferJournal journal = new RingBufferJournal(directory, SEGMENT_LENGTH))
+        {
+            write(0, 3);
+            journal.consume(ringBuffer, (msgTypeId, buffer, index, length) -> {});
+            gapPosition = journal.position();
+
+            write(3, 2);
+            journal.consume(ringBuffer, (msgTypeId, buffer, index, length) -> {});
+        }
+
+        final MappedByteBuffer segment = IoUtil.mapExistingFile(
+            SegmentedLogDescriptor.segmentFile(directory, 0), "log segment");
+        try
+        {
+            final UnsafeBuffer segmentBuffer = new UnsafeBuffer(segment);
+            segmentBuffer.setMemory((int)gapPosition, SEGMENT_LENGTH - (int)gapPosition, (byte)0);
+        }
+        finally
+        {
+            IoUtil.unmap(segment);
+        }
+
+        try (RingBufferJournal journal = new RingBufferJournal(directory, SEGMENT_LENGTH))
+        {
+            assertThat(journal.replay(0, handler), is(3L));
+            assertThat(received.size(), is(3));
+            assertThat(received.get(2), is(2));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectDifferentSegmentLengthForExistingJournal()
+    {
+        IoUtil.delete(directory, true);
+
+        new RingBufferJournal(directory, SEGMENT_LENGTH).close();
+        new RingBufferJournal(directory, SEGMENT_LENGTH * 2);
+    }
+
+    private void write(final int from, final int count)
+    {
+        for (int i = from; i < from + count; i++)
+        {
+            srcBuffer.putInt(0, i);
+            assertTrue(ringBuffer.write(MSG_TYPE_ID, srcBuffer, 0, srcBuffer.capacity()));
+        }
+    }
+}